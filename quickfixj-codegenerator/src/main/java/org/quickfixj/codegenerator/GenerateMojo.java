@@ -64,6 +64,20 @@ public class GenerateMojo extends AbstractMojo {
      */
     private boolean decimal;
 
+    /**
+     * Enable fixed-point ScaledDecimal representation.
+     *
+     * @parameter default-value="false"
+     */
+    private boolean scaledDecimal;
+
+    /**
+     * Enable generation of read-only message view classes.
+     *
+     * @parameter default-value="false"
+     */
+    private boolean messageViews;
+
     /**
      * Enable orderedFields.
      *
@@ -136,6 +150,8 @@ public class GenerateMojo extends AbstractMojo {
             task.setOverwrite(true);
             task.setOrderedFields(orderedFields);
             task.setDecimalGenerated(decimal);
+            task.setScaledDecimalGenerated(scaledDecimal);
+            task.setMessageViewsGenerated(messageViews);
             generator.generate(task);
         } catch (Exception e) {
             throw new MojoExecutionException("QuickFIX code generator execution failed", e);
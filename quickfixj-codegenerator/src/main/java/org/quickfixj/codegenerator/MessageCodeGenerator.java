@@ -54,6 +54,8 @@ import org.xml.sax.SAXException;
 public class MessageCodeGenerator {
 
     private static final String BIGDECIMAL_TYPE_OPTION = "generator.decimal";
+    private static final String SCALEDDECIMAL_TYPE_OPTION = "generator.scaledDecimal";
+    private static final String MESSAGE_VIEWS_OPTION = "generator.messageViews";
     private static final String ORDERED_FIELDS_OPTION = "generator.orderedFields";
     private static final String OVERWRITE_OPTION = "generator.overwrite";
 
@@ -134,7 +136,10 @@ public class MessageCodeGenerator {
                     Map<String, String> parameters = new HashMap<String, String>();
                     parameters.put("fieldName", fieldName);
                     parameters.put("fieldPackage", task.getFieldPackage());
-                    if (task.isDecimalGenerated()) {
+                    if (task.isScaledDecimalGenerated()) {
+                        parameters.put("decimalType", "quickfix.ScaledDecimal");
+                        parameters.put("decimalConverter", "ScaledDecimal");
+                    } else if (task.isDecimalGenerated()) {
                         parameters.put("decimalType", "java.math.BigDecimal");
                         parameters.put("decimalConverter", "Decimal");
                     }
@@ -198,6 +203,25 @@ public class MessageCodeGenerator {
         }
     }
 
+    private void generateMessageViewClasses(Task task) throws ParserConfigurationException,
+            SAXException, IOException,
+            TransformerFactoryConfigurationError, TransformerException {
+        logInfo(task.getName() + ": generating message view classes");
+        String outputDirectory = task.getOutputBaseDirectory() + "/" + task.getMessageDirectory()
+                + "/";
+        Document document = getSpecification(task);
+        List<String> messageNames = getNames(document.getDocumentElement(), "messages/message");
+        Transformer transformer = createTransformer(task, "MessageView.xsl");
+        for (String messageName : messageNames) {
+            logDebug("generating message view class: " + messageName);
+            Map<String, String> parameters = new HashMap<String, String>();
+            parameters.put("itemName", messageName);
+            parameters.put("messagePackage", task.getMessagePackage());
+            generateCodeFile(task, document, parameters, outputDirectory + messageName
+                    + "View.java", transformer);
+        }
+    }
+
     private Transformer createTransformer(Task task, String xsltFile)
             throws TransformerFactoryConfigurationError, TransformerConfigurationException {
         StreamSource styleSource;
@@ -315,6 +339,9 @@ public class MessageCodeGenerator {
             generateMessageCrackerClass(task);
             generateComponentClasses(task);
             generateMessageSubclasses(task);
+            if (task.isMessageViewsGenerated()) {
+                generateMessageViewClasses(task);
+            }
         } catch (RuntimeException e) {
             throw e;
         } catch (Exception e) {
@@ -332,6 +359,8 @@ public class MessageCodeGenerator {
         private File transformDirectory;
         private boolean orderedFields;
         private boolean useDecimal;
+        private boolean useScaledDecimal;
+        private boolean messageViews;
         private long specificationLastModified;
 
         public long getSpecificationLastModified() {
@@ -418,6 +447,31 @@ public class MessageCodeGenerator {
         public boolean isDecimalGenerated() {
             return useDecimal;
         }
+
+        /**
+         * Generates price, quantity and amount fields with fixed-point
+         * {@code quickfix.ScaledDecimal} values. Takes precedence over
+         * {@link #setDecimalGenerated(boolean)}.
+         */
+        public void setScaledDecimalGenerated(boolean useScaledDecimal) {
+            this.useScaledDecimal = useScaledDecimal;
+        }
+
+        public boolean isScaledDecimalGenerated() {
+            return useScaledDecimal;
+        }
+
+        /**
+         * Also generates a read-only {@code quickfix.MessageView} subclass for
+         * each message, named after the message with a "View" suffix.
+         */
+        public void setMessageViewsGenerated(boolean messageViews) {
+            this.messageViews = messageViews;
+        }
+
+        public boolean isMessageViewsGenerated() {
+            return messageViews;
+        }
     }
 
     public static void main(String[] args) {
@@ -432,6 +486,8 @@ public class MessageCodeGenerator {
             boolean overwrite = getOption(OVERWRITE_OPTION, true);
             boolean orderedFields = getOption(ORDERED_FIELDS_OPTION, false);
             boolean useDecimal = getOption(BIGDECIMAL_TYPE_OPTION, false);
+            boolean useScaledDecimal = getOption(SCALEDDECIMAL_TYPE_OPTION, false);
+            boolean messageViews = getOption(MESSAGE_VIEWS_OPTION, false);
 
             long start = System.currentTimeMillis();
             final String[] versions = { "FIXT 1.1", "FIX 5.0", "FIX 4.4", "FIX 4.3", "FIX 4.2",
@@ -448,6 +504,8 @@ public class MessageCodeGenerator {
                 task.setOverwrite(overwrite);
                 task.setOrderedFields(orderedFields);
                 task.setDecimalGenerated(useDecimal);
+                task.setScaledDecimalGenerated(useScaledDecimal);
+                task.setMessageViewsGenerated(messageViews);
                 codeGenerator.generate(task);
             }
             double duration = System.currentTimeMillis() - start;
@@ -83,6 +83,11 @@ public class <xsl:value-of select="@name"/> extends <xsl:call-template name="get
 		super(<xsl:value-of select="@number"/>, new <xsl:value-of select="$dataType"/>(data));
 	}
 	</xsl:if>
+	<xsl:if test="$dataType = 'quickfix.ScaledDecimal'">
+	public <xsl:value-of select="@name"/>(long unscaledValue, int scale) {
+		super(<xsl:value-of select="@number"/>, unscaledValue, scale);
+	}
+	</xsl:if>
 }
 </xsl:template>
 
@@ -119,15 +119,27 @@ public class MessageCracker {
 
 		String type = message.getHeader().getString(MsgType.FIELD);
 
-		<xsl:for-each select="//fix/messages/message">
-		<xsl:if test="position()!=1">
-		else </xsl:if>if (type.equals(<xsl:value-of select="@name"/>.MSGTYPE))
-			onMessage((<xsl:value-of select="@name"/>)message, sessionID);</xsl:for-each>
-		else
+		switch (MessageUtils.getMsgTypeKey(type)) {<xsl:for-each select="//fix/messages/message">
+		case <xsl:call-template name="msgtype-key"><xsl:with-param name="msgtype" select="@msgtype"/></xsl:call-template>:
+			onMessage((<xsl:value-of select="@name"/>)message, sessionID);
+			break;</xsl:for-each>
+		default:
 			onMessage(message, sessionID);
+		}
 	}
 </xsl:template>
 
+  <!-- The constant expression of MessageUtils.getMsgTypeKey() for a message type -->
+<xsl:template name="msgtype-key">
+	<xsl:param name="msgtype"/>
+	<xsl:variable name="length" select="string-length($msgtype)"/>
+	<xsl:choose>
+	<xsl:when test="$length = 1">'<xsl:value-of select="$msgtype"/>'</xsl:when>
+	<xsl:when test="$length = 2">'<xsl:value-of select="substring($msgtype, 1, 1)"/>' &lt;&lt; 8 | '<xsl:value-of select="substring($msgtype, 2, 1)"/>'</xsl:when>
+	<xsl:otherwise>(<xsl:call-template name="msgtype-key"><xsl:with-param name="msgtype" select="substring($msgtype, 1, $length - 1)"/></xsl:call-template>) &lt;&lt; 8 | '<xsl:value-of select="substring($msgtype, $length, 1)"/>'</xsl:otherwise>
+	</xsl:choose>
+</xsl:template>
+
 <xsl:template name="base-class">
  <xsl:if test="//fix/@major='4'">
    <xsl:if test="//fix/@minor='1'">extends quickfix.fix40.MessageCracker</xsl:if>
@@ -0,0 +1,194 @@
+<!--
+*****************************************************************************
+  Copyright (c) 2001-2004 quickfixengine.org  All rights reserved.
+
+  This file is part of the QuickFIX FIX Engine
+
+  This file may be distributed under the terms of the quickfixengine.org
+  license as defined by quickfixengine.org and appearing in the file
+  LICENSE included in the packaging of this file.
+
+  This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+  WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+
+  See http://www.quickfixengine.org/LICENSE for licensing information.
+
+  Contact ask@quickfixengine.org if any conditions of this licensing are
+  not clear to you.
+*****************************************************************************
+-->
+
+
+<!--
+  Generates a read-only flyweight view of a message, see quickfix.MessageView.
+-->
+<xsl:stylesheet xmlns:xsl="http://www.w3.org/1999/XSL/Transform" version="1.0">
+ <xsl:output method="text" encoding="UTF-8" />
+ <xsl:param name="itemName"/>
+ <xsl:param name="messagePackage"/>
+
+<xsl:template match="text()"/>
+
+<xsl:template match="/">/* Generated Java Source File */
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved. 
+ * 
+ * This file is part of the QuickFIX FIX Engine 
+ * 
+ * This file may be distributed under the terms of the quickfixengine.org 
+ * license as defined by quickfixengine.org and appearing in the file 
+ * LICENSE included in the packaging of this file. 
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING 
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE. 
+ * 
+ * See http://www.quickfixengine.org/LICENSE for licensing information. 
+ * 
+ * Contact ask@quickfixengine.org if any conditions of this licensing 
+ * are not clear to you.
+ ******************************************************************************/
+<xsl:apply-templates select="fix/messages/message[@name=$itemName]"/>
+</xsl:template>
+
+<xsl:template match="fix/messages/message">
+package <xsl:value-of select="$messagePackage"/>;
+
+import quickfix.FieldNotFound;
+import quickfix.MessageView;
+
+public class <xsl:value-of select="@name"/>View extends MessageView {
+
+	public static final String MSGTYPE = "<xsl:value-of select="@msgtype"/>";
+	<xsl:apply-templates select="field|component|group" mode="field-accessors"/>
+}
+</xsl:template>
+
+  <!--
+    *********************************************************************
+    Repeating group view generation. The group view is wrapped around an
+    instance of the group by the getter of the enclosing view.
+    *********************************************************************
+  -->
+<xsl:template mode="field-accessors" match="group">
+	<xsl:call-template name="field-accessor-template"/>
+	<xsl:variable name="groupFieldName" select="@name"/>
+	public <xsl:value-of select="@name"/> get<xsl:value-of select="@name"/>(int num, <xsl:value-of select="@name"/> group) throws FieldNotFound {
+		return getGroup(num, group, <xsl:value-of select="/fix/fields/field[@name=$groupFieldName]/@number"/>, <xsl:value-of select="@name"/>.DELIMITER, <xsl:value-of select="@name"/>.GROUP_TAGS);
+	}
+
+	public static class <xsl:value-of select="@name"/> extends MessageView {
+
+		private static final int DELIMITER = <xsl:apply-templates select="field|component|group" mode="group-delimeter"/>;
+		private static final int[] GROUP_TAGS = groupTags(<xsl:apply-templates select="field|component|group" mode="group-tags"/>0);
+		<xsl:apply-templates select="field|component|group" mode="field-accessors"/>
+	}
+</xsl:template>
+
+  <!-- Find the group delimeter (first field) -->
+
+<xsl:template mode="group-delimeter" match="field">
+	<xsl:if test="position() = 1">
+		<xsl:variable name="name" select="@name"/>
+		<xsl:value-of select="/fix/fields/field[@name=$name]/@number"/>
+	</xsl:if>
+</xsl:template>
+
+<xsl:template mode="group-delimeter" match="group">
+	<xsl:if test="position() = 1">
+		<xsl:variable name="name" select="@name"/>
+		<xsl:value-of select="/fix/fields/field[@name=$name]/@number"/>
+	</xsl:if>
+</xsl:template>
+
+<xsl:template mode="group-delimeter" match="component">
+	<xsl:if test="position() = 1">
+		<xsl:variable name="name" select="@name"/>
+		<xsl:apply-templates select="/fix/components/component[@name=$name]/*[name(.)='field' or name(.)='group' or name(.)='component']"
+			mode="group-delimeter"/>
+	</xsl:if>
+</xsl:template>
+
+  <!-- Find the numbers of all fields of a group, including nested groups -->
+
+<xsl:template mode="group-tags" match="field">
+	<xsl:variable name="name" select="@name"/>
+	<xsl:value-of select="/fix/fields/field[@name=$name]/@number"/>, </xsl:template>
+
+<xsl:template mode="group-tags" match="group">
+	<xsl:variable name="name" select="@name"/>
+	<xsl:value-of select="/fix/fields/field[@name=$name]/@number"/>, <xsl:apply-templates select="field|component|group" mode="group-tags"/>
+</xsl:template>
+
+<xsl:template mode="group-tags" match="component">
+	<xsl:variable name="name" select="@name"/>
+	<xsl:apply-templates select="/fix/components/component[@name=$name]/*[name(.)='field' or name(.)='group' or name(.)='component']"
+		mode="group-tags"/>
+</xsl:template>
+
+  <!--
+    *********************************************************************
+    Field getter generation. The getters parse the value directly from the
+    message string into the primitive type of the field.
+    *********************************************************************
+  -->
+
+<xsl:template mode="field-accessors" match="field">
+	<xsl:call-template name="field-accessor-template"/>
+</xsl:template>
+
+<xsl:template mode="field-accessors" match="component">
+	<xsl:variable name="name" select="@name"/>
+	<xsl:apply-templates select="/fix/components/component[@name=$name]/*[name(.)='field' or name(.)='group' or name(.)='component']"
+		mode="field-accessors"/>
+</xsl:template>
+
+<xsl:template name="field-accessor-template">
+	<xsl:variable name="name" select="@name"/>
+	<xsl:variable name="number" select="/fix/fields/field[@name=$name]/@number"/>
+	<xsl:variable name="type" select="/fix/fields/field[@name=$name]/@type"/>
+	<xsl:choose>
+	<xsl:when test="$type='INT' or $type='LENGTH' or $type='SEQNUM' or $type='NUMINGROUP' or $type='DAYOFMONTH'">
+	public int get<xsl:value-of select="@name"/>() throws FieldNotFound {
+		return getInt(<xsl:value-of select="$number"/>);
+	}
+	</xsl:when>
+	<xsl:when test="$type='PRICE' or $type='AMT' or $type='QTY' or $type='PRICEOFFSET' or $type='FLOAT' or $type='PERCENTAGE'">
+	public double get<xsl:value-of select="@name"/>() throws FieldNotFound {
+		return getDouble(<xsl:value-of select="$number"/>);
+	}
+
+	public long get<xsl:value-of select="@name"/>(int scale) throws FieldNotFound {
+		return getScaledDecimal(<xsl:value-of select="$number"/>, scale);
+	}
+	</xsl:when>
+	<xsl:when test="$type='CHAR'">
+	public char get<xsl:value-of select="@name"/>() throws FieldNotFound {
+		return getChar(<xsl:value-of select="$number"/>);
+	}
+	</xsl:when>
+	<xsl:when test="$type='BOOLEAN'">
+	public boolean get<xsl:value-of select="@name"/>() throws FieldNotFound {
+		return getBoolean(<xsl:value-of select="$number"/>);
+	}
+	</xsl:when>
+	<xsl:when test="$type='UTCTIMESTAMP' or $type='TIME'">
+	public long get<xsl:value-of select="@name"/>Millis() throws FieldNotFound {
+		return getUtcTimeStampMillis(<xsl:value-of select="$number"/>);
+	}
+
+	public long get<xsl:value-of select="@name"/>Nanos() throws FieldNotFound {
+		return getUtcTimeStampNanos(<xsl:value-of select="$number"/>);
+	}
+	</xsl:when>
+	<xsl:otherwise>
+	public String get<xsl:value-of select="@name"/>() throws FieldNotFound {
+		return getString(<xsl:value-of select="$number"/>);
+	}
+	</xsl:otherwise>
+	</xsl:choose>
+	public boolean isSet<xsl:value-of select="@name"/>() {
+		return isSetField(<xsl:value-of select="$number"/>);
+	}
+</xsl:template>
+</xsl:stylesheet>
@@ -0,0 +1,301 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes the entries of asynchronous file logs in a background thread. Logging
+ * threads only copy the entry into a preallocated buffer; the writer thread
+ * drains the buffer and writes all entries of a batch with one write and flush
+ * per file.
+ * <p>
+ * The writer is shared by the logs that registered with it and its thread is
+ * stopped when the last of them is closed.
+ */
+class AsyncFileLogWriter {
+
+    /**
+     * Determines what happens when an entry is logged while the buffer is full.
+     */
+    enum OverflowPolicy {
+        /** Wait until the writer thread has made room. */
+        BLOCK,
+        /** Discard the entry. */
+        DROP,
+        /** Write the buffered entries to the files in the logging thread. */
+        SPILL;
+
+        /**
+         * Converts a setting value (Block, Drop or Spill) to an overflow policy.
+         *
+         * @param value the setting value, case-insensitive
+         * @return the overflow policy
+         * @throws IllegalArgumentException if the value is unknown
+         */
+        static OverflowPolicy fromSetting(String value) {
+            if ("Block".equalsIgnoreCase(value)) {
+                return BLOCK;
+            } else if ("Drop".equalsIgnoreCase(value)) {
+                return DROP;
+            } else if ("Spill".equalsIgnoreCase(value)) {
+                return SPILL;
+            }
+            throw new IllegalArgumentException("Unknown overflow policy: " + value);
+        }
+    }
+
+    private final OverflowPolicy overflowPolicy;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final AtomicLong droppedEntries = new AtomicLong();
+
+    // the buffer, guarded by lock
+    private final FileLog[] logs;
+    private final boolean[] events;
+    private final String[] texts;
+    private final long[] timestamps;
+    private int head;
+    private int count;
+    private int users;
+    private boolean stopped;
+
+    // entries taken out of the buffer, guarded by writeLock
+    private final Object writeLock = new Object();
+    private final FileLog[] batchLogs;
+    private final boolean[] batchEvents;
+    private final String[] batchTexts;
+    private final long[] batchTimestamps;
+    private final Set<FileLog> batchTouchedLogs = Collections
+            .newSetFromMap(new IdentityHashMap<FileLog, Boolean>());
+
+    private final Thread writerThread;
+
+    /**
+     * @param capacity number of entries that can be buffered
+     * @param overflowPolicy what to do when the buffer is full
+     */
+    AsyncFileLogWriter(int capacity, OverflowPolicy overflowPolicy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid log buffer size: " + capacity);
+        }
+        this.overflowPolicy = overflowPolicy;
+        logs = new FileLog[capacity];
+        events = new boolean[capacity];
+        texts = new String[capacity];
+        timestamps = new long[capacity];
+        batchLogs = new FileLog[capacity];
+        batchEvents = new boolean[capacity];
+        batchTexts = new String[capacity];
+        batchTimestamps = new long[capacity];
+
+        writerThread = new Thread(new Runnable() {
+            public void run() {
+                writeEntries();
+            }
+        }, "QFJ FileLog writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * @return the number of entries discarded because the buffer was full
+     */
+    long getDroppedEntries() {
+        return droppedEntries.get();
+    }
+
+    /**
+     * Registers a log that uses this writer.
+     *
+     * @return false if the writer has been stopped and cannot be used anymore
+     */
+    boolean register() {
+        lock.lock();
+        try {
+            if (stopped) {
+                return false;
+            }
+            users++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Unregisters a log. When no log is registered anymore, the buffered
+     * entries are written and the writer thread is stopped.
+     */
+    void release() {
+        lock.lock();
+        try {
+            if (--users > 0) {
+                return;
+            }
+            stopped = true;
+            notEmpty.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Buffers a log entry.
+     *
+     * @param log the log the entry is written to
+     * @param event true for the event file, false for the messages file
+     * @param text the entry
+     * @param timestamp the time of the entry, or -1 to write it without time stamp
+     * @return false if the writer has been stopped and the entry was not buffered
+     */
+    boolean append(FileLog log, boolean event, String text, long timestamp) {
+        lock.lock();
+        try {
+            while (count == logs.length && !stopped) {
+                switch (overflowPolicy) {
+                case DROP:
+                    droppedEntries.incrementAndGet();
+                    return true;
+                case SPILL:
+                    lock.unlock();
+                    try {
+                        flush();
+                    } finally {
+                        lock.lock();
+                    }
+                    break;
+                default:
+                    notFull.awaitUninterruptibly();
+                }
+            }
+            if (stopped) {
+                return false;
+            }
+            final int slot = (head + count) % logs.length;
+            logs[slot] = log;
+            events[slot] = event;
+            texts[slot] = text;
+            timestamps[slot] = timestamp;
+            count++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes all buffered entries to their files in the calling thread.
+     */
+    void flush() {
+        synchronized (writeLock) {
+            writeBatch();
+        }
+    }
+
+    /**
+     * Returns the lock held while entries are written to the files. A log holds
+     * it while it closes or reopens its files, so that the writer thread never
+     * writes to them in the meantime.
+     */
+    Object getWriteLock() {
+        return writeLock;
+    }
+
+    private void writeEntries() {
+        while (true) {
+            lock.lock();
+            try {
+                while (count == 0 && !stopped) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (count == 0) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                // the batch is lost, but the thread must keep draining the buffer
+                System.err.println("error writing log entries : " + e);
+                e.printStackTrace(System.err);
+            }
+        }
+    }
+
+    private void writeBatch() {
+        final int size;
+        lock.lock();
+        try {
+            size = count;
+            for (int i = 0; i < size; i++) {
+                final int slot = (head + i) % logs.length;
+                batchLogs[i] = logs[slot];
+                batchEvents[i] = events[slot];
+                batchTexts[i] = texts[slot];
+                batchTimestamps[i] = timestamps[slot];
+                logs[slot] = null;
+                texts[slot] = null;
+            }
+            head = (head + size) % logs.length;
+            count = 0;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            for (int i = 0; i < size; i++) {
+                batchLogs[i].writeEntry(batchEvents[i], batchTexts[i], batchTimestamps[i]);
+                batchTouchedLogs.add(batchLogs[i]);
+                batchLogs[i] = null;
+                batchTexts[i] = null;
+            }
+            for (final FileLog log : batchTouchedLogs) {
+                log.flushEntries();
+            }
+        } finally {
+            for (int i = 0; i < size; i++) {
+                batchLogs[i] = null;
+                batchTexts[i] = null;
+            }
+            batchTouchedLogs.clear();
+        }
+    }
+}
@@ -26,7 +26,9 @@ import static quickfix.FileUtil.Location.URL;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -47,13 +49,7 @@ import org.w3c.dom.NodeList;
 import quickfix.field.BeginString;
 import quickfix.field.MsgType;
 import quickfix.field.SessionRejectReason;
-import quickfix.field.converter.BooleanConverter;
-import quickfix.field.converter.CharConverter;
-import quickfix.field.converter.DoubleConverter;
-import quickfix.field.converter.IntConverter;
-import quickfix.field.converter.UtcDateOnlyConverter;
-import quickfix.field.converter.UtcTimeOnlyConverter;
-import quickfix.field.converter.UtcTimestampConverter;
+import quickfix.field.converter.FormatValidator;
 
 /**
  * Provide the message metadata for various versions of FIX.
@@ -90,6 +86,11 @@ public class DataDictionary {
     private final Map<IntStringPair, GroupInfo> groups = new HashMap<IntStringPair, GroupInfo>();
     private final Map<String, Node> components = new HashMap<String, Node>();
 
+    // validation plans, compiled on first use from the maps above
+    private volatile Map<String, ValidationPlan> validationPlans;
+    private volatile TagSet fieldSet;
+    private volatile TagMap<FieldValidation> fieldValidations;
+
     private DataDictionary() {
     }
 
@@ -644,6 +645,8 @@ public class DataDictionary {
 
     private void iterate(FieldMap map, String msgType, DataDictionary dd) throws IncorrectTagValue,
             IncorrectDataFormat {
+        final ValidationPlan plan = dd.getValidationPlan(msgType);
+        final boolean message = map instanceof Message;
         final Iterator<Field<?>> iterator = map.iterator();
         while (iterator.hasNext()) {
             final StringField field = (StringField) iterator.next();
@@ -651,22 +654,71 @@ public class DataDictionary {
             checkHasValue(field);
 
             if (hasVersion) {
-                checkValidFormat(field);
-                checkValue(field);
+                final FieldValidation validation = getFieldValidations().get(field.getTag());
+                if (validation != null) {
+                    checkValidFormat(field, validation);
+                    checkValue(field, validation);
+                }
             }
 
             if (beginString != null) {
-                dd.checkField(field, msgType, map instanceof Message);
-                dd.checkGroupCount(field, map, msgType);
+                dd.checkField(field, plan, message);
+                dd.checkGroupCount(field, map, plan);
             }
         }
 
         for (final List<Group> groups : map.getGroups().values()) {
             for (final Group group : groups) {
-                iterate(group, msgType, dd.getGroup(msgType, group.getFieldTag())
-                        .getDataDictionary());
+                iterate(group, msgType, plan.getGroup(group.getFieldTag()).getDataDictionary());
+            }
+        }
+    }
+
+    /**
+     * Returns the validation plan of a message type. The plans of all message
+     * types are compiled on first use.
+     */
+    private ValidationPlan getValidationPlan(String msgType) {
+        Map<String, ValidationPlan> plans = validationPlans;
+        if (plans == null) {
+            final Set<String> msgTypes = new HashSet<String>(messageFields.keySet());
+            msgTypes.addAll(requiredFields.keySet());
+            for (final IntStringPair group : groups.keySet()) {
+                msgTypes.add(group.stringValue);
+            }
+            plans = new HashMap<String, ValidationPlan>();
+            for (final String type : msgTypes) {
+                plans.put(type, new ValidationPlan(this, type));
+            }
+            validationPlans = plans;
+        }
+        final ValidationPlan plan = plans.get(msgType);
+        return plan != null ? plan : ValidationPlan.EMPTY;
+    }
+
+    private TagSet getFieldSet() {
+        TagSet tagSet = fieldSet;
+        if (tagSet == null) {
+            tagSet = new TagSet(fields);
+            fieldSet = tagSet;
+        }
+        return tagSet;
+    }
+
+    private TagMap<FieldValidation> getFieldValidations() {
+        TagMap<FieldValidation> validations = fieldValidations;
+        if (validations == null) {
+            final Map<Integer, FieldValidation> validationMap = new HashMap<Integer, FieldValidation>();
+            final Set<Integer> tags = new HashSet<Integer>(fieldTypes.keySet());
+            tags.addAll(fieldValues.keySet());
+            for (final Integer tag : tags) {
+                validationMap.put(tag, new FieldValidation(fieldTypes.get(tag), fieldValues.get(tag),
+                        beginString));
             }
+            validations = new TagMap<FieldValidation>(validationMap);
+            fieldValidations = validations;
         }
+        return validations;
     }
 
     // / Check if message type is defined in spec.
@@ -687,8 +739,13 @@ public class DataDictionary {
     
     // / Check if field tag is defined for message or group
     void checkField(Field<?> field, String msgType, boolean message) {
+        checkField(field, getValidationPlan(msgType), message);
+    }
+
+    private void checkField(Field<?> field, ValidationPlan plan, boolean message) {
         // use different validation for groups and messages
-        boolean messageField = message ? isMsgField(msgType, field.getField()) : fields.contains(field.getField());
+        final TagSet fieldSet = getFieldSet();
+        boolean messageField = message ? plan.isMsgField(field.getField()) : fieldSet.contains(field.getField());
         boolean fail;
         
         if (field.getField() < USER_DEFINED_TAG_MIN) {
@@ -698,7 +755,7 @@ public class DataDictionary {
         }
         
         if (fail) {
-            if (fields.contains(Integer.valueOf(field.getTag()))) {
+            if (fieldSet.contains(field.getTag())) {
                 throw new FieldException(SessionRejectReason.TAG_NOT_DEFINED_FOR_THIS_MESSAGE_TYPE, field.getField());
             } else {
                 throw new FieldException(SessionRejectReason.INVALID_TAG_NUMBER, field.getField());
@@ -706,78 +763,51 @@ public class DataDictionary {
         }
     }
 
-    private void checkValidFormat(StringField field) throws IncorrectDataFormat {
-        try {
-            final FieldType fieldType = getFieldTypeEnum(field.getTag());
-            if (fieldType == FieldType.String) {
-                // String
-            } else if (fieldType == FieldType.Char) {
-                if (beginString.compareTo(FixVersions.BEGINSTRING_FIX41) > 0) {
-                    CharConverter.convert(field.getValue());
-                } else {
-                    // String, for older FIX versions
-                }
-            } else if (fieldType == FieldType.Price) {
-                DoubleConverter.convert(field.getValue());
-            } else if (fieldType == FieldType.Int) {
-                IntConverter.convert(field.getValue());
-            } else if (fieldType == FieldType.Amt) {
-                DoubleConverter.convert(field.getValue());
-            } else if (fieldType == FieldType.Qty) {
-                DoubleConverter.convert(field.getValue());
-            } else if (fieldType == FieldType.Qty) {
-                // String
-            } else if (fieldType == FieldType.MultipleValueString) {
-                // String
-            } else if (fieldType == FieldType.MultipleStringValue) {
-                // String
-            } else if (fieldType == FieldType.Exchange) {
-                // String
-            } else if (fieldType == FieldType.Boolean) {
-                BooleanConverter.convert(field.getValue());
-            } else if (fieldType == FieldType.LocalMktDate) {
-                // String
-            } else if (fieldType == FieldType.Data) {
-                // String
-            } else if (fieldType == FieldType.Float) {
-                DoubleConverter.convert(field.getValue());
-            } else if (fieldType == FieldType.PriceOffset) {
-                DoubleConverter.convert(field.getValue());
-            } else if (fieldType == FieldType.MonthYear) {
-                // String
-            } else if (fieldType == FieldType.DayOfMonth) {
-                // String
-            } else if (fieldType == FieldType.UtcDate) {
-                UtcDateOnlyConverter.convert(field.getValue());
-            } else if (fieldType == FieldType.UtcTimeOnly) {
-                UtcTimeOnlyConverter.convert(field.getValue());
-            } else if (fieldType == FieldType.UtcTimeStamp || fieldType == FieldType.Time) {
-                UtcTimestampConverter.convert(field.getValue());
-            } else if (fieldType == FieldType.NumInGroup) {
-                IntConverter.convert(field.getValue());
-            } else if (fieldType == FieldType.Percentage) {
-                DoubleConverter.convert(field.getValue());
-            } else if (fieldType == FieldType.SeqNum) {
-                IntConverter.convert(field.getValue());
-            } else if (fieldType == FieldType.Length) {
-                IntConverter.convert(field.getValue());
-            } else if (fieldType == FieldType.Country) {
-                // String
-            }
-        } catch (final FieldConvertError e) {
-            throw new IncorrectDataFormat(field.getTag(), field.getValue());
-        }
-    }
-
-    private void checkValue(StringField field) throws IncorrectTagValue {
-        final int tag = field.getField();
-        if (!hasFieldValue(tag)) {
-            return;
-        }
-
+    private void checkValidFormat(StringField field, FieldValidation validation)
+            throws IncorrectDataFormat {
         final String value = field.getValue();
-        if (!isFieldValue(tag, value)) {
-            throw new IncorrectTagValue(tag);
+        final boolean valid;
+        switch (validation.format) {
+        case FieldValidation.FORMAT_CHAR:
+            valid = FormatValidator.isChar(value);
+            break;
+        case FieldValidation.FORMAT_INT:
+            valid = FormatValidator.isInt(value);
+            break;
+        case FieldValidation.FORMAT_DECIMAL:
+            valid = FormatValidator.isDecimal(value);
+            break;
+        case FieldValidation.FORMAT_BOOLEAN:
+            valid = FormatValidator.isBoolean(value);
+            break;
+        case FieldValidation.FORMAT_UTC_DATE:
+            valid = FormatValidator.isUtcDateOnly(value);
+            break;
+        case FieldValidation.FORMAT_UTC_TIME_ONLY:
+            valid = FormatValidator.isUtcTimeOnly(value);
+            break;
+        case FieldValidation.FORMAT_UTC_TIMESTAMP:
+            valid = FormatValidator.isUtcTimestamp(value);
+            break;
+        case FieldValidation.FORMAT_LOCAL_MKT_DATE:
+            valid = FormatValidator.isLocalMktDate(value);
+            break;
+        case FieldValidation.FORMAT_MONTH_YEAR:
+            valid = FormatValidator.isMonthYear(value);
+            break;
+        default:
+            // String
+            valid = true;
+            break;
+        }
+        if (!valid) {
+            throw new IncorrectDataFormat(field.getTag(), value);
+        }
+    }
+
+    private void checkValue(StringField field, FieldValidation validation) throws IncorrectTagValue {
+        if (validation.hasValues() && !validation.isValue(field.getValue())) {
+            throw new IncorrectTagValue(field.getField());
         }
     }
 
@@ -790,9 +820,9 @@ public class DataDictionary {
     }
 
     // / Check if group count matches number of groups in
-    private void checkGroupCount(StringField field, FieldMap fieldMap, String msgType) {
+    private void checkGroupCount(StringField field, FieldMap fieldMap, ValidationPlan plan) {
         final int fieldNum = field.getField();
-        if (isGroup(msgType, fieldNum)) {
+        if (plan.getGroup(fieldNum) != null) {
             if (fieldMap.getGroupCount(fieldNum) != Integer.parseInt(field.getValue())) {
                 throw new FieldException(
                         SessionRejectReason.INCORRECT_NUMINGROUP_COUNT_FOR_REPEATING_GROUP,
@@ -813,8 +843,9 @@ public class DataDictionary {
     }
 
     private void checkHasRequired(String msgType, FieldMap fields, boolean bodyOnly) {
-        final Set<Integer> requiredFieldsForMessage = requiredFields.get(msgType);
-        if (requiredFieldsForMessage == null || requiredFieldsForMessage.isEmpty()) {
+        final ValidationPlan plan = getValidationPlan(msgType);
+        final int[] requiredFieldsForMessage = plan.requiredFields;
+        if (requiredFieldsForMessage.length == 0) {
             return;
         }
 
@@ -827,7 +858,7 @@ public class DataDictionary {
         final Map<Integer, List<Group>> groups = fields.getGroups();
         if (!groups.isEmpty()) {
             for (Map.Entry<Integer, List<Group>> entry : groups.entrySet()) {
-                final GroupInfo p = getGroup(msgType, entry.getKey());
+                final GroupInfo p = plan.getGroup(entry.getKey());
                 if (p != null) {
                     for (Group groupInstance : entry.getValue()) {
                         p.getDataDictionary().checkHasRequired(groupInstance, groupInstance,
@@ -1210,6 +1241,282 @@ public class DataDictionary {
         return defaultValue;
     }
 
+    /**
+     * The definitions of a message type (or of the header or trailer) that are
+     * needed to validate a message, compiled into structures that can be
+     * queried without boxing tags or creating lookup keys.
+     */
+    private static final class ValidationPlan {
+        static final ValidationPlan EMPTY = new ValidationPlan();
+
+        private final TagSet messageFields;
+        private final int[] requiredFields;
+        private final TagMap<GroupInfo> groups;
+
+        private ValidationPlan() {
+            messageFields = TagSet.EMPTY;
+            requiredFields = new int[0];
+            groups = new TagMap<GroupInfo>(Collections.<Integer, GroupInfo>emptyMap());
+        }
+
+        ValidationPlan(DataDictionary dd, String msgType) {
+            final Set<Integer> fieldsForMessage = dd.messageFields.get(msgType);
+            messageFields = fieldsForMessage != null ? new TagSet(fieldsForMessage) : TagSet.EMPTY;
+
+            final Set<Integer> requiredFieldsForMessage = dd.requiredFields.get(msgType);
+            if (requiredFieldsForMessage != null) {
+                requiredFields = new int[requiredFieldsForMessage.size()];
+                int i = 0;
+                for (final int field : requiredFieldsForMessage) {
+                    requiredFields[i++] = field;
+                }
+            } else {
+                requiredFields = new int[0];
+            }
+
+            final Map<Integer, GroupInfo> groupsForMessage = new HashMap<Integer, GroupInfo>();
+            for (final Map.Entry<IntStringPair, GroupInfo> entry : dd.groups.entrySet()) {
+                if (entry.getKey().stringValue.equals(msgType)) {
+                    groupsForMessage.put(entry.getKey().intValue, entry.getValue());
+                }
+            }
+            groups = new TagMap<GroupInfo>(groupsForMessage);
+        }
+
+        boolean isMsgField(int field) {
+            return messageFields.contains(field);
+        }
+
+        GroupInfo getGroup(int field) {
+            return groups.get(field);
+        }
+    }
+
+    /**
+     * The type and the enumerated values of a field, reduced to what is needed
+     * to validate its values.
+     */
+    private static final class FieldValidation {
+        static final int FORMAT_NONE = 0;
+        static final int FORMAT_CHAR = 1;
+        static final int FORMAT_INT = 2;
+        static final int FORMAT_DECIMAL = 3;
+        static final int FORMAT_BOOLEAN = 4;
+        static final int FORMAT_UTC_DATE = 5;
+        static final int FORMAT_UTC_TIME_ONLY = 6;
+        static final int FORMAT_UTC_TIMESTAMP = 7;
+        static final int FORMAT_LOCAL_MKT_DATE = 8;
+        static final int FORMAT_MONTH_YEAR = 9;
+
+        private final int format;
+        // sorted, or null if the field is not enumerated
+        private final String[] values;
+        private final boolean anyValue;
+        private final boolean multipleValues;
+
+        FieldValidation(FieldType fieldType, Set<String> fieldValues, String beginString) {
+            format = getFormat(fieldType, beginString);
+            if (fieldValues != null && !fieldValues.isEmpty()) {
+                values = fieldValues.toArray(new String[fieldValues.size()]);
+                Arrays.sort(values);
+                anyValue = fieldValues.contains(ANY_VALUE);
+            } else {
+                values = null;
+                anyValue = false;
+            }
+            multipleValues = fieldType == FieldType.MultipleValueString
+                    || fieldType == FieldType.MultipleStringValue;
+        }
+
+        private static int getFormat(FieldType fieldType, String beginString) {
+            if (fieldType == FieldType.Char) {
+                // String, for older FIX versions
+                return beginString.compareTo(FixVersions.BEGINSTRING_FIX41) > 0 ? FORMAT_CHAR : FORMAT_NONE;
+            } else if (fieldType == FieldType.Int || fieldType == FieldType.NumInGroup
+                    || fieldType == FieldType.SeqNum || fieldType == FieldType.Length) {
+                return FORMAT_INT;
+            } else if (fieldType == FieldType.Price || fieldType == FieldType.Amt
+                    || fieldType == FieldType.Qty || fieldType == FieldType.Float
+                    || fieldType == FieldType.PriceOffset || fieldType == FieldType.Percentage) {
+                return FORMAT_DECIMAL;
+            } else if (fieldType == FieldType.Boolean) {
+                return FORMAT_BOOLEAN;
+            } else if (fieldType == FieldType.UtcDate || fieldType == FieldType.UtcDateOnly) {
+                return FORMAT_UTC_DATE;
+            } else if (fieldType == FieldType.UtcTimeOnly) {
+                return FORMAT_UTC_TIME_ONLY;
+            } else if (fieldType == FieldType.UtcTimeStamp || fieldType == FieldType.Time) {
+                return FORMAT_UTC_TIMESTAMP;
+            } else if (fieldType == FieldType.LocalMktDate) {
+                return FORMAT_LOCAL_MKT_DATE;
+            } else if (fieldType == FieldType.MonthYear) {
+                return FORMAT_MONTH_YEAR;
+            }
+            return FORMAT_NONE;
+        }
+
+        boolean hasValues() {
+            return values != null;
+        }
+
+        boolean isValue(String value) {
+            if (anyValue) {
+                return true;
+            }
+            if (!multipleValues || value.length() == 0) {
+                return Arrays.binarySearch(values, value) >= 0;
+            }
+
+            // MultipleValueString, space separated; trailing separators are ignored
+            int end = value.length();
+            while (end > 0 && value.charAt(end - 1) == ' ') {
+                end--;
+            }
+            int start = 0;
+            while (start < end) {
+                int tokenEnd = value.indexOf(' ', start);
+                if (tokenEnd == -1 || tokenEnd > end) {
+                    tokenEnd = end;
+                }
+                if (!containsValue(value, start, tokenEnd)) {
+                    return false;
+                }
+                start = tokenEnd + 1;
+            }
+            return true;
+        }
+
+        // binary search for a region of a string, in String.compareTo order
+        private boolean containsValue(String value, int start, int end) {
+            int low = 0;
+            int high = values.length - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                final int cmp = compare(values[mid], value, start, end);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static int compare(String s, String value, int start, int end) {
+            final int length = end - start;
+            final int n = Math.min(s.length(), length);
+            for (int i = 0; i < n; i++) {
+                final int cmp = s.charAt(i) - value.charAt(start + i);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return s.length() - length;
+        }
+    }
+
+    /**
+     * An immutable set of tags. Tags up to {@link #MAX_BIT_SET_TAG} are kept in a
+     * bit set, other tags in a sorted array.
+     */
+    private static final class TagSet {
+        private static final int MAX_BIT_SET_TAG = 65535;
+        static final TagSet EMPTY = new TagSet(Collections.<Integer>emptySet());
+
+        private final long[] bits;
+        private final int[] otherTags;
+
+        TagSet(Collection<Integer> tags) {
+            int maxTag = -1;
+            int otherCount = 0;
+            for (final int tag : tags) {
+                if (tag >= 0 && tag <= MAX_BIT_SET_TAG) {
+                    maxTag = Math.max(maxTag, tag);
+                } else {
+                    otherCount++;
+                }
+            }
+            bits = new long[(maxTag >> 6) + 1];
+            otherTags = new int[otherCount];
+            int i = 0;
+            for (final int tag : tags) {
+                if (tag >= 0 && tag <= MAX_BIT_SET_TAG) {
+                    bits[tag >> 6] |= 1L << tag;
+                } else {
+                    otherTags[i++] = tag;
+                }
+            }
+            Arrays.sort(otherTags);
+        }
+
+        boolean contains(int tag) {
+            if (tag >= 0 && tag <= MAX_BIT_SET_TAG) {
+                final int word = tag >> 6;
+                return word < bits.length && (bits[word] & 1L << tag) != 0;
+            }
+            return otherTags.length > 0 && Arrays.binarySearch(otherTags, tag) >= 0;
+        }
+    }
+
+    /**
+     * An immutable map from tags to values. Small tags are used as array index,
+     * other tags are searched in a sorted array; the index is limited to a
+     * multiple of the map size so that sparse maps stay small.
+     */
+    private static final class TagMap<V> {
+        private static final int MAX_INDEXED_TAG = 65535;
+
+        private final int maxIndexedTag;
+        private final Object[] indexedValues;
+        private final int[] otherTags;
+        private final Object[] otherValues;
+
+        TagMap(Map<Integer, V> map) {
+            maxIndexedTag = Math.min(MAX_INDEXED_TAG, Math.max(63, map.size() * 16));
+            int maxTag = -1;
+            final Map<Integer, V> others = new HashMap<Integer, V>();
+            for (final Map.Entry<Integer, V> entry : map.entrySet()) {
+                final int tag = entry.getKey();
+                if (tag >= 0 && tag <= maxIndexedTag) {
+                    maxTag = Math.max(maxTag, tag);
+                } else {
+                    others.put(tag, entry.getValue());
+                }
+            }
+            indexedValues = new Object[maxTag + 1];
+            for (final Map.Entry<Integer, V> entry : map.entrySet()) {
+                final int tag = entry.getKey();
+                if (tag >= 0 && tag <= maxIndexedTag) {
+                    indexedValues[tag] = entry.getValue();
+                }
+            }
+            otherTags = new int[others.size()];
+            otherValues = new Object[others.size()];
+            int i = 0;
+            for (final int tag : others.keySet()) {
+                otherTags[i++] = tag;
+            }
+            Arrays.sort(otherTags);
+            for (i = 0; i < otherTags.length; i++) {
+                otherValues[i] = others.get(otherTags[i]);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        V get(int tag) {
+            if (tag >= 0 && tag <= maxIndexedTag) {
+                return tag < indexedValues.length ? (V) indexedValues[tag] : null;
+            }
+            if (otherTags.length == 0) {
+                return null;
+            }
+            final int i = Arrays.binarySearch(otherTags, tag);
+            return i >= 0 ? (V) otherValues[i] : null;
+        }
+    }
+
     /**
      * Data dictionary-related exception.
      */
@@ -197,6 +197,26 @@ public class DefaultSessionFactory implements SessionFactory {
             final int maxScheduledWriteRequests = getSetting(settings, sessionID, Session.SETTING_MAX_SCHEDULED_WRITE_REQUESTS, 0);
             session.setMaxScheduledWriteRequests(maxScheduledWriteRequests);
 
+            final boolean parseOnDispatch = getSetting(settings, sessionID, Session.SETTING_PARSE_ON_DISPATCH, false);
+            session.setParseOnDispatch(parseOnDispatch);
+
+            final int messagePoolSize = getSetting(settings, sessionID, Session.SETTING_MESSAGE_POOL_SIZE, 0);
+            if (messagePoolSize > 0) {
+                session.setMessagePool(new MessagePool(messagePoolSize));
+            }
+
+            if (settings.isSetting(sessionID, Session.SETTING_TIMESTAMP_PRECISION)) {
+                final String timestampPrecision = settings.getString(sessionID,
+                        Session.SETTING_TIMESTAMP_PRECISION);
+                try {
+                    session.setTimestampPrecision(UtcTimestampPrecision.valueOf(timestampPrecision
+                            .toUpperCase()));
+                } catch (final IllegalArgumentException e) {
+                    throw new ConfigError("Invalid " + Session.SETTING_TIMESTAMP_PRECISION + ": "
+                            + timestampPrecision);
+                }
+            }
+
             //
             // Session registration and creation callback is done here instead of in
             // session constructor to eliminate the possibility of other threads
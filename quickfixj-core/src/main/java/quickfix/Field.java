@@ -141,6 +141,16 @@ public /*abstract*/ class Field<T> implements Serializable {
         isCalculated = true;
     }
 
+    /**
+     * Reinitializes a recycled field without formatting it, see {@link MessagePool}.
+     */
+    /*package*/ void reinitialize(int tag, T object) {
+        this.tag = tag;
+        this.object = object;
+        isCalculated = false;
+        data = null;
+    }
+
     public void setTag(int tag) {
         this.tag = tag;
         isCalculated = false;
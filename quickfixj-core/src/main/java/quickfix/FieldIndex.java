@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix;
+
+/**
+ * An index of the fields of a raw message string: the tag and the position of
+ * the value of each field, in message order. It is built in a single pass over
+ * the string without creating any objects once its arrays have grown to the
+ * field count of the largest message, so an instance is meant to be reused for
+ * consecutive messages.
+ * <p>
+ * Like {@link RawMessageHeader}, a field without a terminating SOH is ignored.
+ * Data fields are not recognized, so a data value containing SOH is indexed
+ * as several fields.
+ *
+ * @see MessageView
+ */
+public final class FieldIndex {
+    private static final char FIELD_SEPARATOR = '\001';
+
+    private String messageData;
+    private int[] tags = new int[64];
+    private int[] valueStarts = new int[64];
+    private int[] valueEnds = new int[64];
+    private int size;
+
+    /**
+     * Indexes the fields of a message string, replacing the fields of the
+     * previously indexed message.
+     *
+     * @param messageData the raw message
+     * @return this index
+     */
+    public FieldIndex index(String messageData) {
+        this.messageData = messageData;
+        size = 0;
+        final int length = messageData.length();
+        int position = 0;
+        while (position < length) {
+            int tag = 0;
+            int index = position;
+            char c = 0;
+            while (index < length && (c = messageData.charAt(index)) >= '0' && c <= '9') {
+                tag = tag * 10 + (c - '0');
+                index++;
+            }
+            final int valueEnd = messageData.indexOf(FIELD_SEPARATOR, index);
+            if (valueEnd == -1) {
+                break;
+            }
+            if (c == '=' && index > position) {
+                add(tag, index + 1, valueEnd);
+            }
+            position = valueEnd + 1;
+        }
+        return this;
+    }
+
+    private void add(int tag, int valueStart, int valueEnd) {
+        if (size == tags.length) {
+            final int capacity = size * 2;
+            tags = copyOf(tags, capacity);
+            valueStarts = copyOf(valueStarts, capacity);
+            valueEnds = copyOf(valueEnds, capacity);
+        }
+        tags[size] = tag;
+        valueStarts[size] = valueStart;
+        valueEnds[size] = valueEnd;
+        size++;
+    }
+
+    private static int[] copyOf(int[] array, int length) {
+        final int[] copy = new int[length];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+
+    /**
+     * @return the indexed message string, or null if no message was indexed
+     */
+    public String getMessageData() {
+        return messageData;
+    }
+
+    /**
+     * @return the number of fields of the message
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param position the position of the field in the message, starting at 0
+     * @return the tag of the field
+     */
+    public int getTag(int position) {
+        return tags[position];
+    }
+
+    /**
+     * @param position the position of the field in the message, starting at 0
+     * @return the index in the message string of the first character of the value
+     */
+    public int getValueStart(int position) {
+        return valueStarts[position];
+    }
+
+    /**
+     * @param position the position of the field in the message, starting at 0
+     * @return the index in the message string after the last character of the value
+     */
+    public int getValueEnd(int position) {
+        return valueEnds[position];
+    }
+
+    /**
+     * Finds the first occurrence of a field within a range of positions.
+     *
+     * @param tag the tag
+     * @param from the first position to search
+     * @param to the position after the last position to search
+     * @return the position of the field, or -1 if it is not found
+     */
+    public int find(int tag, int from, int to) {
+        for (int position = from; position < to; position++) {
+            if (tags[position] == tag) {
+                return position;
+            }
+        }
+        return -1;
+    }
+}
@@ -22,7 +22,6 @@ package quickfix;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
@@ -39,6 +38,8 @@ import quickfix.field.converter.CharConverter;
 import quickfix.field.converter.DecimalConverter;
 import quickfix.field.converter.DoubleConverter;
 import quickfix.field.converter.IntConverter;
+import quickfix.field.converter.LongConverter;
+import quickfix.field.converter.ScaledDecimalConverter;
 import quickfix.field.converter.UtcDateOnlyConverter;
 import quickfix.field.converter.UtcTimeOnlyConverter;
 import quickfix.field.converter.UtcTimestampConverter;
@@ -52,14 +53,13 @@ public abstract class FieldMap implements Serializable {
 
     private final int[] fieldOrder;
 
-    private final TreeMap<Integer, Field<?>> fields;
+    private final FieldTable fields;
 
     private final TreeMap<Integer, List<Group>> groups = new TreeMap<Integer, List<Group>>();
 
     protected FieldMap(int[] fieldOrder) {
         this.fieldOrder = fieldOrder;
-        fields = new TreeMap<Integer, Field<?>>(
-                fieldOrder != null ? new FieldOrderComparator() : null);
+        fields = new FieldTable(fieldOrder);
     }
 
     protected FieldMap() {
@@ -94,24 +94,6 @@ public abstract class FieldMap implements Serializable {
         return indexOf(field, fieldOrder) > -1;
     }
 
-    private class FieldOrderComparator implements Comparator<Integer>, Serializable {
-        static final long serialVersionUID = 3416006398018829270L;
-
-        private int rank(int field, int[] fieldOrder) {
-            int index = indexOf(field, fieldOrder);
-            return index > -1 ? index : Integer.MAX_VALUE; // unspecified fields are last
-        }
-
-        public int compare(Integer tag1, Integer tag2) {
-            int rank1 = rank(tag1, getFieldOrder());
-            int rank2 = rank(tag2, getFieldOrder());
-
-            return rank1 != Integer.MAX_VALUE || rank2 != Integer.MAX_VALUE
-                    ? rank1 - rank2 // order by rank if it is specified for either tag
-                    : tag1 - tag2; // order by tag if both tags have unspecified ordering
-        }
-    }
-
     public void setFields(FieldMap fieldMap) {
         fields.clear();
         fields.putAll(fieldMap.fields);
@@ -155,6 +137,10 @@ public abstract class FieldMap implements Serializable {
         setField(new StringField(field, IntConverter.convert(value)));
     }
 
+    public void setLong(int field, long value) {
+        setField(new StringField(field, LongConverter.convert(value)));
+    }
+
     public void setDouble(int field, double value) {
         setDouble(field, value, 0);
     }
@@ -171,6 +157,21 @@ public abstract class FieldMap implements Serializable {
         setField(new StringField(field, DecimalConverter.convert(value, padding)));
     }
 
+    /**
+     * Sets a decimal field from a fixed-point value.
+     *
+     * @param field the tag
+     * @param scaledValue the value multiplied by 10 to the power of scale
+     * @param scale the number of decimal places of the scaled value, 0 to 18
+     */
+    public void setScaledDecimal(int field, long scaledValue, int scale) {
+        setField(new StringField(field, DecimalConverter.convertScaled(scaledValue, scale)));
+    }
+
+    public void setScaledDecimal(int field, ScaledDecimal value) {
+        setField(new StringField(field, ScaledDecimalConverter.convert(value)));
+    }
+
     public void setUtcTimeStamp(int field, Date value) {
         setUtcTimeStamp(field, value, false);
     }
@@ -179,6 +180,28 @@ public abstract class FieldMap implements Serializable {
         setField(new StringField(field, UtcTimestampConverter.convert(value, includeMilliseconds)));
     }
 
+    /**
+     * Sets a timestamp field from milliseconds since 1970-01-01 UTC.
+     *
+     * @param field the tag
+     * @param millis the timestamp in milliseconds
+     * @param includeMilliseconds controls whether milliseconds are included in the value
+     */
+    public void setUtcTimeStamp(int field, long millis, boolean includeMilliseconds) {
+        setField(new StringField(field, UtcTimestampConverter.convert(millis, includeMilliseconds)));
+    }
+
+    /**
+     * Sets a timestamp field from nanoseconds since 1970-01-01 UTC.
+     *
+     * @param field the tag
+     * @param nanos the timestamp in nanoseconds
+     * @param precision the precision of the fractional seconds in the value
+     */
+    public void setUtcTimeStampNanos(int field, long nanos, UtcTimestampPrecision precision) {
+        setField(new StringField(field, UtcTimestampConverter.convertNanos(nanos, precision)));
+    }
+
     public void setUtcTimeOnly(int field, Date value) {
         setUtcTimeOnly(field, value, false);
     }
@@ -235,6 +258,14 @@ public abstract class FieldMap implements Serializable {
         }
     }
 
+    public long getLong(int field) throws FieldNotFound {
+        try {
+            return LongConverter.convert(getString(field));
+        } catch (final FieldConvertError e) {
+            throw newIncorrectDataException(e, field);
+        }
+    }
+
     public double getDouble(int field) throws FieldNotFound {
         try {
             return DoubleConverter.convert(getString(field));
@@ -251,6 +282,75 @@ public abstract class FieldMap implements Serializable {
         }
     }
 
+    /**
+     * Gets a decimal field as a fixed-point value, parsed directly from the
+     * field value without creating a BigDecimal.
+     *
+     * @param field the tag
+     * @param scale the number of decimal places of the result, 0 to 18
+     * @return the value multiplied by 10 to the power of scale
+     * @throws FieldNotFound if the field is not set
+     * @throws FieldException if the value is not a decimal, has more significant
+     *             decimal places than the scale or does not fit into a long
+     */
+    public long getScaledDecimal(int field, int scale) throws FieldNotFound {
+        try {
+            return DecimalConverter.convertScaled(getString(field), scale);
+        } catch (final FieldConvertError e) {
+            throw newIncorrectDataException(e, field);
+        }
+    }
+
+    /**
+     * Gets a decimal field as a fixed-point value, parsed directly from the
+     * field value without creating a BigDecimal.
+     *
+     * @param field the tag
+     * @return the value with the number of decimal places of the field value
+     * @throws FieldNotFound if the field is not set
+     * @throws FieldException if the value is not a decimal, has more than 18
+     *             significant decimal places or does not fit into a long
+     */
+    public ScaledDecimal getScaledDecimal(int field) throws FieldNotFound {
+        try {
+            return ScaledDecimalConverter.convert(getString(field));
+        } catch (final FieldConvertError e) {
+            throw newIncorrectDataException(e, field);
+        }
+    }
+
+    /**
+     * Gets a timestamp field as milliseconds since 1970-01-01 UTC, parsed
+     * directly from the field value without creating a Date.
+     *
+     * @param field the tag
+     * @return the timestamp in milliseconds
+     * @throws FieldNotFound if the field is not set
+     */
+    public long getUtcTimeStampMillis(int field) throws FieldNotFound {
+        try {
+            return UtcTimestampConverter.convertToMillis(getString(field));
+        } catch (final FieldConvertError e) {
+            throw newIncorrectDataException(e, field);
+        }
+    }
+
+    /**
+     * Gets a timestamp field as nanoseconds since 1970-01-01 UTC, parsed
+     * directly from the field value.
+     *
+     * @param field the tag
+     * @return the timestamp in nanoseconds
+     * @throws FieldNotFound if the field is not set
+     */
+    public long getUtcTimeStampNanos(int field) throws FieldNotFound {
+        try {
+            return UtcTimestampConverter.convertToNanos(getString(field));
+        } catch (final FieldConvertError e) {
+            throw newIncorrectDataException(e, field);
+        }
+    }
+
     public Date getUtcTimeStamp(int field) throws FieldNotFound {
         try {
             return UtcTimestampConverter.convert(getString(field));
@@ -306,6 +406,10 @@ public abstract class FieldMap implements Serializable {
         setDecimal(field.getField(), field.getValue());
     }
 
+    public void setField(ScaledDecimalField field) {
+        setScaledDecimal(field.getField(), field.getValue());
+    }
+
     public void setField(UtcTimeStampField field) {
         setUtcTimeStamp(field.getField(), field.getValue(), field.showMilliseconds());
     }
@@ -363,6 +467,10 @@ public abstract class FieldMap implements Serializable {
         return updateValue(field, getDecimal(field.getField()));
     }
 
+    public ScaledDecimalField getField(ScaledDecimalField field) throws FieldNotFound {
+        return updateValue(field, getScaledDecimal(field.getField()));
+    }
+
     public UtcTimeStampField getField(UtcTimeStampField field) throws FieldNotFound {
         return updateValue(field, getUtcTimeStamp(field.getField()));
     }
@@ -393,7 +501,7 @@ public abstract class FieldMap implements Serializable {
     }
 
     public Iterator<Field<?>> iterator() {
-        return fields.values().iterator();
+        return fields.iterator();
     }
 
     protected void initializeFrom(FieldMap source) {
@@ -429,7 +537,8 @@ public abstract class FieldMap implements Serializable {
             }
         }
 
-        for (final Field<?> field : fields.values()) {
+        for (final Iterator<Field<?>> it = fields.iterator(); it.hasNext();) {
+            final Field<?> field = it.next();
             final int tag = field.getField();
             if (!isOrderedField(tag, preFields) && !isOrderedField(tag, postFields)
                     && !isGroupField(tag)) {
@@ -467,8 +576,9 @@ public abstract class FieldMap implements Serializable {
 
     int calculateLength() {
         int result = 0;
-        for (final Field<?> field : fields.values()) {
-            int tag = field.getField();
+        for (final Iterator<Field<?>> it = fields.iterator(); it.hasNext();) {
+            final Field<?> field = it.next();
+            final int tag = field.getField();
             if (tag != BeginString.FIELD && tag != BodyLength.FIELD
                     && tag != CheckSum.FIELD && !isGroupField(tag)) {
                 result += field.getLength();
@@ -491,7 +601,8 @@ public abstract class FieldMap implements Serializable {
 
     int calculateChecksum() {
         int result = 0;
-        for (final Field<?> field : fields.values()) {
+        for (final Iterator<Field<?>> it = fields.iterator(); it.hasNext();) {
+            final Field<?> field = it.next();
             if (field.getField() != CheckSum.FIELD && !isGroupField(field.getField())) {
                 result += field.getChecksum();
             }
@@ -530,6 +641,35 @@ public abstract class FieldMap implements Serializable {
         return groups;
     }
 
+    /**
+     * Clears this map, collecting its parsed fields and its groups for reuse.
+     *
+     * @param spareFields receives the fields created by the message parser
+     * @param spareGroups receives the groups, keyed by their field order
+     */
+    void recycle(List<LazyStringField> spareFields, Map<int[], List<Group>> spareGroups) {
+        for (final Iterator<Field<?>> it = fields.iterator(); it.hasNext();) {
+            final Field<?> field = it.next();
+            if (field instanceof LazyStringField) {
+                final LazyStringField lazyField = (LazyStringField) field;
+                lazyField.release();
+                spareFields.add(lazyField);
+            }
+        }
+        for (final List<Group> groupList : groups.values()) {
+            for (final Group group : groupList) {
+                group.recycle(spareFields, spareGroups);
+                List<Group> spares = spareGroups.get(group.getFieldOrder());
+                if (spares == null) {
+                    spares = new ArrayList<Group>();
+                    spareGroups.put(group.getFieldOrder(), spares);
+                }
+                spares.add(group);
+            }
+        }
+        clear();
+    }
+
     public void addGroup(Group group) {
         addGroupRef(new Group(group));
     }
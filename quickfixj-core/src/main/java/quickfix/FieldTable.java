@@ -0,0 +1,274 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Tag-indexed field storage used by {@link FieldMap}.
+ * <p>
+ * Fields are kept in primitive parallel arrays. A small open-addressing hash
+ * table maps a tag to its slot so lookups do not box the tag, and a separate
+ * array of slot numbers keeps the fields sorted by their rank in the field
+ * order (unordered fields follow, sorted by tag). Fields that arrive in the
+ * expected order, e.g. while parsing, are simply appended.
+ */
+final class FieldTable implements Serializable {
+
+    static final long serialVersionUID = 2791464307215393387L;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int UNORDERED = Integer.MAX_VALUE;
+
+    private final int[] fieldOrder;
+
+    // slot arrays, indexed by slot number
+    private int[] tags;
+    private int[] ranks;
+    private Field<?>[] values;
+
+    // slot numbers in iteration order
+    private int[] order;
+
+    // open-addressing hash of tag -> slot number + 1 (0 means empty)
+    private int[] index;
+
+    private int size;
+
+    private transient int modCount;
+
+    FieldTable(int[] fieldOrder) {
+        this.fieldOrder = fieldOrder;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        tags = new int[capacity];
+        ranks = new int[capacity];
+        values = new Field<?>[capacity];
+        order = new int[capacity];
+        index = new int[capacity * 2];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean containsKey(int tag) {
+        return findSlot(tag) != -1;
+    }
+
+    Field<?> get(int tag) {
+        final int slot = findSlot(tag);
+        return slot != -1 ? values[slot] : null;
+    }
+
+    Field<?> put(int tag, Field<?> field) {
+        final int existing = findSlot(tag);
+        if (existing != -1) {
+            final Field<?> previous = values[existing];
+            values[existing] = field;
+            return previous;
+        }
+        if (size == tags.length) {
+            grow();
+        }
+        final int slot = size;
+        final int rank = rank(tag);
+        tags[slot] = tag;
+        ranks[slot] = rank;
+        values[slot] = field;
+        insertIntoOrder(slot, rank, tag);
+        insertIntoIndex(tag, slot);
+        size++;
+        modCount++;
+        return null;
+    }
+
+    void putAll(FieldTable source) {
+        for (int i = 0; i < source.size; i++) {
+            final int slot = source.order[i];
+            put(source.tags[slot], source.values[slot]);
+        }
+    }
+
+    Field<?> remove(int tag) {
+        final int slot = findSlot(tag);
+        if (slot == -1) {
+            return null;
+        }
+        final Field<?> removed = values[slot];
+        removeSlot(slot);
+        return removed;
+    }
+
+    void clear() {
+        Arrays.fill(values, 0, size, null);
+        Arrays.fill(index, 0);
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * @return the fields in field order
+     */
+    Iterator<Field<?>> iterator() {
+        return new FieldIterator();
+    }
+
+    private int rank(int tag) {
+        final int rank = FieldMap.indexOf(tag, fieldOrder);
+        return rank > -1 ? rank : UNORDERED;
+    }
+
+    private boolean precedes(int rank1, int tag1, int rank2, int tag2) {
+        return rank1 != rank2 ? rank1 < rank2 : tag1 < tag2;
+    }
+
+    private void insertIntoOrder(int slot, int rank, int tag) {
+        int position = size;
+        // fast path: fields usually arrive in field order
+        while (position > 0) {
+            final int previous = order[position - 1];
+            if (precedes(ranks[previous], tags[previous], rank, tag)) {
+                break;
+            }
+            position--;
+        }
+        if (position < size) {
+            System.arraycopy(order, position, order, position + 1, size - position);
+        }
+        order[position] = slot;
+    }
+
+    private void removeSlot(int slot) {
+        final int position = positionOf(slot);
+        size--;
+        System.arraycopy(order, position + 1, order, position, size - position);
+        if (slot != size) {
+            // move the last slot into the freed one to keep the slot arrays dense
+            tags[slot] = tags[size];
+            ranks[slot] = ranks[size];
+            values[slot] = values[size];
+            order[positionOf(size)] = slot;
+        }
+        values[size] = null;
+        modCount++;
+        rebuildIndex();
+    }
+
+    private int positionOf(int slot) {
+        for (int i = 0; i < size; i++) {
+            if (order[i] == slot) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Slot " + slot + " not found");
+    }
+
+    private void grow() {
+        final int capacity = tags.length * 2;
+        tags = Arrays.copyOf(tags, capacity);
+        ranks = Arrays.copyOf(ranks, capacity);
+        values = Arrays.copyOf(values, capacity);
+        order = Arrays.copyOf(order, capacity);
+        index = new int[capacity * 2];
+        rebuildIndex();
+    }
+
+    private void rebuildIndex() {
+        Arrays.fill(index, 0);
+        for (int slot = 0; slot < size; slot++) {
+            insertIntoIndex(tags[slot], slot);
+        }
+    }
+
+    private void insertIntoIndex(int tag, int slot) {
+        final int mask = index.length - 1;
+        int i = hash(tag) & mask;
+        while (index[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        index[i] = slot + 1;
+    }
+
+    private int findSlot(int tag) {
+        final int mask = index.length - 1;
+        int i = hash(tag) & mask;
+        int entry;
+        while ((entry = index[i]) != 0) {
+            if (tags[entry - 1] == tag) {
+                return entry - 1;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int hash(int tag) {
+        final int h = tag * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private class FieldIterator implements Iterator<Field<?>> {
+        private int position;
+        private int lastReturned = -1;
+        private int expectedModCount = modCount;
+
+        public boolean hasNext() {
+            return position < size;
+        }
+
+        public Field<?> next() {
+            checkForComodification();
+            if (position >= size) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = position;
+            return values[order[position++]];
+        }
+
+        public void remove() {
+            if (lastReturned == -1) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            removeSlot(order[lastReturned]);
+            position = lastReturned;
+            lastReturned = -1;
+            expectedModCount = modCount;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
@@ -19,12 +19,14 @@
 
 package quickfix;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.util.Date;
 
 import org.quickfixj.CharsetSupport;
 
@@ -38,6 +40,7 @@ import quickfix.field.converter.UtcTimestampConverter;
  */
 public class FileLog extends AbstractLog {
     private static final byte[] TIME_STAMP_DELIMITER;
+    private static final int BUFFER_SIZE = 64 * 1024;
 
     static {
         try {
@@ -57,7 +60,23 @@ public class FileLog extends AbstractLog {
     private final boolean includeMillis;
     private final boolean includeTimestampForMessages;
 
+    // set in asynchronous mode, entries are then buffered and written by the writer thread
+    private final AsyncFileLogWriter asyncWriter;
+    private OutputStream bufferedMessages;
+    private OutputStream bufferedEvents;
+    private boolean asyncWriterReleased;
+
     FileLog(String path, SessionID sessionID, boolean includeMillis, boolean includeTimestampForMessages, boolean logHeartbeats) throws FileNotFoundException {
+        this(path, sessionID, includeMillis, includeTimestampForMessages, logHeartbeats, null);
+    }
+
+    /**
+     * @param asyncWriter the writer the entries are buffered for, registered for
+     *            this log, or null to write the entries in the logging thread
+     */
+    FileLog(String path, SessionID sessionID, boolean includeMillis, boolean includeTimestampForMessages,
+            boolean logHeartbeats, AsyncFileLogWriter asyncWriter) throws FileNotFoundException {
+        this.asyncWriter = asyncWriter;
         String sessionName = FileUtil.sessionIdFileName(sessionID);
 
         setLogHeartbeats(logHeartbeats);
@@ -80,6 +99,10 @@ public class FileLog extends AbstractLog {
     private void openLogStreams(boolean append) throws FileNotFoundException {
         messages = new FileOutputStream(messagesFileName, append);
         events = new FileOutputStream(eventFileName, append);
+        if (asyncWriter != null) {
+            bufferedMessages = new BufferedOutputStream(messages, BUFFER_SIZE);
+            bufferedEvents = new BufferedOutputStream(events, BUFFER_SIZE);
+        }
     }
 
     protected void logIncoming(String message) {
@@ -91,6 +114,15 @@ public class FileLog extends AbstractLog {
     }
 
     private void writeMessage(FileOutputStream stream, String message, boolean forceTimestamp) {
+        if (asyncWriter != null) {
+            // the time stamp is formatted by the writer thread
+            final long timestamp = forceTimestamp || includeTimestampForMessages
+                    ? SystemTime.currentTimeMillis()
+                    : -1;
+            if (asyncWriter.append(this, stream == events, message, timestamp)) {
+                return;
+            }
+        }
         try {
             if (forceTimestamp || includeTimestampForMessages) {
                 writeTimeStamp(stream);
@@ -118,11 +150,50 @@ public class FileLog extends AbstractLog {
     }
 
     private void writeTimeStamp(OutputStream out) throws IOException {
-        String formattedTime = UtcTimestampConverter.convert(SystemTime.getDate(), includeMillis);
+        writeTimeStamp(out, SystemTime.getDate());
+    }
+
+    private void writeTimeStamp(OutputStream out, Date date) throws IOException {
+        String formattedTime = UtcTimestampConverter.convert(date, includeMillis);
         out.write(formattedTime.getBytes(CharsetSupport.getCharset()));
         out.write(TIME_STAMP_DELIMITER);
     }
 
+    /**
+     * Writes a buffered entry in asynchronous mode. Called by the writer thread.
+     */
+    synchronized void writeEntry(boolean event, String message, long timestamp) {
+        final OutputStream out = event ? bufferedEvents : bufferedMessages;
+        try {
+            if (timestamp >= 0) {
+                writeTimeStamp(out, new Date(timestamp));
+            }
+            out.write(message.getBytes(CharsetSupport.getCharset()));
+            out.write('\n');
+        } catch (IOException e) {
+            System.err.println("error writing message to log : " + message);
+            e.printStackTrace(System.err);
+        }
+    }
+
+    /**
+     * Flushes the entries written since the last flush in asynchronous mode.
+     * Called by the writer thread.
+     */
+    synchronized void flushEntries() {
+        try {
+            bufferedMessages.flush();
+            bufferedEvents.flush();
+            if (syncAfterWrite) {
+                messages.getFD().sync();
+                events.getFD().sync();
+            }
+        } catch (IOException e) {
+            System.err.println("error flushing log : " + messagesFileName);
+            e.printStackTrace(System.err);
+        }
+    }
+
     String getEventFileName() {
         return eventFileName;
     }
@@ -146,12 +217,39 @@ public class FileLog extends AbstractLog {
     }
 
     /**
-     * Closed the messages and events files.
+     * Closed the messages and events files. In asynchronous mode the buffered
+     * entries are written first and the writer is released.
      *
      * @throws IOException
      */
     @Override
     public void close() throws IOException {
+        if (asyncWriter == null) {
+            closeLogStreams();
+            return;
+        }
+        try {
+            synchronized (asyncWriter.getWriteLock()) {
+                asyncWriter.flush();
+                closeLogStreams();
+            }
+        } finally {
+            releaseAsyncWriter();
+        }
+    }
+
+    private void releaseAsyncWriter() {
+        // the writer thread is joined without holding the monitor it writes under
+        synchronized (this) {
+            if (asyncWriterReleased) {
+                return;
+            }
+            asyncWriterReleased = true;
+        }
+        asyncWriter.release();
+    }
+
+    private synchronized void closeLogStreams() throws IOException {
         messages.close();
         events.close();
     }
@@ -162,10 +260,21 @@ public class FileLog extends AbstractLog {
      */
     public void clear() {
         try {
-            close();
-            openLogStreams(false);
+            if (asyncWriter == null) {
+                reopenLogStreams();
+                return;
+            }
+            synchronized (asyncWriter.getWriteLock()) {
+                asyncWriter.flush();
+                reopenLogStreams();
+            }
         } catch (IOException e) {
             System.err.println("Could not clear log: " + getClass().getName());
         }
     }
+
+    private synchronized void reopenLogStreams() throws IOException {
+        closeLogStreams();
+        openLogStreams(false);
+    }
 }
@@ -50,8 +50,29 @@ public class FileLogFactory implements LogFactory {
      */
     public static final String SETTING_LOG_HEARTBEATS = "FileLogHeartbeats";
 
+    /**
+     * Specify whether log entries are written asynchronously by a background
+     * thread shared by all logs of this factory. Off, by default.
+     */
+    public static final String SETTING_FILE_LOG_ASYNC = "FileLogAsync";
+
+    /**
+     * Number of log entries buffered for the asynchronous writer. Read from the
+     * default section, 8192 by default.
+     */
+    public static final String SETTING_FILE_LOG_ASYNC_BUFFER_SIZE = "FileLogAsyncBufferSize";
+
+    /**
+     * What to do when the asynchronous log buffer is full: Block waits for the
+     * writer thread, Drop discards the entry, Spill writes the buffered entries in
+     * the logging thread. Read from the default section, Block by default.
+     */
+    public static final String SETTING_FILE_LOG_ASYNC_OVERFLOW_POLICY = "FileLogAsyncOverflowPolicy";
+
     private final SessionSettings settings;
 
+    private AsyncFileLogWriter asyncWriter;
+
     /**
      * Create the factory with configuration in session settings.
      *
@@ -67,6 +88,7 @@ public class FileLogFactory implements LogFactory {
      * @param sessionID session ID for the logger
      */
     public Log create(SessionID sessionID) {
+        AsyncFileLogWriter writer = null;
         try {
             boolean includeMillis = false;
             if (settings.isSetting(sessionID, SETTING_INCLUDE_MILLIS_IN_TIMESTAMP)) {
@@ -83,13 +105,50 @@ public class FileLogFactory implements LogFactory {
                 logHeartbeats = settings.getBool(sessionID, SETTING_LOG_HEARTBEATS);
             }
 
+            if (settings.isSetting(sessionID, SETTING_FILE_LOG_ASYNC)
+                    && settings.getBool(sessionID, SETTING_FILE_LOG_ASYNC)) {
+                writer = getAsyncWriter();
+            }
+
             return new FileLog(settings.getString(sessionID, FileLogFactory.SETTING_FILE_LOG_PATH),
-                    sessionID, includeMillis, includeTimestampInMessages, logHeartbeats);
+                    sessionID, includeMillis, includeTimestampInMessages, logHeartbeats, writer);
         } catch (Exception e) {
+            if (writer != null) {
+                writer.release();
+            }
             throw new RuntimeError(e);
         }
     }
 
+    /**
+     * Returns the writer shared by the asynchronous logs, registered for a new
+     * log. A new writer is started after all logs of the previous one have been
+     * closed.
+     */
+    private synchronized AsyncFileLogWriter getAsyncWriter() throws ConfigError, FieldConvertError {
+        if (asyncWriter == null || !asyncWriter.register()) {
+            int bufferSize = 8192;
+            if (settings.isSetting(SETTING_FILE_LOG_ASYNC_BUFFER_SIZE)) {
+                bufferSize = (int) settings.getLong(SETTING_FILE_LOG_ASYNC_BUFFER_SIZE);
+            }
+            if (bufferSize < 1) {
+                throw new ConfigError(SETTING_FILE_LOG_ASYNC_BUFFER_SIZE + " must be positive: " + bufferSize);
+            }
+            AsyncFileLogWriter.OverflowPolicy overflowPolicy = AsyncFileLogWriter.OverflowPolicy.BLOCK;
+            if (settings.isSetting(SETTING_FILE_LOG_ASYNC_OVERFLOW_POLICY)) {
+                try {
+                    overflowPolicy = AsyncFileLogWriter.OverflowPolicy.fromSetting(settings
+                            .getString(SETTING_FILE_LOG_ASYNC_OVERFLOW_POLICY));
+                } catch (IllegalArgumentException e) {
+                    throw new ConfigError(e.getMessage());
+                }
+            }
+            asyncWriter = new AsyncFileLogWriter(bufferSize, overflowPolicy);
+            asyncWriter.register();
+        }
+        return asyncWriter;
+    }
+
     public Log create() {
         throw new UnsupportedOperationException();
     }
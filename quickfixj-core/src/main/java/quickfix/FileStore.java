@@ -30,14 +30,15 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
-import java.util.HashSet;
-import java.util.Set;
 import java.util.TreeMap;
 
 import org.quickfixj.CharsetSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import quickfix.field.converter.UtcTimestampConverter;
 
@@ -53,17 +54,25 @@ public class FileStore implements MessageStore, Closeable {
     private static final String WRITE_OPTION = "w";
     private static final String SYNC_OPTION = "d";
     private static final String NOSYNC_OPTION = "";
+    // sequence number, offset and size of a message in the header file
+    private static final int HEADER_RECORD_SIZE = 4 + 8 + 4;
+    // offset, size and sequence number of a message in the sequence index file,
+    // the entry of a sequence number is found at (sequence - 1) * INDEX_RECORD_SIZE
+    private static final int INDEX_RECORD_SIZE = 8 + 4 + 4;
 
+    private final Logger log = LoggerFactory.getLogger(getClass());
     private final TreeMap<Long, long[]> messageIndex;
     private final MemoryStore cache = new MemoryStore();
 
     private final String msgFileName;
     private final String headerFileName;
+    private final String indexFileName;
     private final String senderSeqNumFileName;
     private final String targetSeqNumFileName;
     private final String sessionFileName;
     private final boolean syncWrites;
     private final int maxCachedMsgs;
+    private final FileStoreGroupCommitter groupCommitter;
     private final String charsetEncoding = CharsetSupport.getCharset();
     private RandomAccessFile messageFileReader;
     private RandomAccessFile messageFileWriter;
@@ -71,11 +80,24 @@ public class FileStore implements MessageStore, Closeable {
     private FileOutputStream headerFileOutputStream;
     private RandomAccessFile senderSequenceNumberFile;
     private RandomAccessFile targetSequenceNumberFile;
+    private RandomAccessFile indexFile;
+    private final byte[] indexRecord = new byte[INDEX_RECORD_SIZE];
+    private boolean open;
 
     FileStore(String path, SessionID sessionID, boolean syncWrites, int maxCachedMsgs)
             throws IOException {
+        this(path, sessionID, syncWrites, maxCachedMsgs, null);
+    }
+
+    /**
+     * @param groupCommitter if not null and syncWrites is set, the files are synced
+     *            in batches shared with other stores instead of on every write
+     */
+    FileStore(String path, SessionID sessionID, boolean syncWrites, int maxCachedMsgs,
+            FileStoreGroupCommitter groupCommitter) throws IOException {
         this.syncWrites = syncWrites;
         this.maxCachedMsgs = maxCachedMsgs;
+        this.groupCommitter = syncWrites ? groupCommitter : null;
 
         if (maxCachedMsgs > 0) {
             messageIndex = new TreeMap<Long, long[]>();
@@ -89,6 +111,7 @@ public class FileStore implements MessageStore, Closeable {
 
         msgFileName = prefix + "body";
         headerFileName = prefix + "header";
+        indexFileName = prefix + "index";
         senderSeqNumFileName = prefix + "senderseqnums";
         targetSeqNumFileName = prefix + "targetseqnums";
         sessionFileName = prefix + "session";
@@ -101,7 +124,7 @@ public class FileStore implements MessageStore, Closeable {
         initialize(false);
     }
 
-    void initialize(boolean deleteFiles) throws IOException {
+    synchronized void initialize(boolean deleteFiles) throws IOException {
         close();
 
         if (deleteFiles) {
@@ -112,13 +135,19 @@ public class FileStore implements MessageStore, Closeable {
         messageFileReader = new RandomAccessFile(msgFileName, READ_OPTION);
         senderSequenceNumberFile = new RandomAccessFile(senderSeqNumFileName, getRandomAccessFileOptions());
         targetSequenceNumberFile = new RandomAccessFile(targetSeqNumFileName, getRandomAccessFileOptions());
+        indexFile = new RandomAccessFile(indexFileName, getRandomAccessFileOptions());
 
         initializeCache();
+        open = true;
+        if (groupCommitter != null) {
+            groupCommitter.storeOpened(this);
+        }
     }
 
     private void initializeCache() throws IOException {
         cache.reset();
         initializeMessageIndex();
+        initializeSequenceIndex();
         initializeSequenceNumbers();
         initializeSessionCreateTime();
         messageFileWriter.seek(messageFileWriter.length());
@@ -165,7 +194,9 @@ public class FileStore implements MessageStore, Closeable {
     private void initializeSequenceNumbers() throws IOException {
         senderSequenceNumberFile.seek(0);
         targetSequenceNumberFile.seek(0);
-        if (senderSequenceNumberFile.length() > 0) {
+        if (groupCommitter != null) {
+            recoverSenderSequenceNumber();
+        } else if (senderSequenceNumberFile.length() > 0) {
             final String s = senderSequenceNumberFile.readUTF();
             cache.setNextSenderMsgSeqNum(Integer.parseInt(s));
         }
@@ -175,6 +206,51 @@ public class FileStore implements MessageStore, Closeable {
         }
     }
 
+    /**
+     * Reads the sender sequence number of a group committed store. It is synced
+     * lazily, but every stored message syncs the increment before it, so after a
+     * crash it is at least the last stored sequence number. It is recovered if
+     * it equals that number, the increment after the message was lost, or if it
+     * is missing or unreadable. A lower number was set deliberately and is kept.
+     */
+    private void recoverSenderSequenceNumber() throws IOException {
+        int stored = 0;
+        if (senderSequenceNumberFile.length() > 0) {
+            try {
+                stored = Integer.parseInt(senderSequenceNumberFile.readUTF());
+            } catch (final IOException e) {
+                log.warn("Unreadable sender sequence number in " + senderSeqNumFileName, e);
+            } catch (final NumberFormatException e) {
+                log.warn("Unreadable sender sequence number in " + senderSeqNumFileName, e);
+            }
+        }
+        final int lastSequence = getLastStoredSequence();
+        if (stored > 0 && stored != lastSequence) {
+            cache.setNextSenderMsgSeqNum(stored);
+        } else if (lastSequence > 0) {
+            log.warn("Recovered next sender sequence number " + (lastSequence + 1)
+                    + " from the stored messages, the sequence number file had "
+                    + (stored > 0 ? String.valueOf(stored) : "none") + ": " + senderSeqNumFileName);
+            cache.setNextSenderMsgSeqNum(lastSequence + 1);
+        }
+    }
+
+    private int getLastStoredSequence() throws IOException {
+        final File headerFile = new File(headerFileName);
+        // ignore a partially written record at the end of the file
+        final long records = headerFile.length() / HEADER_RECORD_SIZE;
+        if (records == 0) {
+            return 0;
+        }
+        final RandomAccessFile headerFileReader = new RandomAccessFile(headerFile, READ_OPTION);
+        try {
+            headerFileReader.seek((records - 1) * HEADER_RECORD_SIZE);
+            return headerFileReader.readInt();
+        } finally {
+            headerFileReader.close();
+        }
+    }
+
     private void initializeMessageIndex() throws IOException {
         // this part is unnecessary if no offsets are being stored in memory
         if (messageIndex != null) {
@@ -200,6 +276,59 @@ public class FileStore implements MessageStore, Closeable {
                 headerFileOutputStream));
     }
 
+    private void initializeSequenceIndex() throws IOException {
+        // stores written before the sequence index existed only have a header file
+        final File headerFile = new File(headerFileName);
+        if (indexFile.length() == 0 && headerFile.length() >= HEADER_RECORD_SIZE) {
+            final DataInputStream headerDataInputStream = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(headerFile)));
+            try {
+                while (headerDataInputStream.available() >= HEADER_RECORD_SIZE) {
+                    final int sequenceNumber = headerDataInputStream.readInt();
+                    final long offset = headerDataInputStream.readLong();
+                    final int size = headerDataInputStream.readInt();
+                    writeSequenceIndex(sequenceNumber, offset, size);
+                }
+            } finally {
+                headerDataInputStream.close();
+            }
+        }
+    }
+
+    private void writeSequenceIndex(int sequence, long offset, int size) throws IOException {
+        if (sequence < 1) {
+            return;
+        }
+        final ByteBuffer record = ByteBuffer.wrap(indexRecord);
+        record.putLong(offset);
+        record.putInt(size);
+        record.putInt(sequence);
+        indexFile.seek((sequence - 1) * (long) INDEX_RECORD_SIZE);
+        indexFile.write(indexRecord);
+    }
+
+    /**
+     * Looks up the offset and size of a message in the sequence index file.
+     *
+     * @return the offset and size, or null if no message is stored for the sequence number
+     */
+    private long[] readSequenceIndex(int sequence) throws IOException {
+        final long position = (sequence - 1) * (long) INDEX_RECORD_SIZE;
+        if (sequence < 1 || position + INDEX_RECORD_SIZE > indexFile.length()) {
+            return null;
+        }
+        indexFile.seek(position);
+        indexFile.readFully(indexRecord);
+        final ByteBuffer record = ByteBuffer.wrap(indexRecord);
+        final long offset = record.getLong();
+        final int size = record.getInt();
+        if (record.getInt() != sequence) {
+            // a gap in the index file
+            return null;
+        }
+        return new long[] { offset, size };
+    }
+
     private void updateMessageIndex(Long sequenceNum, long[] offsetAndSize) {
         // Remove the lowest indexed sequence number if this addition
         // would result the index growing to larger than maxCachedMsgs.
@@ -211,7 +340,24 @@ public class FileStore implements MessageStore, Closeable {
     }
 
     private String getRandomAccessFileOptions() {
-        return READ_OPTION + WRITE_OPTION + (syncWrites ? SYNC_OPTION : NOSYNC_OPTION);
+        final boolean syncEveryWrite = syncWrites && groupCommitter == null;
+        return READ_OPTION + WRITE_OPTION + (syncEveryWrite ? SYNC_OPTION : NOSYNC_OPTION);
+    }
+
+    /**
+     * Syncs the store's files to disk. Called by the group committer.
+     *
+     * @throws IOException
+     */
+    synchronized void sync() throws IOException {
+        if (!open) {
+            return;
+        }
+        messageFileWriter.getFD().sync();
+        headerFileOutputStream.getFD().sync();
+        senderSequenceNumberFile.getFD().sync();
+        targetSequenceNumberFile.getFD().sync();
+        indexFile.getFD().sync();
     }
 
     /**
@@ -219,12 +365,17 @@ public class FileStore implements MessageStore, Closeable {
      *
      * @throws IOException
      */
-    public void close() throws IOException {
+    public synchronized void close() throws IOException {
+        open = false;
+        if (groupCommitter != null) {
+            groupCommitter.storeClosed(this);
+        }
         closeOutputStream(headerDataOutputStream);
         closeFile(messageFileWriter);
         closeFile(messageFileReader);
         closeFile(senderSequenceNumberFile);
         closeFile(targetSequenceNumberFile);
+        closeFile(indexFile);
     }
 
     private void closeFile(RandomAccessFile file) throws IOException {
@@ -242,6 +393,7 @@ public class FileStore implements MessageStore, Closeable {
     public void deleteFiles() throws IOException {
         close();
         deleteFile(headerFileName);
+        deleteFile(indexFileName);
         deleteFile(msgFileName);
         deleteFile(senderSeqNumFileName);
         deleteFile(targetSeqNumFileName);
@@ -306,43 +458,19 @@ public class FileStore implements MessageStore, Closeable {
      */
     public void get(int startSequence, int endSequence, Collection<String> messages)
             throws IOException {
-        final Set<Integer> uncachedOffsetMsgIds = new HashSet<Integer>();
-        // Use a treemap to make sure the messages are sorted by sequence num
-        final TreeMap<Integer, String> messagesFound = new TreeMap<Integer, String>();
         for (int i = startSequence; i <= endSequence; i++) {
-            final String message = getMessage(i);
-            if (message != null) {
-                messagesFound.put(i, message);
-            } else {
-                uncachedOffsetMsgIds.add(i);
-            }
-        }
-
-        if (!uncachedOffsetMsgIds.isEmpty()) {
-            // parse the header file to find missing messages
-            final File headerFile = new File(headerFileName);
-            final DataInputStream headerDataInputStream = new DataInputStream(
-                    new BufferedInputStream(new FileInputStream(headerFile)));
-            try {
-                while (headerDataInputStream.available() > 0) {
-                    final int sequenceNumber = headerDataInputStream.readInt();
-                    final long offset = headerDataInputStream.readLong();
-                    final int size = headerDataInputStream.readInt();
-                    if (uncachedOffsetMsgIds.remove(sequenceNumber)) {
-                        final String message = getMessage(new long[] { offset, size },
-                                sequenceNumber);
-                        messagesFound.put(sequenceNumber, message);
-                    }
-                    if (uncachedOffsetMsgIds.isEmpty()) {
-                        break;
-                    }
+            String message = getMessage(i);
+            if (message == null) {
+                // not in the in-memory index, look it up in the sequence index file
+                final long[] offsetAndSize = readSequenceIndex(i);
+                if (offsetAndSize != null) {
+                    message = getMessage(offsetAndSize, i);
                 }
-            } finally {
-                headerDataInputStream.close();
+            }
+            if (message != null) {
+                messages.add(message);
             }
         }
-
-        messages.addAll(messagesFound.values());
     }
 
     /**
@@ -394,6 +522,13 @@ public class FileStore implements MessageStore, Closeable {
         headerDataOutputStream.writeLong(offset);
         headerDataOutputStream.writeInt(size);
         headerDataOutputStream.flush();
+        writeSequenceIndex(sequence, offset, size);
+        if (groupCommitter != null) {
+            messageFileWriter.write(message.getBytes(CharsetSupport.getCharset()));
+            // the message must be durable before the caller advances the sequence number
+            groupCommitter.commit(this, true);
+            return true;
+        }
         if (syncWrites) {
             headerFileOutputStream.getFD().sync();
         }
@@ -404,17 +539,27 @@ public class FileStore implements MessageStore, Closeable {
     private void storeSenderSequenceNumber() throws IOException {
         senderSequenceNumberFile.seek(0);
         senderSequenceNumberFile.writeUTF("" + cache.getNextSenderMsgSeqNum());
+        if (groupCommitter != null) {
+            groupCommitter.commit(this, false);
+        }
     }
 
     private void storeTargetSequenceNumber() throws IOException {
         targetSequenceNumberFile.seek(0);
         targetSequenceNumberFile.writeUTF("" + cache.getNextTargetMsgSeqNum());
+        if (groupCommitter != null) {
+            groupCommitter.commit(this, false);
+        }
     }
 
     String getHeaderFileName() {
         return headerFileName;
     }
 
+    String getIndexFileName() {
+        return indexFileName;
+    }
+
     String getMsgFileName() {
         return msgFileName;
     }
@@ -48,8 +48,32 @@ public class FileStoreFactory implements MessageStoreFactory {
      */
     public static final String SETTING_FILE_STORE_MAX_CACHED_MSGS = "FileStoreMaxCachedMsgs";
 
+    /**
+     * Boolean option that, together with FileStoreSync, syncs the files of all
+     * stores created by this factory in shared batches (group commit) instead of
+     * on every write. A message is still durable when it has been stored, so the
+     * sequence number never advances past an unsynced message.
+     */
+    public static final String SETTING_FILE_STORE_GROUP_COMMIT = "FileStoreGroupCommit";
+
+    /**
+     * Maximum time in milliseconds a group commit batch waits for more writers
+     * before it is synced. The default of 0 syncs as soon as the previous batch
+     * is done, batches then form from the writers that arrived in the meantime.
+     * Read from the default section.
+     */
+    public static final String SETTING_FILE_STORE_GROUP_COMMIT_DELAY = "FileStoreGroupCommitDelay";
+
+    /**
+     * Number of waiting writers that closes a group commit batch before
+     * FileStoreGroupCommitDelay has passed. Read from the default section.
+     */
+    public static final String SETTING_FILE_STORE_GROUP_COMMIT_MAX_BATCH = "FileStoreGroupCommitMaxBatch";
+
     protected final SessionSettings settings;
 
+    private FileStoreGroupCommitter groupCommitter;
+
     /**
      * Create the factory with configuration in session settings.
      *
@@ -77,9 +101,35 @@ public class FileStoreFactory implements MessageStoreFactory {
                     maxCachedMsgs = (int) maxCachedMsgsSetting;
                 }
             }
-            return new FileStore(settings.getString(sessionID, FileStoreFactory.SETTING_FILE_STORE_PATH), sessionID, syncWrites, maxCachedMsgs);
+            FileStoreGroupCommitter committer = null;
+            if (syncWrites && settings.isSetting(sessionID, SETTING_FILE_STORE_GROUP_COMMIT)
+                    && settings.getBool(sessionID, SETTING_FILE_STORE_GROUP_COMMIT)) {
+                committer = getGroupCommitter();
+            }
+            return new FileStore(settings.getString(sessionID, FileStoreFactory.SETTING_FILE_STORE_PATH), sessionID, syncWrites, maxCachedMsgs, committer);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
+
+    private synchronized FileStoreGroupCommitter getGroupCommitter() throws ConfigError,
+            FieldConvertError {
+        if (groupCommitter == null) {
+            long delay = 0;
+            if (settings.isSetting(SETTING_FILE_STORE_GROUP_COMMIT_DELAY)) {
+                delay = settings.getLong(SETTING_FILE_STORE_GROUP_COMMIT_DELAY);
+            }
+            int maxBatch = 64;
+            if (settings.isSetting(SETTING_FILE_STORE_GROUP_COMMIT_MAX_BATCH)) {
+                maxBatch = (int) settings.getLong(SETTING_FILE_STORE_GROUP_COMMIT_MAX_BATCH);
+            }
+            if (delay < 0 || maxBatch < 1) {
+                throw new ConfigError("Invalid group commit settings: "
+                        + SETTING_FILE_STORE_GROUP_COMMIT_DELAY + "=" + delay + ", "
+                        + SETTING_FILE_STORE_GROUP_COMMIT_MAX_BATCH + "=" + maxBatch);
+            }
+            groupCommitter = new FileStoreGroupCommitter(delay, maxBatch);
+        }
+        return groupCommitter;
+    }
 }
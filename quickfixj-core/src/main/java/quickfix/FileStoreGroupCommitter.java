@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Syncs the files of many file stores to disk in batches. A store that wants
+ * its writes to be durable registers itself and, optionally, waits until the
+ * batch it joined has been synced. The files of all stores of a batch are synced
+ * once, no matter how many messages each of them wrote in the meantime.
+ * <p>
+ * A batch is closed when the committer thread is idle and either the maximum
+ * delay has passed since the batch was opened or the maximum number of waiting
+ * writers has been reached. Writers arriving while a batch is being synced join
+ * the next batch.
+ * <p>
+ * The committer thread is started by the first commit and stopped after the
+ * last open store has been closed.
+ */
+class FileStoreGroupCommitter {
+
+    private final Object lock = new Object();
+    private final long maxDelayNanos;
+    private final int maxBatchSize;
+
+    // stores with unsynced writes, in the order they registered
+    private Set<FileStore> dirtyStores = new LinkedHashSet<FileStore>();
+    private final Set<FileStore> openStores = new HashSet<FileStore>();
+    private final Map<FileStore, IOException> syncErrors = new HashMap<FileStore, IOException>();
+    private long openBatch = 1;
+    private long syncedBatch;
+    private int waiters;
+    private Thread committerThread;
+    private boolean stopping;
+
+    /**
+     * @param maxDelayMillis how long a batch stays open for more writers, 0 to
+     *            sync as soon as the committer thread is idle
+     * @param maxBatchSize number of waiting writers that closes a batch before
+     *            the delay has passed
+     */
+    FileStoreGroupCommitter(long maxDelayMillis, int maxBatchSize) {
+        if (maxDelayMillis < 0) {
+            throw new IllegalArgumentException("Invalid group commit delay: " + maxDelayMillis);
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Invalid group commit batch size: " + maxBatchSize);
+        }
+        maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Registers a store whose files have been opened.
+     */
+    void storeOpened(FileStore store) {
+        synchronized (lock) {
+            openStores.add(store);
+            stopping = false;
+        }
+    }
+
+    /**
+     * Unregisters a store whose files have been closed, and stops the committer
+     * thread when no store is open anymore.
+     */
+    void storeClosed(FileStore store) {
+        synchronized (lock) {
+            if (openStores.remove(store) && openStores.isEmpty()) {
+                stop();
+            }
+        }
+    }
+
+    /**
+     * Lets the committer thread exit once the pending batch has been synced.
+     * Must be called while holding the lock.
+     */
+    private void stop() {
+        stopping = true;
+        lock.notifyAll();
+    }
+
+    /**
+     * Adds the store to the open batch.
+     *
+     * @param store the store with unsynced writes
+     * @param waitForSync whether to block until the store's files have been synced
+     * @throws IOException if waiting was requested and syncing the store failed
+     */
+    void commit(FileStore store, boolean waitForSync) throws IOException {
+        synchronized (lock) {
+            startCommitterThread();
+            dirtyStores.add(store);
+            if (!waitForSync) {
+                lock.notifyAll();
+                return;
+            }
+            final long batch = openBatch;
+            waiters++;
+            lock.notifyAll();
+            try {
+                while (syncedBatch < batch) {
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for group commit");
+            }
+            final IOException error = syncErrors.remove(store);
+            if (error != null) {
+                throw error;
+            }
+        }
+    }
+
+    boolean isCommitterThreadRunning() {
+        synchronized (lock) {
+            return committerThread != null;
+        }
+    }
+
+    private void startCommitterThread() {
+        if (committerThread == null) {
+            committerThread = new Thread(new Runnable() {
+                public void run() {
+                    commitBatches();
+                }
+            }, "QFJ FileStore group commit");
+            committerThread.setDaemon(true);
+            committerThread.start();
+        }
+    }
+
+    private void commitBatches() {
+        while (true) {
+            final Set<FileStore> stores;
+            final long batch;
+            synchronized (lock) {
+                try {
+                    while (dirtyStores.isEmpty()) {
+                        if (stopping) {
+                            committerThread = null;
+                            return;
+                        }
+                        lock.wait();
+                    }
+                    final long deadline = System.nanoTime() + maxDelayNanos;
+                    long remaining = maxDelayNanos;
+                    while (waiters < maxBatchSize && remaining > 0 && !stopping) {
+                        TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                        remaining = deadline - System.nanoTime();
+                    }
+                } catch (InterruptedException e) {
+                    committerThread = null;
+                    return;
+                }
+                stores = dirtyStores;
+                dirtyStores = new LinkedHashSet<FileStore>();
+                batch = openBatch++;
+                waiters = 0;
+            }
+
+            final List<FileStore> failedStores = new ArrayList<FileStore>();
+            final List<IOException> errors = new ArrayList<IOException>();
+            for (final FileStore store : stores) {
+                try {
+                    store.sync();
+                } catch (IOException e) {
+                    failedStores.add(store);
+                    errors.add(e);
+                }
+            }
+
+            synchronized (lock) {
+                for (int i = 0; i < failedStores.size(); i++) {
+                    syncErrors.put(failedStores.get(i), errors.get(i));
+                }
+                syncedBatch = batch;
+                lock.notifyAll();
+            }
+        }
+    }
+}
@@ -42,19 +42,43 @@ class JdbcLog extends AbstractLog {
     private final boolean logHeartbeats;
     private final boolean extendedSessionIdSupported;
     private final String defaultSessionIdPropertyValue;
+    private final JdbcLogBatchWriter batchWriter;
+    private final JdbcStatementCache statementCache;
 
     private Throwable recursiveException = null;
+    private boolean batchWriterReleased;
 
     private final Map<String, String> insertItemSqlCache = new HashMap<String, String>();
     private final Map<String, String> deleteItemsSqlCache = new HashMap<String, String>();
 
     public JdbcLog(SessionSettings settings, SessionID sessionID, DataSource ds)
             throws SQLException, ClassNotFoundException, ConfigError, FieldConvertError {
+        this(settings, sessionID, ds, null);
+    }
+
+    /**
+     * @param batchWriter the writer that inserts the log entries in batches, or
+     *            null to insert each entry in the logging thread; the log must
+     *            have been registered with it and releases it on close
+     */
+    JdbcLog(SessionSettings settings, SessionID sessionID, DataSource ds,
+            JdbcLogBatchWriter batchWriter) throws SQLException, ClassNotFoundException,
+            ConfigError, FieldConvertError {
         this.sessionID = sessionID;
+        this.batchWriter = batchWriter;
         dataSource = ds == null
                 ? JdbcUtil.getDataSource(settings, sessionID)
                 : ds;
 
+        if (settings.isSetting(sessionID, SETTING_JDBC_PINNED_CONNECTION)
+                && settings.getBool(sessionID, SETTING_JDBC_PINNED_CONNECTION)) {
+            statementCache = ds == null && !settings.isSetting(sessionID, SETTING_JDBC_DS_NAME)
+                    ? new JdbcStatementCache(sessionID, settings)
+                    : new JdbcStatementCache(sessionID, dataSource);
+        } else {
+            statementCache = null;
+        }
+
         logHeartbeats = !settings.isSetting(SETTING_JDBC_LOG_HEARTBEATS) || settings.getBool(SETTING_JDBC_LOG_HEARTBEATS);
         setLogHeartbeats(logHeartbeats);
 
@@ -141,6 +165,10 @@ class JdbcLog extends AbstractLog {
      * @param value
      */
     private void insert(String tableName, String value) {
+        if (batchWriter != null
+                && batchWriter.append(this, tableName, value, SystemTime.currentTimeMillis())) {
+            return;
+        }
         Connection connection = null;
         PreparedStatement insert = null;
         if (recursiveException != null) {
@@ -151,18 +179,149 @@ class JdbcLog extends AbstractLog {
         }
         recursiveException = null;
         try {
-            connection = dataSource.getConnection();
-            insert = connection.prepareStatement(getInsertItemSql(tableName));
+            connection = getConnection();
+            insert = prepareStatement(connection, getInsertItemSql(tableName));
             insert.setTimestamp(1, new Timestamp(SystemTime.getUtcCalendar().getTimeInMillis()));
             int offset = setSessionIdParameters(insert, 2);
             insert.setString(offset, value);
             insert.execute();
         } catch (SQLException e) {
+            validateConnection();
             recursiveException = e;
             LogUtil.logThrowable(sessionID, e.getMessage(), e);
         } finally {
-            JdbcUtil.close(sessionID, insert);
-            JdbcUtil.close(sessionID, connection);
+            releaseStatement(insert);
+            releaseConnection(connection);
+        }
+    }
+
+    /**
+     * Inserts the entries of this log, starting at <code>offset</code>, that
+     * were taken out of the batch writer's buffer. The entries are cleared from
+     * <code>logs</code>. Called by the batch writer thread.
+     */
+    void writeEntries(JdbcLog[] logs, String[] tableNames, String[] values, long[] timestamps,
+            int offset, int end) {
+        Connection connection = null;
+        PreparedStatement outgoing = null;
+        PreparedStatement incoming = null;
+        PreparedStatement event = null;
+        try {
+            connection = getConnection();
+            int outgoingCount = 0;
+            int incomingCount = 0;
+            int eventCount = 0;
+            final int batchSize = batchWriter.getBatchSize();
+            for (int i = offset; i < end; i++) {
+                if (logs[i] != this) {
+                    continue;
+                }
+                logs[i] = null;
+                final String tableName = tableNames[i];
+                if (tableName.equals(outgoingMessagesTableName)) {
+                    if (outgoing == null) {
+                        outgoing = prepareStatement(connection, getInsertItemSql(tableName));
+                    }
+                    addBatch(outgoing, values[i], timestamps[i]);
+                    if (++outgoingCount % batchSize == 0) {
+                        outgoing.executeBatch();
+                    }
+                } else if (tableName.equals(incomingMessagesTableName)) {
+                    if (incoming == null) {
+                        incoming = prepareStatement(connection, getInsertItemSql(tableName));
+                    }
+                    addBatch(incoming, values[i], timestamps[i]);
+                    if (++incomingCount % batchSize == 0) {
+                        incoming.executeBatch();
+                    }
+                } else {
+                    if (event == null) {
+                        event = prepareStatement(connection, getInsertItemSql(tableName));
+                    }
+                    addBatch(event, values[i], timestamps[i]);
+                    if (++eventCount % batchSize == 0) {
+                        event.executeBatch();
+                    }
+                }
+            }
+            if (outgoingCount % batchSize != 0) {
+                outgoing.executeBatch();
+            }
+            if (incomingCount % batchSize != 0) {
+                incoming.executeBatch();
+            }
+            if (eventCount % batchSize != 0) {
+                event.executeBatch();
+            }
+            recursiveException = null;
+        } catch (SQLException e) {
+            clearBatch(outgoing);
+            clearBatch(incoming);
+            clearBatch(event);
+            validateConnection();
+            // entries of this log that were not reached are dropped with the batch
+            for (int i = offset; i < end; i++) {
+                if (logs[i] == this) {
+                    logs[i] = null;
+                }
+            }
+            if (recursiveException != null) {
+                System.err.println("JdbcLog cannot log SQLException due to recursive log errors!");
+                e.printStackTrace();
+                recursiveException = null;
+            } else {
+                recursiveException = e;
+                LogUtil.logThrowable(sessionID, e.getMessage(), e);
+            }
+        } finally {
+            releaseStatement(outgoing);
+            releaseStatement(incoming);
+            releaseStatement(event);
+            releaseConnection(connection);
+        }
+    }
+
+    /**
+     * Drops the rows of a failed batch from a statement that is reused.
+     */
+    private void clearBatch(PreparedStatement insert) {
+        if (statementCache != null && insert != null) {
+            try {
+                insert.clearBatch();
+            } catch (SQLException e) {
+                // the statement is discarded with its connection
+            }
+        }
+    }
+
+    private void addBatch(PreparedStatement insert, String value, long timestamp)
+            throws SQLException {
+        insert.setTimestamp(1, new Timestamp(timestamp));
+        int offset = setSessionIdParameters(insert, 2);
+        insert.setString(offset, value);
+        insert.addBatch();
+    }
+
+    /**
+     * Writes the buffered entries of a batched log, releases the batch writer
+     * and closes the pinned connection. Entries logged afterwards are inserted
+     * directly.
+     */
+    @Override
+    public void close() {
+        if (batchWriter != null) {
+            batchWriter.flush();
+            releaseBatchWriter();
+        }
+        if (statementCache != null) {
+            statementCache.close();
+        }
+    }
+
+    private synchronized void releaseBatchWriter() {
+        if (!batchWriterReleased) {
+            batchWriterReleased = true;
+            batchWriter.release();
         }
     }
 
@@ -170,6 +329,9 @@ class JdbcLog extends AbstractLog {
      * Deletes all rows from the log tables.
      */
     public void clear() {
+        if (batchWriter != null) {
+            batchWriter.flush();
+        }
         clearTable(eventTableName);
         clearTable(incomingMessagesTableName);
         if (!incomingMessagesTableName.equals(outgoingMessagesTableName)) {
@@ -181,15 +343,16 @@ class JdbcLog extends AbstractLog {
         Connection connection = null;
         PreparedStatement statement = null;
         try {
-            connection = dataSource.getConnection();
-            statement = connection.prepareStatement(getDeleteItemsSql(tableName));
+            connection = getConnection();
+            statement = prepareStatement(connection, getDeleteItemsSql(tableName));
             setSessionIdParameters(statement, 1);
             statement.execute();
         } catch (SQLException e) {
+            validateConnection();
             LogUtil.logThrowable(sessionID, e.getMessage(), e);
         } finally {
-            JdbcUtil.close(sessionID, statement);
-            JdbcUtil.close(sessionID, connection);
+            releaseStatement(statement);
+            releaseConnection(connection);
         }
     }
 
@@ -205,6 +368,37 @@ class JdbcLog extends AbstractLog {
         return eventTableName;
     }
 
+    private Connection getConnection() throws SQLException {
+        return statementCache != null ? statementCache.getConnection() : dataSource.getConnection();
+    }
+
+    private PreparedStatement prepareStatement(Connection connection, String sql)
+            throws SQLException {
+        return statementCache != null
+                ? statementCache.prepareStatement(sql)
+                : connection.prepareStatement(sql);
+    }
+
+    private void releaseStatement(PreparedStatement statement) {
+        if (statementCache == null) {
+            JdbcUtil.close(sessionID, statement);
+        }
+    }
+
+    private void releaseConnection(Connection connection) {
+        if (statementCache != null) {
+            statementCache.release(connection);
+        } else {
+            JdbcUtil.close(sessionID, connection);
+        }
+    }
+
+    private void validateConnection() {
+        if (statementCache != null) {
+            statementCache.validate();
+        }
+    }
+
     private int setSessionIdParameters(PreparedStatement query, int offset) throws SQLException {
         return JdbcUtil.setSessionIdParameters(sessionID, query, offset,
                 extendedSessionIdSupported, defaultSessionIdPropertyValue);
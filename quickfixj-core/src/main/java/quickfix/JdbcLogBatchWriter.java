@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the entries of batched JDBC logs in a background thread. Logging
+ * threads only copy the entry into a preallocated buffer; the writer thread
+ * drains the buffer when a batch is full or the flush interval has passed
+ * since the first buffered entry, and each log inserts its entries with one
+ * JDBC batch per table.
+ * <p>
+ * The writer is shared by the logs that registered with it and its thread is
+ * stopped when the last of them is closed.
+ */
+class JdbcLogBatchWriter {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    // the buffer, guarded by lock
+    private final JdbcLog[] logs;
+    private final String[] tableNames;
+    private final String[] texts;
+    private final long[] timestamps;
+    private int head;
+    private int count;
+    private int users;
+    private boolean stopped;
+
+    // entries taken out of the buffer, guarded by writeLock
+    private final Object writeLock = new Object();
+    private final JdbcLog[] batchLogs;
+    private final String[] batchTableNames;
+    private final String[] batchTexts;
+    private final long[] batchTimestamps;
+
+    private final Thread writerThread;
+
+    /**
+     * @param capacity number of entries that can be buffered, logging blocks
+     *            when the buffer is full
+     * @param batchSize number of entries that are written as soon as they are
+     *            buffered, and the maximum number of rows per JDBC batch
+     * @param flushInterval maximum time in milliseconds an entry is buffered
+     *            when the batch is not full
+     */
+    JdbcLogBatchWriter(int capacity, int batchSize, long flushInterval) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Invalid log batch size: " + batchSize);
+        }
+        if (flushInterval < 1) {
+            throw new IllegalArgumentException("Invalid log flush interval: " + flushInterval);
+        }
+        this.batchSize = batchSize;
+        flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushInterval);
+        final int bufferSize = Math.max(capacity, batchSize);
+        logs = new JdbcLog[bufferSize];
+        tableNames = new String[bufferSize];
+        texts = new String[bufferSize];
+        timestamps = new long[bufferSize];
+        batchLogs = new JdbcLog[bufferSize];
+        batchTableNames = new String[bufferSize];
+        batchTexts = new String[bufferSize];
+        batchTimestamps = new long[bufferSize];
+
+        writerThread = new Thread(new Runnable() {
+            public void run() {
+                writeEntries();
+            }
+        }, "QFJ JdbcLog writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Registers a log that uses this writer.
+     *
+     * @return false if the writer has been stopped and cannot be used anymore
+     */
+    boolean register() {
+        lock.lock();
+        try {
+            if (stopped) {
+                return false;
+            }
+            users++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Unregisters a log. When no log is registered anymore, the buffered
+     * entries are written and the writer thread is stopped.
+     */
+    void release() {
+        lock.lock();
+        try {
+            if (--users > 0) {
+                return;
+            }
+            stopped = true;
+            notEmpty.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Buffers a log entry, waiting for the writer thread if the buffer is full.
+     *
+     * @param log the log the entry is written to
+     * @param tableName the table of the entry
+     * @param text the entry
+     * @param timestamp the time of the entry
+     * @return false if the writer has been stopped and the entry was not buffered
+     */
+    boolean append(JdbcLog log, String tableName, String text, long timestamp) {
+        lock.lock();
+        try {
+            while (count == logs.length && !stopped) {
+                notFull.awaitUninterruptibly();
+            }
+            if (stopped) {
+                return false;
+            }
+            final int slot = (head + count) % logs.length;
+            logs[slot] = log;
+            tableNames[slot] = tableName;
+            texts[slot] = text;
+            timestamps[slot] = timestamp;
+            count++;
+            if (count == 1 || count == batchSize) {
+                notEmpty.signal();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes all buffered entries to the database in the calling thread.
+     */
+    void flush() {
+        synchronized (writeLock) {
+            writeBatch();
+        }
+    }
+
+    private void writeEntries() {
+        while (true) {
+            lock.lock();
+            try {
+                while (count == 0 && !stopped) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (count == 0) {
+                    return;
+                }
+                long remainingNanos = flushIntervalNanos;
+                while (count > 0 && count < batchSize && remainingNanos > 0 && !stopped) {
+                    remainingNanos = notEmpty.awaitNanos(remainingNanos);
+                }
+            } catch (InterruptedException e) {
+                // write what has been buffered so far
+            } finally {
+                lock.unlock();
+            }
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                // the batch is lost, but the thread must keep draining the buffer
+                log.error("Failed to write JDBC log batch: " + e, e);
+            }
+        }
+    }
+
+    private void writeBatch() {
+        final int size;
+        lock.lock();
+        try {
+            size = count;
+            for (int i = 0; i < size; i++) {
+                final int slot = (head + i) % logs.length;
+                batchLogs[i] = logs[slot];
+                batchTableNames[i] = tableNames[slot];
+                batchTexts[i] = texts[slot];
+                batchTimestamps[i] = timestamps[slot];
+                logs[slot] = null;
+                texts[slot] = null;
+            }
+            head = (head + size) % logs.length;
+            count = 0;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        // each log writes and clears its own entries
+        try {
+            for (int i = 0; i < size; i++) {
+                if (batchLogs[i] != null) {
+                    batchLogs[i].writeEntries(batchLogs, batchTableNames, batchTexts,
+                            batchTimestamps, i, size);
+                }
+            }
+        } finally {
+            for (int i = 0; i < size; i++) {
+                batchLogs[i] = null;
+                batchTexts[i] = null;
+            }
+        }
+    }
+}
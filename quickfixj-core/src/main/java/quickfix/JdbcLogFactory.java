@@ -19,6 +19,8 @@
 
 package quickfix;
 
+import static quickfix.JdbcSetting.*;
+
 import javax.sql.DataSource;
 
 /**
@@ -27,6 +29,7 @@ import javax.sql.DataSource;
 public class JdbcLogFactory implements LogFactory {
     private final SessionSettings settings;
     private DataSource dataSource;
+    private JdbcLogBatchWriter batchWriter;
 
     /**
      * Create a JDBC logger.
@@ -34,13 +37,55 @@ public class JdbcLogFactory implements LogFactory {
      * @param sessionID the sessionID for the message store.
      */
     public Log create(SessionID sessionID) {
+        JdbcLogBatchWriter writer = null;
         try {
-            return new JdbcLog(settings, sessionID, dataSource);
+            if (settings.isSetting(sessionID, SETTING_JDBC_LOG_BATCH)
+                    && settings.getBool(sessionID, SETTING_JDBC_LOG_BATCH)) {
+                writer = getBatchWriter();
+            }
+            return new JdbcLog(settings, sessionID, dataSource, writer);
         } catch (Exception e) {
+            if (writer != null) {
+                writer.release();
+            }
             throw new RuntimeError(e);
         }
     }
 
+    /**
+     * Returns the batch writer shared by the batched logs, registered for a new
+     * log. A new writer is started after all logs of the previous one have been
+     * closed.
+     */
+    private synchronized JdbcLogBatchWriter getBatchWriter() throws ConfigError, FieldConvertError {
+        if (batchWriter == null || !batchWriter.register()) {
+            int batchSize = 100;
+            if (settings.isSetting(SETTING_JDBC_LOG_BATCH_SIZE)) {
+                batchSize = (int) settings.getLong(SETTING_JDBC_LOG_BATCH_SIZE);
+            }
+            if (batchSize < 1) {
+                throw new ConfigError(SETTING_JDBC_LOG_BATCH_SIZE + " must be positive: " + batchSize);
+            }
+            long interval = 100;
+            if (settings.isSetting(SETTING_JDBC_LOG_BATCH_INTERVAL)) {
+                interval = settings.getLong(SETTING_JDBC_LOG_BATCH_INTERVAL);
+            }
+            if (interval < 1) {
+                throw new ConfigError(SETTING_JDBC_LOG_BATCH_INTERVAL + " must be positive: " + interval);
+            }
+            int bufferSize = 8192;
+            if (settings.isSetting(SETTING_JDBC_LOG_BATCH_BUFFER_SIZE)) {
+                bufferSize = (int) settings.getLong(SETTING_JDBC_LOG_BATCH_BUFFER_SIZE);
+            }
+            if (bufferSize < 1) {
+                throw new ConfigError(SETTING_JDBC_LOG_BATCH_BUFFER_SIZE + " must be positive: " + bufferSize);
+            }
+            batchWriter = new JdbcLogBatchWriter(bufferSize, batchSize, interval);
+            batchWriter.register();
+        }
+        return batchWriter;
+    }
+
     /**
      * Create a factory using session settings.
      */
@@ -49,6 +49,14 @@ public class JdbcSetting {
      */
     public static final String SETTING_JDBC_PASSWORD = "JdbcPassword";
 
+    /**
+     * Flag for pinning a connection to each message store and session log and
+     * reusing its prepared statements. The connection is opened with the JDBC
+     * driver settings, or taken from the data source if one is configured. This
+     * key is used for both the message store and the session log.
+     */
+    public static final String SETTING_JDBC_PINNED_CONNECTION = "JdbcPinnedConnection";
+
     /**
      * Defines the table name for the messages table. Default is "messages".
      * If you use a different name, you must set up your database accordingly.
@@ -61,6 +69,43 @@ public class JdbcSetting {
      */
     public static final String SETTING_JDBC_STORE_SESSIONS_TABLE_NAME = "JdbcStoreSessionsTableName";
 
+    /**
+     * Flag for write-behind mode of the message store. Messages and sequence
+     * numbers are kept in memory and appended to a local journal, and a
+     * background thread writes them to the database in batches.
+     */
+    public static final String SETTING_JDBC_STORE_WRITE_BEHIND = "JdbcStoreWriteBehind";
+
+    /**
+     * Directory of the write-behind journal files. Required in write-behind mode.
+     */
+    public static final String SETTING_JDBC_STORE_JOURNAL_PATH = "JdbcStoreJournalPath";
+
+    /**
+     * Flag for syncing the write-behind journal to disk after each write.
+     */
+    public static final String SETTING_JDBC_STORE_JOURNAL_SYNC = "JdbcStoreJournalSync";
+
+    /**
+     * Maximum time in milliseconds writes of a write-behind store are pending
+     * before they are written to the database.
+     */
+    public static final String SETTING_JDBC_STORE_FLUSH_INTERVAL = "JdbcStoreFlushInterval";
+
+    /**
+     * Number of pending messages of a write-behind store that triggers a flush.
+     * This is also the maximum number of rows in one JDBC batch.
+     */
+    public static final String SETTING_JDBC_STORE_BATCH_SIZE = "JdbcStoreBatchSize";
+
+    /**
+     * Fetch size of the message query of resend requests. If set, the rows are
+     * streamed through a forward-only cursor in a read-only transaction instead
+     * of being fetched with the driver's default, which for some drivers is the
+     * complete result.
+     */
+    public static final String SETTING_JDBC_STORE_FETCH_SIZE = "JdbcStoreFetchSize";
+
     /**
      * The JNDI name used to lookup a DataSource for the JDBC plugins.
      */
@@ -96,6 +141,29 @@ public class JdbcSetting {
      */
     public static final String SETTING_LOG_EVENT_TABLE = "JdbcLogEventTable";
 
+    /**
+     * Flag for writing log entries in batches from a background thread instead
+     * of inserting each entry in the logging thread.
+     */
+    public static final String SETTING_JDBC_LOG_BATCH = "JdbcLogBatch";
+
+    /**
+     * Number of buffered log entries that triggers a batch insert. This is also
+     * the maximum number of rows in one JDBC batch.
+     */
+    public static final String SETTING_JDBC_LOG_BATCH_SIZE = "JdbcLogBatchSize";
+
+    /**
+     * Maximum time in milliseconds a log entry is buffered before it is inserted.
+     */
+    public static final String SETTING_JDBC_LOG_BATCH_INTERVAL = "JdbcLogBatchInterval";
+
+    /**
+     * Maximum number of buffered log entries. Logging blocks while the buffer
+     * is full.
+     */
+    public static final String SETTING_JDBC_LOG_BATCH_BUFFER_SIZE = "JdbcLogBatchBufferSize";
+
     /**
      * Specified the default value for session ID properties that have not been set. This
      * is primarily for Oracle which treats empty strings as SQL NULLs.
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.sql.DataSource;
+
+/**
+ * A connection that is pinned to a JDBC store or log, with the statements
+ * prepared on it. The connection is lent to one thread at a time: it is
+ * acquired with {@link #getConnection()} and must be returned with
+ * {@link #release(Connection)}. After a failed operation the connection is
+ * validated, and an invalid connection is discarded so that the next
+ * operation opens a new connection and prepares its statements again.
+ */
+class JdbcStatementCache {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final SessionID sessionID;
+    private final DataSource dataSource;
+    private final String connectionURL;
+    private final String user;
+    private final String password;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // guarded by lock
+    private Connection connection;
+    private final Map<String, PreparedStatement> statements = new HashMap<String, PreparedStatement>();
+
+    /**
+     * Pins a connection of a data source. The pool must allow the connection
+     * to be held for the lifetime of the session.
+     */
+    JdbcStatementCache(SessionID sessionID, DataSource dataSource) {
+        this.sessionID = sessionID;
+        this.dataSource = dataSource;
+        connectionURL = null;
+        user = null;
+        password = null;
+    }
+
+    /**
+     * Pins a connection that is opened with the JDBC driver settings, bypassing
+     * the connection pool.
+     */
+    JdbcStatementCache(SessionID sessionID, SessionSettings settings) throws ConfigError,
+            FieldConvertError, ClassNotFoundException {
+        this.sessionID = sessionID;
+        dataSource = null;
+        Class.forName(settings.getString(sessionID, JdbcSetting.SETTING_JDBC_DRIVER));
+        connectionURL = settings.getString(sessionID, JdbcSetting.SETTING_JDBC_CONNECTION_URL);
+        user = settings.getString(sessionID, JdbcSetting.SETTING_JDBC_USER);
+        password = settings.getString(sessionID, JdbcSetting.SETTING_JDBC_PASSWORD);
+    }
+
+    /**
+     * Acquires the pinned connection, opening it if necessary.
+     */
+    Connection getConnection() throws SQLException {
+        lock.lock();
+        try {
+            if (connection == null) {
+                connection = dataSource != null
+                        ? dataSource.getConnection()
+                        : DriverManager.getConnection(connectionURL, user, password);
+            }
+            return connection;
+        } catch (SQLException e) {
+            lock.unlock();
+            throw e;
+        } catch (RuntimeException e) {
+            lock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the statement for the SQL, prepared on the pinned connection the
+     *         first time it is requested
+     */
+    PreparedStatement prepareStatement(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * Returns the connection acquired with {@link #getConnection()}.
+     *
+     * @param acquiredConnection the acquired connection, or null if acquiring
+     *            it failed
+     */
+    void release(Connection acquiredConnection) {
+        if (acquiredConnection != null) {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Discards the connection and its statements if the connection is no
+     * longer valid. Called by the thread holding the connection after an
+     * operation failed.
+     */
+    void validate() {
+        if (connection == null) {
+            return;
+        }
+        boolean valid;
+        try {
+            valid = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            valid = false;
+        }
+        if (!valid) {
+            closeConnection();
+        }
+    }
+
+    /**
+     * Closes the statements and the connection.
+     */
+    void close() {
+        lock.lock();
+        try {
+            closeConnection();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeConnection() {
+        for (final PreparedStatement statement : statements.values()) {
+            JdbcUtil.close(sessionID, statement);
+        }
+        statements.clear();
+        JdbcUtil.close(sessionID, connection);
+        connection = null;
+    }
+}
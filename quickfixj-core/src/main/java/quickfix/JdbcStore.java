@@ -21,18 +21,25 @@ package quickfix;
 
 import static quickfix.JdbcSetting.*;
 
+import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
 
 import javax.sql.DataSource;
 
-class JdbcStore implements MessageStore {
+class JdbcStore implements MessageStore, Closeable {
     private final static String DEFAULT_SESSION_TABLE_NAME = "sessions";
     private final static String DEFAULT_MESSAGE_TABLE_NAME = "messages";
+    private final static int DEFAULT_BATCH_SIZE = 100;
 
     private final MemoryStore cache = new MemoryStore();
     private final boolean extendedSessionIdSupported;
@@ -41,6 +48,18 @@ class JdbcStore implements MessageStore {
     private final String sessionTableName;
     private final String messageTableName;
     private final String defaultSessionIdPropertyValue;
+    private final JdbcStatementCache statementCache;
+    private final int fetchSize;
+
+    // write-behind mode, the flusher is null otherwise
+    private final JdbcStoreFlusher flusher;
+    private final JdbcStoreJournal journal;
+    private final int batchSize;
+    private final Object flushLock = new Object();
+    private Map<Integer, String> pendingMessages = new LinkedHashMap<Integer, String>();
+    private boolean sequenceNumbersPending;
+    private final List<File> unflushedJournalFiles = new ArrayList<File>();
+    private volatile boolean closed;
 
     private String SQL_UPDATE_SEQNUMS;
     private String SQL_INSERT_SESSION;
@@ -52,7 +71,18 @@ class JdbcStore implements MessageStore {
     private String SQL_DELETE_MESSAGES;
 
     public JdbcStore(SessionSettings settings, SessionID sessionID, DataSource ds) throws Exception {
+        this(settings, sessionID, ds, null);
+    }
+
+    /**
+     * @param flusher the flusher that writes to the database in write-behind
+     *            mode, or null to write each message and sequence number update
+     *            in the calling thread
+     */
+    JdbcStore(SessionSettings settings, SessionID sessionID, DataSource ds,
+            JdbcStoreFlusher flusher) throws Exception {
         this.sessionID = sessionID;
+        this.flusher = flusher;
         if (settings.isSetting(sessionID, SETTING_JDBC_STORE_SESSIONS_TABLE_NAME)) {
             sessionTableName = settings
                     .getString(sessionID, SETTING_JDBC_STORE_SESSIONS_TABLE_NAME);
@@ -76,6 +106,21 @@ class JdbcStore implements MessageStore {
 
         dataSource = ds == null ? JdbcUtil.getDataSource(settings, sessionID) : ds;
 
+        if (settings.isSetting(sessionID, SETTING_JDBC_STORE_FETCH_SIZE)) {
+            fetchSize = (int) settings.getLong(sessionID, SETTING_JDBC_STORE_FETCH_SIZE);
+        } else {
+            fetchSize = 0;
+        }
+
+        if (settings.isSetting(sessionID, SETTING_JDBC_PINNED_CONNECTION)
+                && settings.getBool(sessionID, SETTING_JDBC_PINNED_CONNECTION)) {
+            statementCache = ds == null && !settings.isSetting(sessionID, SETTING_JDBC_DS_NAME)
+                    ? new JdbcStatementCache(sessionID, settings)
+                    : new JdbcStatementCache(sessionID, dataSource);
+        } else {
+            statementCache = null;
+        }
+
         // One table is sampled for the extended session ID columns. Be sure
         // that all tables are extended if you extend any of them.
         extendedSessionIdSupported = JdbcUtil.determineSessionIdSupport(dataSource,
@@ -84,6 +129,53 @@ class JdbcStore implements MessageStore {
         setSqlStrings();
 
         loadCache();
+
+        if (flusher != null) {
+            boolean syncJournal = false;
+            if (settings.isSetting(sessionID, SETTING_JDBC_STORE_JOURNAL_SYNC)) {
+                syncJournal = settings.getBool(sessionID, SETTING_JDBC_STORE_JOURNAL_SYNC);
+            }
+            int size = DEFAULT_BATCH_SIZE;
+            if (settings.isSetting(sessionID, SETTING_JDBC_STORE_BATCH_SIZE)) {
+                size = (int) settings.getLong(sessionID, SETTING_JDBC_STORE_BATCH_SIZE);
+                if (size < 1) {
+                    throw new ConfigError(SETTING_JDBC_STORE_BATCH_SIZE + " must be positive: " + size);
+                }
+            }
+            batchSize = size;
+            journal = new JdbcStoreJournal(settings.getString(sessionID,
+                    SETTING_JDBC_STORE_JOURNAL_PATH), sessionID, syncJournal);
+            recoverJournal();
+        } else {
+            batchSize = DEFAULT_BATCH_SIZE;
+            journal = null;
+        }
+    }
+
+    /**
+     * Writes the messages and sequence numbers of journal files left by a
+     * previous run to the database.
+     */
+    private void recoverJournal() throws SQLException, IOException {
+        final List<File> files = journal.getFiles();
+        final Map<Integer, String> messages = new LinkedHashMap<Integer, String>();
+        final int[] sequenceNumbers = new int[2];
+        boolean hasSequenceNumbers = false;
+        for (final File file : files) {
+            hasSequenceNumbers |= JdbcStoreJournal.read(file, messages, sequenceNumbers);
+        }
+        if (hasSequenceNumbers) {
+            cache.setNextSenderMsgSeqNum(sequenceNumbers[0]);
+            cache.setNextTargetMsgSeqNum(sequenceNumbers[1]);
+        }
+        if (!messages.isEmpty() || hasSequenceNumbers) {
+            writeBatch(messages, hasSequenceNumbers, cache.getNextSenderMsgSeqNum(),
+                    cache.getNextTargetMsgSeqNum());
+        }
+        journal.open(files);
+        for (final File file : files) {
+            JdbcStoreJournal.delete(file);
+        }
     }
 
     private void setSqlStrings() {
@@ -122,8 +214,8 @@ class JdbcStore implements MessageStore {
         PreparedStatement insert = null;
         ResultSet rs = null;
         try {
-            connection = dataSource.getConnection();
-            query = connection.prepareStatement(SQL_GET_SEQNUMS);
+            connection = getConnection();
+            query = prepareStatement(connection, SQL_GET_SEQNUMS);
             setSessionIdParameters(query, 1);
             rs = query.executeQuery();
             if (rs.next()) {
@@ -131,21 +223,55 @@ class JdbcStore implements MessageStore {
                 cache.setNextTargetMsgSeqNum(rs.getInt(2));
                 cache.setNextSenderMsgSeqNum(rs.getInt(3));
             } else {
-                insert = connection.prepareStatement(SQL_INSERT_SESSION);
+                insert = prepareStatement(connection, SQL_INSERT_SESSION);
                 int offset = setSessionIdParameters(insert, 1);
                 insert.setTimestamp(offset++, new Timestamp(cache.getCreationTime().getTime()));
                 insert.setInt(offset++, cache.getNextTargetMsgSeqNum());
                 insert.setInt(offset, cache.getNextSenderMsgSeqNum());
                 insert.execute();
             }
+        } catch (SQLException e) {
+            validateConnection();
+            throw e;
         } finally {
             JdbcUtil.close(sessionID, rs);
-            JdbcUtil.close(sessionID, query);
-            JdbcUtil.close(sessionID, insert);
+            releaseStatement(query);
+            releaseStatement(insert);
+            releaseConnection(connection);
+        }
+    }
+
+    private Connection getConnection() throws SQLException {
+        return statementCache != null ? statementCache.getConnection() : dataSource.getConnection();
+    }
+
+    private PreparedStatement prepareStatement(Connection connection, String sql)
+            throws SQLException {
+        return statementCache != null
+                ? statementCache.prepareStatement(sql)
+                : connection.prepareStatement(sql);
+    }
+
+    private void releaseStatement(PreparedStatement statement) {
+        if (statementCache == null) {
+            JdbcUtil.close(sessionID, statement);
+        }
+    }
+
+    private void releaseConnection(Connection connection) {
+        if (statementCache != null) {
+            statementCache.release(connection);
+        } else {
             JdbcUtil.close(sessionID, connection);
         }
     }
 
+    private void validateConnection() {
+        if (statementCache != null) {
+            statementCache.validate();
+        }
+    }
+
     private int setSessionIdParameters(PreparedStatement query, int offset) throws SQLException {
         return JdbcUtil.setSessionIdParameters(sessionID, query, offset,
                 extendedSessionIdSupported, defaultSessionIdPropertyValue);
@@ -174,17 +300,35 @@ class JdbcStore implements MessageStore {
     }
 
     public void reset() throws IOException {
+        if (flusher == null) {
+            resetDatabase();
+            return;
+        }
+        synchronized (flushLock) {
+            synchronized (this) {
+                pendingMessages.clear();
+                sequenceNumbersPending = false;
+                rotateJournal();
+            }
+            // drop the journal first, a crash before the database is reset must
+            // not replay messages from before the reset
+            deleteFlushedJournalFiles();
+            resetDatabase();
+        }
+    }
+
+    private void resetDatabase() throws IOException {
         cache.reset();
         Connection connection = null;
         PreparedStatement deleteMessages = null;
         PreparedStatement updateTime = null;
         try {
-            connection = dataSource.getConnection();
-            deleteMessages = connection.prepareStatement(SQL_DELETE_MESSAGES);
+            connection = getConnection();
+            deleteMessages = prepareStatement(connection, SQL_DELETE_MESSAGES);
             setSessionIdParameters(deleteMessages, 1);
             deleteMessages.execute();
 
-            updateTime = connection.prepareStatement(SQL_UPDATE_SESSION);
+            updateTime = prepareStatement(connection, SQL_UPDATE_SESSION);
             updateTime.setTimestamp(1, new Timestamp(Calendar.getInstance(
                     TimeZone.getTimeZone("UTC")).getTimeInMillis()));
             updateTime.setInt(2, getNextTargetMsgSeqNum());
@@ -192,22 +336,37 @@ class JdbcStore implements MessageStore {
             setSessionIdParameters(updateTime, 4);
             updateTime.execute();
         } catch (SQLException e) {
+            validateConnection();
             throw (IOException) new IOException(e.getMessage()).initCause(e);
         } finally {
-            JdbcUtil.close(sessionID, deleteMessages);
-            JdbcUtil.close(sessionID, updateTime);
-            JdbcUtil.close(sessionID, connection);
+            releaseStatement(deleteMessages);
+            releaseStatement(updateTime);
+            releaseConnection(connection);
         }
     }
 
     public void get(int startSequence, int endSequence, Collection<String> messages)
             throws IOException {
+        if (flusher != null) {
+            flush();
+        }
         Connection connection = null;
         PreparedStatement query = null;
         ResultSet rs = null;
+        boolean endTransaction = false;
         try {
-            connection = dataSource.getConnection();
-            query = connection.prepareStatement(SQL_GET_MESSAGES);
+            connection = getConnection();
+            query = prepareStatement(connection, SQL_GET_MESSAGES);
+            if (fetchSize != 0) {
+                // stream the rows through a forward-only cursor; some drivers,
+                // e.g. PostgreSQL, only use a cursor inside a transaction
+                if (connection.getAutoCommit()) {
+                    connection.setAutoCommit(false);
+                    endTransaction = true;
+                }
+                query.setFetchDirection(ResultSet.FETCH_FORWARD);
+                query.setFetchSize(fetchSize);
+            }
             int offset = setSessionIdParameters(query, 1);
             query.setInt(offset++, startSequence);
             query.setInt(offset, endSequence);
@@ -217,21 +376,39 @@ class JdbcStore implements MessageStore {
                 messages.add(message);
             }
         } catch (SQLException e) {
+            validateConnection();
             throw (IOException) new IOException(e.getMessage()).initCause(e);
         } finally {
             JdbcUtil.close(sessionID, rs);
-            JdbcUtil.close(sessionID, query);
-            JdbcUtil.close(sessionID, connection);
+            if (endTransaction) {
+                endReadTransaction(connection);
+            }
+            releaseStatement(query);
+            releaseConnection(connection);
+        }
+    }
+
+    private void endReadTransaction(Connection connection) {
+        try {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            LogUtil.logThrowable(sessionID, e.getMessage(), e);
+            validateConnection();
         }
     }
 
     public boolean set(int sequence, String message) throws IOException {
+        if (flusher != null) {
+            appendMessage(sequence, message);
+            return true;
+        }
         Connection connection = null;
         PreparedStatement insert = null;
         ResultSet rs = null;
         try {
-            connection = dataSource.getConnection();
-            insert = connection.prepareStatement(SQL_INSERT_MESSAGE);
+            connection = getConnection();
+            insert = prepareStatement(connection, SQL_INSERT_MESSAGE);
             int offset = setSessionIdParameters(insert, 1);
             insert.setInt(offset++, sequence);
             insert.setString(offset, message);
@@ -240,22 +417,23 @@ class JdbcStore implements MessageStore {
             if (connection != null) {
                 PreparedStatement update = null;
                 try {
-                    update = connection.prepareStatement(SQL_UPDATE_MESSAGE);
+                    update = prepareStatement(connection, SQL_UPDATE_MESSAGE);
                     update.setString(1, message);
                     int offset = setSessionIdParameters(update, 2);
                     update.setInt(offset, sequence);
                     boolean status = update.execute();
                     return !status && update.getUpdateCount() > 0;
                 } catch (SQLException e) {
+                    validateConnection();
                     throw (IOException) new IOException(e.getMessage()).initCause(e);
                 } finally {
-                    JdbcUtil.close(sessionID, update);
+                    releaseStatement(update);
                 }
             }
         } finally {
             JdbcUtil.close(sessionID, rs);
-            JdbcUtil.close(sessionID, insert);
-            JdbcUtil.close(sessionID, connection);
+            releaseStatement(insert);
+            releaseConnection(connection);
         }
         return true;
     }
@@ -271,24 +449,32 @@ class JdbcStore implements MessageStore {
     }
 
     private void storeSequenceNumbers() throws IOException {
+        if (flusher != null) {
+            appendSequenceNumbers();
+            return;
+        }
         Connection connection = null;
         PreparedStatement update = null;
         try {
-            connection = dataSource.getConnection();
-            update = connection.prepareStatement(SQL_UPDATE_SEQNUMS);
+            connection = getConnection();
+            update = prepareStatement(connection, SQL_UPDATE_SEQNUMS);
             update.setInt(1, cache.getNextTargetMsgSeqNum());
             update.setInt(2, cache.getNextSenderMsgSeqNum());
             setSessionIdParameters(update, 3);
             update.execute();
         } catch (SQLException e) {
+            validateConnection();
             throw (IOException) new IOException(e.getMessage()).initCause(e);
         } finally {
-            JdbcUtil.close(sessionID, update);
-            JdbcUtil.close(sessionID, connection);
+            releaseStatement(update);
+            releaseConnection(connection);
         }
     }
 
     public void refresh() throws IOException {
+        if (flusher != null) {
+            flush();
+        }
         try {
             loadCache();
         } catch (SQLException e) {
@@ -296,6 +482,235 @@ class JdbcStore implements MessageStore {
         }
     }
 
+    private synchronized void appendMessage(int sequence, String message) throws IOException {
+        journal.appendMessage(sequence, message);
+        pendingMessages.put(sequence, message);
+        flusher.schedule(this, pendingMessages.size() >= batchSize);
+    }
+
+    private synchronized void appendSequenceNumbers() throws IOException {
+        journal.appendSequenceNumbers(cache.getNextSenderMsgSeqNum(),
+                cache.getNextTargetMsgSeqNum());
+        sequenceNumbersPending = true;
+        flusher.schedule(this, false);
+    }
+
+    /**
+     * Writes the pending messages and the latest sequence numbers of a
+     * write-behind store to the database in one transaction. The pending writes
+     * are kept if the transaction fails.
+     */
+    void flush() throws IOException {
+        synchronized (flushLock) {
+            final Map<Integer, String> messages;
+            final boolean updateSequenceNumbers;
+            final int nextSenderMsgSeqNum;
+            final int nextTargetMsgSeqNum;
+            synchronized (this) {
+                if (pendingMessages.isEmpty() && !sequenceNumbersPending) {
+                    return;
+                }
+                messages = pendingMessages;
+                pendingMessages = new LinkedHashMap<Integer, String>();
+                updateSequenceNumbers = sequenceNumbersPending;
+                sequenceNumbersPending = false;
+                nextSenderMsgSeqNum = cache.getNextSenderMsgSeqNum();
+                nextTargetMsgSeqNum = cache.getNextTargetMsgSeqNum();
+                rotateJournal();
+            }
+            try {
+                writeBatch(messages, updateSequenceNumbers, nextSenderMsgSeqNum,
+                        nextTargetMsgSeqNum);
+            } catch (SQLException e) {
+                restorePending(messages, updateSequenceNumbers);
+                throw (IOException) new IOException(e.getMessage()).initCause(e);
+            } catch (RuntimeException e) {
+                restorePending(messages, updateSequenceNumbers);
+                throw e;
+            }
+            deleteFlushedJournalFiles();
+        }
+    }
+
+    private synchronized void restorePending(Map<Integer, String> messages,
+            boolean updateSequenceNumbers) {
+        // messages set in the meantime replace the failed ones
+        messages.putAll(pendingMessages);
+        pendingMessages = messages;
+        sequenceNumbersPending |= updateSequenceNumbers;
+    }
+
+    private void rotateJournal() throws IOException {
+        final File file = journal.rotate();
+        if (file != null) {
+            unflushedJournalFiles.add(file);
+        }
+    }
+
+    private void deleteFlushedJournalFiles() {
+        for (final File file : unflushedJournalFiles) {
+            JdbcStoreJournal.delete(file);
+        }
+        unflushedJournalFiles.clear();
+    }
+
+    private void writeBatch(Map<Integer, String> messages, boolean updateSequenceNumbers,
+            int nextSenderMsgSeqNum, int nextTargetMsgSeqNum) throws SQLException {
+        Connection connection = null;
+        PreparedStatement update = null;
+        boolean autoCommit = true;
+        boolean failed = false;
+        try {
+            connection = getConnection();
+            autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            if (!messages.isEmpty()) {
+                try {
+                    insertMessages(connection, messages);
+                } catch (BatchUpdateException e) {
+                    // some messages were stored before, e.g. by a previous run
+                    connection.rollback();
+                    storeMessages(connection, messages);
+                }
+            }
+            if (updateSequenceNumbers) {
+                update = prepareStatement(connection, SQL_UPDATE_SEQNUMS);
+                update.setInt(1, nextTargetMsgSeqNum);
+                update.setInt(2, nextSenderMsgSeqNum);
+                setSessionIdParameters(update, 3);
+                update.execute();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            failed = true;
+            if (connection != null) {
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackException) {
+                    // the original exception is reported
+                }
+            }
+            throw e;
+        } finally {
+            releaseStatement(update);
+            if (connection != null) {
+                try {
+                    connection.setAutoCommit(autoCommit);
+                } catch (SQLException e) {
+                    failed = true;
+                    LogUtil.logThrowable(sessionID, e.getMessage(), e);
+                }
+            }
+            if (failed) {
+                validateConnection();
+            }
+            releaseConnection(connection);
+        }
+    }
+
+    private void insertMessages(Connection connection, Map<Integer, String> messages)
+            throws SQLException {
+        PreparedStatement insert = null;
+        try {
+            insert = prepareStatement(connection, SQL_INSERT_MESSAGE);
+            int count = 0;
+            for (final Map.Entry<Integer, String> entry : messages.entrySet()) {
+                int offset = setSessionIdParameters(insert, 1);
+                insert.setInt(offset++, entry.getKey());
+                insert.setString(offset, entry.getValue());
+                insert.addBatch();
+                if (++count % batchSize == 0) {
+                    insert.executeBatch();
+                }
+            }
+            if (count % batchSize != 0) {
+                insert.executeBatch();
+            }
+        } catch (BatchUpdateException e) {
+            // a cached statement must not keep the failed batch
+            insert.clearBatch();
+            throw e;
+        } finally {
+            releaseStatement(insert);
+        }
+    }
+
+    /**
+     * Updates or inserts each message. The update is tried first so that no
+     * statement fails, which would abort the transaction on some databases.
+     */
+    private void storeMessages(Connection connection, Map<Integer, String> messages)
+            throws SQLException {
+        PreparedStatement update = null;
+        PreparedStatement insert = null;
+        try {
+            update = prepareStatement(connection, SQL_UPDATE_MESSAGE);
+            for (final Map.Entry<Integer, String> entry : messages.entrySet()) {
+                update.setString(1, entry.getValue());
+                int offset = setSessionIdParameters(update, 2);
+                update.setInt(offset, entry.getKey());
+                if (update.executeUpdate() == 0) {
+                    if (insert == null) {
+                        insert = prepareStatement(connection, SQL_INSERT_MESSAGE);
+                    }
+                    offset = setSessionIdParameters(insert, 1);
+                    insert.setInt(offset++, entry.getKey());
+                    insert.setString(offset, entry.getValue());
+                    insert.execute();
+                }
+            }
+        } finally {
+            releaseStatement(update);
+            releaseStatement(insert);
+        }
+    }
+
+    /**
+     * Writes the pending writes of a write-behind store, closes its journal and
+     * releases the flusher, and closes the pinned connection. Writes that could
+     * not be written are recovered from the journal when the store is opened
+     * again.
+     */
+    public void close() throws IOException {
+        try {
+            if (flusher != null) {
+                try {
+                    flush();
+                } finally {
+                    closeJournal();
+                }
+            }
+        } finally {
+            if (statementCache != null) {
+                statementCache.close();
+            }
+        }
+    }
+
+    private void closeJournal() throws IOException {
+        boolean release = false;
+        try {
+            synchronized (this) {
+                release = !closed;
+                closed = true;
+                journal.close();
+            }
+        } finally {
+            if (release) {
+                // not under the monitor, the flusher thread may be flushing this store
+                flusher.release(this);
+            }
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    SessionID getSessionID() {
+        return sessionID;
+    }
+
     DataSource getDataSource() {
         return dataSource;
     }
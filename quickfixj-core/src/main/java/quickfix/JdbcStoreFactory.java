@@ -19,6 +19,8 @@
 
 package quickfix;
 
+import static quickfix.JdbcSetting.*;
+
 import javax.sql.DataSource;
 
 /**
@@ -27,6 +29,7 @@ import javax.sql.DataSource;
 public class JdbcStoreFactory implements MessageStoreFactory {
     private final SessionSettings settings;
     private DataSource dataSource;
+    private JdbcStoreFlusher flusher;
 
     /**
      * Create a factory using session settings.
@@ -41,13 +44,41 @@ public class JdbcStoreFactory implements MessageStoreFactory {
      * @param sessionID the sessionID for the message store.
      */
     public MessageStore create(SessionID sessionID) {
+        JdbcStoreFlusher storeFlusher = null;
         try {
-            return new JdbcStore(settings, sessionID, dataSource);
+            if (settings.isSetting(sessionID, SETTING_JDBC_STORE_WRITE_BEHIND)
+                    && settings.getBool(sessionID, SETTING_JDBC_STORE_WRITE_BEHIND)) {
+                storeFlusher = getFlusher();
+            }
+            return new JdbcStore(settings, sessionID, dataSource, storeFlusher);
         } catch (Exception e) {
+            if (storeFlusher != null) {
+                storeFlusher.release(null);
+            }
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Returns the flusher shared by the write-behind stores, registered for a
+     * new store. A new flusher is started after all stores of the previous one
+     * have been closed.
+     */
+    private synchronized JdbcStoreFlusher getFlusher() throws ConfigError, FieldConvertError {
+        if (flusher == null || !flusher.register()) {
+            long interval = 100;
+            if (settings.isSetting(SETTING_JDBC_STORE_FLUSH_INTERVAL)) {
+                interval = settings.getLong(SETTING_JDBC_STORE_FLUSH_INTERVAL);
+            }
+            if (interval < 1) {
+                throw new ConfigError(SETTING_JDBC_STORE_FLUSH_INTERVAL + " must be positive: " + interval);
+            }
+            flusher = new JdbcStoreFlusher(interval);
+            flusher.register();
+        }
+        return flusher;
+    }
+
     /**
      * Used to support the MySQL-specific class (JNI compatibility)
      *
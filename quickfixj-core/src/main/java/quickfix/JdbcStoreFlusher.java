@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the pending messages and sequence numbers of write-behind JDBC stores
+ * to the database in a background thread. A store is flushed when the flush
+ * interval has passed since it became dirty, or as soon as possible when it
+ * requests it because its batch is full. A store that fails to flush keeps its
+ * pending writes and is retried after the next interval.
+ * <p>
+ * The flusher is shared by the stores that registered with it and its thread
+ * is stopped when the last of them is closed.
+ */
+class JdbcStoreFlusher {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final Object lock = new Object();
+    private final long intervalNanos;
+
+    // stores with pending writes, in the order they became dirty
+    private Set<JdbcStore> dirtyStores = new LinkedHashSet<JdbcStore>();
+    private boolean flushRequested;
+    private Thread flusherThread;
+    private int users;
+    private boolean stopped;
+
+    /**
+     * @param intervalMillis the maximum time writes are pending before they
+     *            are written to the database
+     */
+    JdbcStoreFlusher(long intervalMillis) {
+        if (intervalMillis < 1) {
+            throw new IllegalArgumentException("Invalid JDBC store flush interval: " + intervalMillis);
+        }
+        intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    }
+
+    /**
+     * Registers a store that uses this flusher.
+     *
+     * @return false if the flusher has been stopped and cannot be used anymore
+     */
+    boolean register() {
+        synchronized (lock) {
+            if (stopped) {
+                return false;
+            }
+            users++;
+            return true;
+        }
+    }
+
+    /**
+     * Unregisters a store after it has written its pending writes. When no
+     * store is registered anymore, the flusher thread is stopped.
+     *
+     * @param store the closed store, or null if it could not be created
+     */
+    void release(JdbcStore store) {
+        final Thread thread;
+        synchronized (lock) {
+            if (store != null) {
+                dirtyStores.remove(store);
+            }
+            if (--users > 0) {
+                return;
+            }
+            stopped = true;
+            thread = flusherThread;
+            lock.notifyAll();
+        }
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Schedules a flush of the store.
+     *
+     * @param store the store with pending writes
+     * @param immediately whether to flush without waiting for the interval
+     */
+    void schedule(JdbcStore store, boolean immediately) {
+        synchronized (lock) {
+            if (stopped) {
+                // only closed stores are left, they have been flushed
+                return;
+            }
+            startFlusherThread();
+            final boolean wasIdle = dirtyStores.isEmpty();
+            dirtyStores.add(store);
+            if (immediately) {
+                flushRequested = true;
+            }
+            if (wasIdle || immediately) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void startFlusherThread() {
+        if (flusherThread == null) {
+            flusherThread = new Thread(new Runnable() {
+                public void run() {
+                    flushStores();
+                }
+            }, "QFJ JdbcStore flusher");
+            flusherThread.setDaemon(true);
+            flusherThread.start();
+        }
+    }
+
+    private void flushStores() {
+        try {
+            flushDirtyStores();
+        } finally {
+            synchronized (lock) {
+                // a later schedule() starts a new thread
+                flusherThread = null;
+            }
+        }
+    }
+
+    private void flushDirtyStores() {
+        while (true) {
+            final Set<JdbcStore> stores;
+            synchronized (lock) {
+                try {
+                    while (dirtyStores.isEmpty() && !stopped) {
+                        lock.wait();
+                    }
+                    if (stopped) {
+                        return;
+                    }
+                    final long deadline = System.nanoTime() + intervalNanos;
+                    long remaining = intervalNanos;
+                    while (!flushRequested && remaining > 0 && !stopped) {
+                        TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                        remaining = deadline - System.nanoTime();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                stores = dirtyStores;
+                dirtyStores = new LinkedHashSet<JdbcStore>();
+                flushRequested = false;
+            }
+
+            final List<JdbcStore> failedStores = new ArrayList<JdbcStore>();
+            for (final JdbcStore store : stores) {
+                try {
+                    store.flush();
+                } catch (IOException e) {
+                    log.error("Failed to flush JDBC store of " + store.getSessionID()
+                            + ", retrying: " + e.getMessage(), e);
+                    failedStores.add(store);
+                } catch (RuntimeException e) {
+                    log.error("Failed to flush JDBC store of " + store.getSessionID()
+                            + ", retrying: " + e, e);
+                    failedStores.add(store);
+                }
+            }
+
+            if (!failedStores.isEmpty()) {
+                synchronized (lock) {
+                    for (final JdbcStore store : failedStores) {
+                        // a store closed in the meantime has been released
+                        if (!store.isClosed()) {
+                            dirtyStores.add(store);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.quickfixj.CharsetSupport;
+
+/**
+ * The local journal of a write-behind JDBC store. Messages and sequence numbers
+ * are appended to the journal before they are written to the database, so they
+ * can be recovered after a crash. The journal is split into numbered files; the
+ * store rotates to a new file when it takes a batch for the database and deletes
+ * the previous files once the batch has been committed.
+ */
+class JdbcStoreJournal {
+    private static final String FILE_INFIX = "journal.";
+    private static final byte MESSAGE_RECORD = 'M';
+    private static final byte SEQUENCE_NUMBERS_RECORD = 'S';
+
+    private final File directory;
+    private final String filePrefix;
+    private final boolean syncWrites;
+
+    private long generation;
+    private File file;
+    private FileOutputStream fileOutputStream;
+    private DataOutputStream output;
+    private boolean dirty;
+
+    JdbcStoreJournal(String path, SessionID sessionID, boolean syncWrites) {
+        directory = new File(path == null ? "." : path).getAbsoluteFile();
+        filePrefix = FileUtil.sessionIdFileName(sessionID) + "." + FILE_INFIX;
+        this.syncWrites = syncWrites;
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+    }
+
+    /**
+     * @return the journal files left by a previous run, oldest first
+     */
+    List<File> getFiles() {
+        final List<File> files = new ArrayList<File>();
+        final File[] candidates = directory.listFiles();
+        if (candidates != null) {
+            for (final File candidate : candidates) {
+                if (getGeneration(candidate) >= 0) {
+                    files.add(candidate);
+                }
+            }
+        }
+        Collections.sort(files, new Comparator<File>() {
+            public int compare(File f1, File f2) {
+                final long g1 = getGeneration(f1);
+                final long g2 = getGeneration(f2);
+                return g1 < g2 ? -1 : (g1 == g2 ? 0 : 1);
+            }
+        });
+        return files;
+    }
+
+    private long getGeneration(File candidate) {
+        final String name = candidate.getName();
+        if (!name.startsWith(filePrefix) || name.length() == filePrefix.length()) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = filePrefix.length(); i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if (c < '0' || c > '9' || value > (Long.MAX_VALUE - 9) / 10) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Opens a new journal file after the given files.
+     *
+     * @param previousFiles the existing journal files, oldest first
+     */
+    void open(List<File> previousFiles) throws IOException {
+        generation = previousFiles.isEmpty() ? 0 : getGeneration(previousFiles
+                .get(previousFiles.size() - 1)) + 1;
+        openFile();
+    }
+
+    private void openFile() throws IOException {
+        file = new File(directory, filePrefix + generation);
+        fileOutputStream = new FileOutputStream(file, true);
+        output = new DataOutputStream(new BufferedOutputStream(fileOutputStream));
+        dirty = false;
+    }
+
+    void appendMessage(int sequence, String message) throws IOException {
+        final byte[] bytes = message.getBytes(CharsetSupport.getCharset());
+        output.writeByte(MESSAGE_RECORD);
+        output.writeInt(sequence);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+        endRecord();
+    }
+
+    void appendSequenceNumbers(int nextSenderMsgSeqNum, int nextTargetMsgSeqNum)
+            throws IOException {
+        output.writeByte(SEQUENCE_NUMBERS_RECORD);
+        output.writeInt(nextSenderMsgSeqNum);
+        output.writeInt(nextTargetMsgSeqNum);
+        endRecord();
+    }
+
+    private void endRecord() throws IOException {
+        output.flush();
+        if (syncWrites) {
+            fileOutputStream.getFD().sync();
+        }
+        dirty = true;
+    }
+
+    /**
+     * Continues the journal in a new file.
+     *
+     * @return the previous file, or null if nothing was appended to it
+     */
+    File rotate() throws IOException {
+        if (!dirty) {
+            return null;
+        }
+        final File previousFile = file;
+        output.close();
+        generation++;
+        openFile();
+        return previousFile;
+    }
+
+    /**
+     * Closes the current file. It is deleted if nothing was appended to it.
+     */
+    void close() throws IOException {
+        output.close();
+        if (!dirty) {
+            delete(file);
+        }
+    }
+
+    static void delete(File file) {
+        if (file.exists() && !file.delete()) {
+            System.err.println("File delete failed: " + file);
+        }
+    }
+
+    /**
+     * Reads the records of a journal file. A record that was not completely
+     * written before a crash is ignored.
+     *
+     * @param file the journal file
+     * @param messages receives the messages, keyed by sequence number
+     * @param sequenceNumbers receives the last next sender and target sequence
+     *            numbers, if the file has any
+     * @return true if the file has sequence numbers
+     */
+    static boolean read(File file, Map<Integer, String> messages, int[] sequenceNumbers)
+            throws IOException {
+        boolean hasSequenceNumbers = false;
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(file)));
+        try {
+            while (true) {
+                final int type = input.read();
+                if (type == MESSAGE_RECORD) {
+                    final int sequence = input.readInt();
+                    final int length = input.readInt();
+                    if (length < 0 || length > file.length()) {
+                        // the length of an incomplete record
+                        break;
+                    }
+                    final byte[] bytes = new byte[length];
+                    input.readFully(bytes);
+                    messages.put(sequence, new String(bytes, CharsetSupport.getCharset()));
+                } else if (type == SEQUENCE_NUMBERS_RECORD) {
+                    final int nextSenderMsgSeqNum = input.readInt();
+                    final int nextTargetMsgSeqNum = input.readInt();
+                    sequenceNumbers[0] = nextSenderMsgSeqNum;
+                    sequenceNumbers[1] = nextTargetMsgSeqNum;
+                    hasSequenceNumbers = true;
+                } else if (type == -1) {
+                    break;
+                } else {
+                    throw new IOException("Invalid record in journal " + file + ": " + type);
+                }
+            }
+        } catch (EOFException e) {
+            // the last record is incomplete
+        } finally {
+            input.close();
+        }
+        return hasSequenceNumbers;
+    }
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix;
+
+/**
+ * A string field created by the message parser. The field only records the
+ * position of its value within the raw message string and the value is not
+ * extracted until it is requested. Fields that are never read by the application
+ * therefore do not allocate a value string.
+ */
+final class LazyStringField extends StringField {
+
+    static final long serialVersionUID = -5403718520925421392L;
+
+    private String source;
+    private int begin;
+    private int end;
+
+    LazyStringField(int field, String source, int begin, int end) {
+        super(field, null);
+        this.source = source;
+        this.begin = begin;
+        this.end = end;
+    }
+
+    /**
+     * Reuses this field for another value, see {@link MessagePool}.
+     */
+    void reset(int field, String source, int begin, int end) {
+        reinitialize(field, null);
+        this.source = source;
+        this.begin = begin;
+        this.end = end;
+    }
+
+    /**
+     * Drops the references to the value and the raw message.
+     */
+    void release() {
+        source = null;
+        reinitialize(getTag(), null);
+    }
+
+    /**
+     * @return true if the value has not been extracted from the raw message yet
+     */
+    boolean isLazy() {
+        return source != null;
+    }
+
+    /**
+     * @return the raw message string, or null if the value has already been extracted
+     */
+    String getSource() {
+        return source;
+    }
+
+    int getBegin() {
+        return begin;
+    }
+
+    int getEnd() {
+        return end;
+    }
+
+    @Override
+    public String getObject() {
+        if (source != null) {
+            super.setObject(source.substring(begin, end));
+            source = null;
+        }
+        return super.getObject();
+    }
+
+    @Override
+    protected void setObject(String object) {
+        source = null;
+        super.setObject(object);
+    }
+
+    @Override
+    protected String objectAsString() {
+        return getObject();
+    }
+
+    @Override
+    public boolean valueEquals(String value) {
+        if (source != null) {
+            return value != null && value.length() == end - begin
+                    && source.regionMatches(begin, value, 0, value.length());
+        }
+        return super.valueEquals(value);
+    }
+
+    @Override
+    public int hashCode() {
+        return getObject().hashCode();
+    }
+}
@@ -0,0 +1,395 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.quickfixj.CharsetSupport;
+
+/**
+ * Message store that keeps the message bodies, a message index and the session
+ * state in memory-mapped files. Storing a message copies it into the mapping
+ * and reading a range of messages during a resend reads them directly from the
+ * mapping, without searching any file.
+ * <p>
+ * The index has one fixed-width entry per sequence number, so the location of a
+ * message is computed from its sequence number. The files grow in segments as
+ * needed and are not shrunk on reset. The file formats are not compatible with
+ * {@link FileStore}.
+ *
+ * @see quickfix.MappedFileStoreFactory
+ */
+public class MappedFileStore implements MessageStore, Closeable {
+    private static final String READ_WRITE_OPTION = "rw";
+
+    static final int BODY_SEGMENT_SIZE = 16 * 1024 * 1024;
+    static final int INDEX_ENTRY_SIZE = 16;
+    static final int INDEX_SEGMENT_ENTRIES = 64 * 1024;
+    private static final int INDEX_SEGMENT_SIZE = INDEX_ENTRY_SIZE * INDEX_SEGMENT_ENTRIES;
+
+    // layout of an index entry
+    private static final int INDEX_OFFSET = 0;
+    private static final int INDEX_SIZE = 8;
+    private static final int INDEX_SEQUENCE = 12;
+
+    // layout of the state file
+    private static final int STATE_SIZE = 64;
+    private static final int STATE_NEXT_SENDER_SEQ = 0;
+    private static final int STATE_NEXT_TARGET_SEQ = 4;
+    private static final int STATE_CREATION_TIME = 8;
+    private static final int STATE_BODY_END = 16;
+    private static final int STATE_MAX_SEQUENCE = 24;
+
+    private final String bodyFileName;
+    private final String indexFileName;
+    private final String stateFileName;
+    private final boolean syncWrites;
+    private final Charset charset = Charset.forName(CharsetSupport.getCharset());
+
+    private RandomAccessFile bodyFile;
+    private RandomAccessFile indexFile;
+    private RandomAccessFile stateFile;
+    private final List<MappedByteBuffer> bodySegments = new ArrayList<MappedByteBuffer>();
+    private final List<MappedByteBuffer> indexSegments = new ArrayList<MappedByteBuffer>();
+    private MappedByteBuffer state;
+
+    // the session state is read from the mapping on initialization and refresh only
+    private int nextSenderMsgSeqNum;
+    private int nextTargetMsgSeqNum;
+    private long creationTime;
+    private long bodyEnd;
+    private int maxSequence;
+
+    MappedFileStore(String path, SessionID sessionID, boolean syncWrites) throws IOException {
+        this.syncWrites = syncWrites;
+
+        final String fullPath = new File(path == null ? "." : path).getAbsolutePath();
+        final String sessionName = FileUtil.sessionIdFileName(sessionID);
+        final String prefix = FileUtil.fileAppendPath(fullPath, sessionName + ".");
+
+        bodyFileName = prefix + "mappedbody";
+        indexFileName = prefix + "mappedindex";
+        stateFileName = prefix + "mappedstate";
+
+        final File directory = new File(bodyFileName).getParentFile();
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+
+        initialize();
+    }
+
+    private void initialize() throws IOException {
+        close();
+
+        bodyFile = new RandomAccessFile(bodyFileName, READ_WRITE_OPTION);
+        indexFile = new RandomAccessFile(indexFileName, READ_WRITE_OPTION);
+        stateFile = new RandomAccessFile(stateFileName, READ_WRITE_OPTION);
+
+        final boolean newState = stateFile.length() < STATE_SIZE;
+        state = stateFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, STATE_SIZE);
+        if (newState) {
+            resetState();
+        } else {
+            nextSenderMsgSeqNum = state.getInt(STATE_NEXT_SENDER_SEQ);
+            nextTargetMsgSeqNum = state.getInt(STATE_NEXT_TARGET_SEQ);
+            creationTime = state.getLong(STATE_CREATION_TIME);
+            bodyEnd = state.getLong(STATE_BODY_END);
+            maxSequence = state.getInt(STATE_MAX_SEQUENCE);
+        }
+    }
+
+    private void resetState() throws IOException {
+        nextSenderMsgSeqNum = 1;
+        nextTargetMsgSeqNum = 1;
+        creationTime = SystemTime.currentTimeMillis();
+        bodyEnd = 0;
+        maxSequence = 0;
+        state.putInt(STATE_NEXT_SENDER_SEQ, nextSenderMsgSeqNum);
+        state.putInt(STATE_NEXT_TARGET_SEQ, nextTargetMsgSeqNum);
+        state.putLong(STATE_CREATION_TIME, creationTime);
+        state.putLong(STATE_BODY_END, bodyEnd);
+        state.putInt(STATE_MAX_SEQUENCE, maxSequence);
+        syncState();
+    }
+
+    /**
+     * Close the store's files. The mappings are released when they are garbage
+     * collected.
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        bodySegments.clear();
+        indexSegments.clear();
+        state = null;
+        closeFile(bodyFile);
+        closeFile(indexFile);
+        closeFile(stateFile);
+    }
+
+    private void closeFile(RandomAccessFile file) throws IOException {
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    public void deleteFiles() throws IOException {
+        close();
+        deleteFile(bodyFileName);
+        deleteFile(indexFileName);
+        deleteFile(stateFileName);
+    }
+
+    private void deleteFile(String fileName) throws IOException {
+        final File file = new File(fileName);
+        if (file.exists() && !file.delete()) {
+            System.err.println("File delete failed: " + fileName);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#getCreationTime()
+     */
+    public Date getCreationTime() throws IOException {
+        return new Date(creationTime);
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#getNextSenderMsgSeqNum()
+     */
+    public int getNextSenderMsgSeqNum() throws IOException {
+        return nextSenderMsgSeqNum;
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#getNextTargetMsgSeqNum()
+     */
+    public int getNextTargetMsgSeqNum() throws IOException {
+        return nextTargetMsgSeqNum;
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#setNextSenderMsgSeqNum(int)
+     */
+    public void setNextSenderMsgSeqNum(int next) throws IOException {
+        nextSenderMsgSeqNum = next;
+        state.putInt(STATE_NEXT_SENDER_SEQ, next);
+        syncState();
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#setNextTargetMsgSeqNum(int)
+     */
+    public void setNextTargetMsgSeqNum(int next) throws IOException {
+        nextTargetMsgSeqNum = next;
+        state.putInt(STATE_NEXT_TARGET_SEQ, next);
+        syncState();
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#incrNextSenderMsgSeqNum()
+     */
+    public void incrNextSenderMsgSeqNum() throws IOException {
+        setNextSenderMsgSeqNum(nextSenderMsgSeqNum + 1);
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#incrNextTargetMsgSeqNum()
+     */
+    public void incrNextTargetMsgSeqNum() throws IOException {
+        setNextTargetMsgSeqNum(nextTargetMsgSeqNum + 1);
+    }
+
+    private void syncState() {
+        if (syncWrites) {
+            state.force();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#set(int, java.lang.String)
+     */
+    public boolean set(int sequence, String message) throws IOException {
+        if (sequence < 1) {
+            return false;
+        }
+        final byte[] data = message.getBytes(charset);
+        final long offset = bodyEnd;
+        writeBody(offset, data);
+
+        final MappedByteBuffer indexSegment = getIndexSegment(sequence);
+        final int entry = getIndexEntryPosition(sequence);
+        indexSegment.putLong(entry + INDEX_OFFSET, offset);
+        indexSegment.putInt(entry + INDEX_SIZE, data.length);
+        indexSegment.putInt(entry + INDEX_SEQUENCE, sequence);
+        if (syncWrites) {
+            indexSegment.force();
+        }
+
+        bodyEnd = offset + data.length;
+        state.putLong(STATE_BODY_END, bodyEnd);
+        if (sequence > maxSequence) {
+            maxSequence = sequence;
+            state.putInt(STATE_MAX_SEQUENCE, maxSequence);
+        }
+        syncState();
+        return true;
+    }
+
+    private void writeBody(long offset, byte[] data) throws IOException {
+        int written = 0;
+        while (written < data.length) {
+            final long position = offset + written;
+            final MappedByteBuffer segment = getBodySegment((int) (position / BODY_SEGMENT_SIZE));
+            final int segmentPosition = (int) (position % BODY_SEGMENT_SIZE);
+            final int length = Math.min(data.length - written, BODY_SEGMENT_SIZE - segmentPosition);
+            // duplicate so the position of the shared segment is never changed
+            final ByteBuffer target = segment.duplicate();
+            target.position(segmentPosition);
+            target.put(data, written, length);
+            if (syncWrites) {
+                segment.force();
+            }
+            written += length;
+        }
+    }
+
+    private void readBody(long offset, byte[] data) throws IOException {
+        int read = 0;
+        while (read < data.length) {
+            final long position = offset + read;
+            final MappedByteBuffer segment = getBodySegment((int) (position / BODY_SEGMENT_SIZE));
+            final int segmentPosition = (int) (position % BODY_SEGMENT_SIZE);
+            final int length = Math.min(data.length - read, BODY_SEGMENT_SIZE - segmentPosition);
+            final ByteBuffer source = segment.duplicate();
+            source.position(segmentPosition);
+            source.get(data, read, length);
+            read += length;
+        }
+    }
+
+    private MappedByteBuffer getBodySegment(int index) throws IOException {
+        return getSegment(bodyFile, bodySegments, index, BODY_SEGMENT_SIZE);
+    }
+
+    private MappedByteBuffer getIndexSegment(int sequence) throws IOException {
+        return getSegment(indexFile, indexSegments, (sequence - 1) / INDEX_SEGMENT_ENTRIES,
+                INDEX_SEGMENT_SIZE);
+    }
+
+    private static int getIndexEntryPosition(int sequence) {
+        return ((sequence - 1) % INDEX_SEGMENT_ENTRIES) * INDEX_ENTRY_SIZE;
+    }
+
+    private static MappedByteBuffer getSegment(RandomAccessFile file, List<MappedByteBuffer> segments,
+            int index, int segmentSize) throws IOException {
+        while (segments.size() <= index) {
+            // mapping beyond the end of the file grows it
+            segments.add(file.getChannel().map(FileChannel.MapMode.READ_WRITE,
+                    (long) segments.size() * segmentSize, segmentSize));
+        }
+        return segments.get(index);
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#get(int, int, java.util.Collection)
+     */
+    public void get(int startSequence, int endSequence, Collection<String> messages)
+            throws IOException {
+        final int first = Math.max(startSequence, 1);
+        final int last = Math.min(endSequence, maxSequence);
+        for (int sequence = first; sequence <= last; sequence++) {
+            final String message = getMessage(sequence);
+            if (message != null) {
+                messages.add(message);
+            }
+        }
+    }
+
+    private String getMessage(int sequence) throws IOException {
+        final MappedByteBuffer indexSegment = getIndexSegment(sequence);
+        final int entry = getIndexEntryPosition(sequence);
+        if (indexSegment.getInt(entry + INDEX_SEQUENCE) != sequence) {
+            return null;
+        }
+        final long offset = indexSegment.getLong(entry + INDEX_OFFSET);
+        final byte[] data = new byte[indexSegment.getInt(entry + INDEX_SIZE)];
+        readBody(offset, data);
+        return new String(data, charset);
+    }
+
+    /**
+     * This method is here for JNI API consistency but it's not
+     * implemented. Use get(int, int, Collection) with the same
+     * start and end sequence.
+     */
+    public boolean get(int sequence, String message) throws IOException {
+        throw new UnsupportedOperationException("not supported");
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see quickfix.RefreshableMessageStore#refresh()
+     */
+    public void refresh() throws IOException {
+        initialize();
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#reset()
+     */
+    public void reset() throws IOException {
+        // clear the used part of the index instead of deleting the files, which
+        // is not possible on all platforms while they are mapped
+        for (int sequence = 1; sequence <= maxSequence; sequence++) {
+            getIndexSegment(sequence).putInt(getIndexEntryPosition(sequence) + INDEX_SEQUENCE, 0);
+        }
+        if (syncWrites) {
+            for (MappedByteBuffer segment : indexSegments) {
+                segment.force();
+            }
+        }
+        resetState();
+    }
+
+    String getBodyFileName() {
+        return bodyFileName;
+    }
+
+    String getIndexFileName() {
+        return indexFileName;
+    }
+
+    String getStateFileName() {
+        return stateFileName;
+    }
+}
@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+/**
+ * Creates a message store that keeps messages in memory-mapped files. Uses the
+ * FileStorePath and FileStoreSync settings of the {@link FileStoreFactory}.
+ *
+ * @see quickfix.MappedFileStore
+ */
+public class MappedFileStoreFactory extends FileStoreFactory {
+
+    /**
+     * Create the factory with configuration in session settings.
+     *
+     * @param settings
+     */
+    public MappedFileStoreFactory(SessionSettings settings) {
+        super(settings);
+    }
+
+    /**
+     * Creates a memory-mapped message store.
+     *
+     * @param sessionID session ID for the message store.
+     */
+    public MessageStore create(SessionID sessionID) {
+        try {
+            boolean syncWrites = false;
+            if (settings.isSetting(sessionID, SETTING_FILE_STORE_SYNC)) {
+                syncWrites = settings.getBool(sessionID, SETTING_FILE_STORE_SYNC);
+            }
+            return new MappedFileStore(settings.getString(sessionID, SETTING_FILE_STORE_PATH), sessionID, syncWrites);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
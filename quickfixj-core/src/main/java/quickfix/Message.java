@@ -20,9 +20,12 @@
 package quickfix;
 
 import java.io.ByteArrayOutputStream;
-import java.text.DecimalFormat;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.OutputKeys;
@@ -132,19 +135,30 @@ public class Message extends FieldMap {
     /**
      * Do not call this method concurrently while modifying the contents of the message.
      * This is likely to produce unexpected results or will fail with a ConcurrentModificationException
-     * since FieldMap.calculateString() is iterating over the TreeMap of fields.
+     * since FieldMap.calculateString() is iterating over the fields.
      */
     @Override
     public String toString() {
-        final int bodyLength = bodyLength();
-        header.setInt(BodyLength.FIELD, bodyLength);
-        trailer.setString(CheckSum.FIELD, checksum());
+        // The message is rendered once without BodyLength and CheckSum. Both are then
+        // computed from the rendered characters instead of rendering every field again.
+        header.removeField(BodyLength.FIELD);
+        trailer.removeField(CheckSum.FIELD);
 
-        final StringBuilder sb = new StringBuilder(bodyLength);
+        final StringBuilder sb = new StringBuilder(256);
         header.calculateString(sb, null, null);
+        final int bodyStart = header.isSetField(BeginString.FIELD) ? sb.indexOf("\001") + 1 : 0;
         calculateString(sb, null, null);
         trailer.calculateString(sb, null, null);
 
+        final Charset charset = CharsetSupport.getCharsetInstance();
+        final int bodyLength = length(charset, sb, bodyStart);
+        header.setInt(BodyLength.FIELD, bodyLength);
+        sb.insert(bodyStart, "9=" + bodyLength + '\001');
+
+        final String checksum = formatChecksum(checksum(charset, sb));
+        trailer.setString(CheckSum.FIELD, checksum);
+        sb.append("10=").append(checksum).append('\001');
+
         return sb.toString();
     }
 
@@ -152,11 +166,30 @@ public class Message extends FieldMap {
         return header.calculateLength() + calculateLength() + trailer.calculateLength();
     }
 
-    private static final DecimalFormat checksumFormat = new DecimalFormat("000");
+    private static int length(Charset charset, StringBuilder sb, int start) {
+        if (CharsetSupport.isStringEquivalent(charset)) {
+            return sb.length() - start;
+        }
+        return sb.substring(start).getBytes(charset).length;
+    }
 
-    private String checksum() {
-        return checksumFormat.format(
-            (header.calculateChecksum() + calculateChecksum() + trailer.calculateChecksum()) & 0xFF);
+    private static int checksum(Charset charset, StringBuilder sb) {
+        int sum = 0;
+        if (CharsetSupport.isStringEquivalent(charset)) {
+            for (int i = 0, len = sb.length(); i < len; i++) {
+                sum += sb.charAt(i);
+            }
+        } else {
+            for (byte b : sb.toString().getBytes(charset)) {
+                sum += b & 0xFF;
+            }
+        }
+        return sum & 0xFF;
+    }
+
+    private static String formatChecksum(int checksum) {
+        return new String(new char[] { (char) ('0' + checksum / 100),
+                (char) ('0' + checksum / 10 % 10), (char) ('0' + checksum % 10) });
     }
 
     public void headerAddGroup(Group group) {
@@ -510,7 +543,7 @@ public class Message extends FieldMap {
 
         StringField field = extractField(dd, header);
         while (field != null && isHeaderField(field, dd)) {
-            header.setField(field);
+            header.setField(field.getTag(), field);
 
             if (dd != null && dd.isGroup(DataDictionary.HEADER_ID, field.getField())) {
                 parseGroup(DataDictionary.HEADER_ID, field, dd, header);
@@ -526,7 +559,7 @@ public class Message extends FieldMap {
         if (field == null || field.getTag() != tag) {
             return false;
         }
-        fields.setField(field);
+        fields.setField(tag, field);
         return true;
     }
 
@@ -573,7 +606,7 @@ public class Message extends FieldMap {
         if (fields.isSetField(field)) {
             throw new FieldException(SessionRejectReason.TAG_APPEARS_MORE_THAN_ONCE, field.getTag());
         }
-        fields.setField(field);
+        fields.setField(field.getTag(), field);
     }
 
     private void parseGroup(String msgType, StringField field, DataDictionary dd, FieldMap parent)
@@ -600,8 +633,8 @@ public class Message extends FieldMap {
                 if (group != null) {
                     parent.addGroupRef(group);
                 }
-                group = new Group(groupCountTag, firstField, groupDataDictionary.getOrderedFields());
-                group.setField(field);
+                group = newGroup(groupCountTag, firstField, fieldOrder);
+                group.setField(tag, field);
                 firstFieldFound = true;
                 previousOffset = -1;
                 // QFJ-742
@@ -630,7 +663,7 @@ public class Message extends FieldMap {
                         previousOffset = offset;
                     }
                 }
-                group.setField(field);
+                group.setField(tag, field);
             } else {
                 pushBack(field);
                 inGroupParse = false;
@@ -651,7 +684,7 @@ public class Message extends FieldMap {
                 throw new FieldException(SessionRejectReason.TAG_SPECIFIED_OUT_OF_REQUIRED_ORDER,
                         field.getTag());
             }
-            trailer.setField(field);
+            trailer.setField(field.getTag(), field);
             field = extractField(dd, trailer);
         }
     }
@@ -723,6 +756,51 @@ public class Message extends FieldMap {
 
     private StringField pushedBackField;
 
+    // fields and groups of a recycled message, reused when it is parsed again
+    private transient List<LazyStringField> spareFields;
+    private transient Map<int[], List<Group>> spareGroups;
+
+    /**
+     * Clears the message so that it can be parsed again, keeping its parsed
+     * fields and groups for reuse. The message and anything taken from it
+     * must no longer be used by the application, see {@link MessagePool}.
+     */
+    void recycle() {
+        if (spareFields == null) {
+            spareFields = new ArrayList<LazyStringField>();
+            spareGroups = new IdentityHashMap<int[], List<Group>>();
+        }
+        header.recycle(spareFields, spareGroups);
+        recycle(spareFields, spareGroups);
+        trailer.recycle(spareFields, spareGroups);
+        clear();
+        messageData = null;
+        pushedBackField = null;
+        exception = null;
+    }
+
+    private LazyStringField newField(int tag, int begin, int end) {
+        if (spareFields != null && !spareFields.isEmpty()) {
+            final LazyStringField field = spareFields.remove(spareFields.size() - 1);
+            field.reset(tag, messageData, begin, end);
+            return field;
+        }
+        return new LazyStringField(tag, messageData, begin, end);
+    }
+
+    private Group newGroup(int countTag, int delim, int[] fieldOrder) {
+        if (spareGroups != null) {
+            final List<Group> spares = spareGroups.get(fieldOrder);
+            if (spares != null && !spares.isEmpty()) {
+                final Group group = spares.remove(spares.size() - 1);
+                if (group.getFieldTag() == countTag && group.delim() == delim) {
+                    return group;
+                }
+            }
+        }
+        return new Group(countTag, delim, fieldOrder);
+    }
+
     public void pushBack(StringField field) {
         pushedBackField = field;
     }
@@ -744,13 +822,7 @@ public class Message extends FieldMap {
             throw new InvalidMessage("Equal sign not found in field" + " in " + messageData);
         }
 
-        int tag;
-        try {
-            tag = Integer.parseInt(messageData.substring(position, equalsOffset));
-        } catch (final NumberFormatException e) {
-            position = messageData.indexOf('\001', position + 1) + 1;
-            throw new InvalidMessage("Bad tag format: " + e.getMessage() + " in " + messageData);
-        }
+        final int tag = parseTag(position, equalsOffset);
 
         int sohOffset = messageData.indexOf('\001', equalsOffset + 1);
         if (sohOffset == -1) {
@@ -785,7 +857,40 @@ public class Message extends FieldMap {
         }
 
         position = sohOffset + 1;
-        return new StringField(tag, messageData.substring(equalsOffset + 1, sohOffset));
+        return newField(tag, equalsOffset + 1, sohOffset);
+    }
+
+    /**
+     * Parses the tag number directly from the message string without
+     * creating an intermediate substring.
+     */
+    private int parseTag(int begin, int end) throws InvalidMessage {
+        // accepts what Integer.parseInt accepts, including a leading sign
+        int i = begin;
+        boolean negative = false;
+        if (end - begin > 1) {
+            final char sign = messageData.charAt(begin);
+            if (sign == '-' || sign == '+') {
+                negative = sign == '-';
+                i++;
+            }
+        }
+        // accumulated negatively so that Integer.MIN_VALUE fits
+        final int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        int tag = 0;
+        boolean valid = end > i;
+        for (; valid && i < end; i++) {
+            final int digit = messageData.charAt(i) - '0';
+            valid = digit >= 0 && digit <= 9 && tag >= (limit + digit) / 10;
+            tag = tag * 10 - digit;
+        }
+        if (!valid) {
+            final String tagString = messageData.substring(begin, end);
+            position = messageData.indexOf('\001', position + 1) + 1;
+            throw new InvalidMessage("Bad tag format: For input string: \"" + tagString + "\" in "
+                    + messageData);
+        }
+        return negative ? tag : -tag;
     }
 
     /**
@@ -32,6 +32,9 @@ import java.util.Map;
 /**
  * Helper class for delegating message types for various FIX versions to
  * type-safe onMessage methods.
+ *
+ * @see MessageCrackerProcessor for generating a cracker that calls the
+ *      handler methods without reflection
  */
 public class MessageCracker {
     private final Map<Class<?>, Invoker> invokers = new HashMap<Class<?>, Invoker>();
@@ -0,0 +1,301 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Annotation processor that generates a message cracker without reflection
+ * for each class with {@link MessageCracker.Handler} methods. For a handler
+ * class <code>MyApplication</code> it generates <code>MyApplicationCracker</code>
+ * in the same package, whose <code>crack</code> method switches on the
+ * message type and calls the handler methods directly:
+ *
+ * <pre>
+ * private final MyApplicationCracker cracker = new MyApplicationCracker(this);
+ *
+ * public void fromApp(Message message, SessionID sessionID) throws ... {
+ *     cracker.crack(message, sessionID);
+ * }
+ * </pre>
+ *
+ * A handler method takes a message class with a <code>MSGTYPE</code>
+ * constant, as generated for each FIX version, and a {@link SessionID}. A
+ * handler taking {@link Message} receives all other messages; without it,
+ * they are rejected with {@link UnsupportedMessageType}.
+ * <p>
+ * The processor is not registered as a service, so it must be enabled with
+ * the <code>-processor quickfix.MessageCrackerProcessor</code> compiler option.
+ */
+@SupportedAnnotationTypes("quickfix.MessageCracker.Handler")
+public class MessageCrackerProcessor extends AbstractProcessor {
+
+    private static final String MESSAGE_CLASS = Message.class.getName();
+    private static final String SESSION_ID_CLASS = SessionID.class.getName();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        final Map<TypeElement, List<ExecutableElement>> handlerMethods =
+                new LinkedHashMap<TypeElement, List<ExecutableElement>>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(MessageCracker.Handler.class)) {
+            if (element.getKind() != ElementKind.METHOD) {
+                continue;
+            }
+            final TypeElement handlerClass = (TypeElement) element.getEnclosingElement();
+            List<ExecutableElement> methods = handlerMethods.get(handlerClass);
+            if (methods == null) {
+                methods = new ArrayList<ExecutableElement>();
+                handlerMethods.put(handlerClass, methods);
+            }
+            methods.add((ExecutableElement) element);
+        }
+        for (Map.Entry<TypeElement, List<ExecutableElement>> entry : handlerMethods.entrySet()) {
+            generateCracker(entry.getKey(), entry.getValue());
+        }
+        return true;
+    }
+
+    private void generateCracker(TypeElement handlerClass, List<ExecutableElement> methods) {
+        final Types types = processingEnv.getTypeUtils();
+        // handlers by message type key, the most specific message class first
+        final Map<Integer, List<ExecutableElement>> handlers =
+                new TreeMap<Integer, List<ExecutableElement>>();
+        final Map<Integer, String> msgTypes = new TreeMap<Integer, String>();
+        ExecutableElement defaultHandler = null;
+        boolean valid = true;
+        for (ExecutableElement method : methods) {
+            if (!isValidHandler(method)) {
+                valid = false;
+                continue;
+            }
+            final TypeMirror messageType = method.getParameters().get(0).asType();
+            if (messageType.toString().equals(MESSAGE_CLASS)) {
+                if (defaultHandler != null) {
+                    error(method, "Duplicate handler method for " + MESSAGE_CLASS
+                            + ", original method is " + defaultHandler);
+                    valid = false;
+                }
+                defaultHandler = method;
+                continue;
+            }
+            final String msgType = getMsgType(types.asElement(messageType));
+            if (msgType == null) {
+                error(method, messageType + " has no MSGTYPE constant");
+                valid = false;
+                continue;
+            }
+            final int key = MessageUtils.getMsgTypeKey(msgType);
+            if (key == -1) {
+                error(method, "Unsupported message type " + msgType + " of " + messageType);
+                valid = false;
+                continue;
+            }
+            List<ExecutableElement> handlersOfType = handlers.get(key);
+            if (handlersOfType == null) {
+                handlersOfType = new ArrayList<ExecutableElement>();
+                handlers.put(key, handlersOfType);
+                msgTypes.put(key, msgType);
+            }
+            int index = 0;
+            for (; index < handlersOfType.size(); index++) {
+                final TypeMirror otherType = handlersOfType.get(index).getParameters().get(0)
+                        .asType();
+                if (types.isSameType(messageType, otherType)) {
+                    error(method, "Duplicate handler method for " + messageType
+                            + ", original method is " + handlersOfType.get(index));
+                    valid = false;
+                }
+                if (types.isSubtype(messageType, otherType)) {
+                    break;
+                }
+            }
+            handlersOfType.add(index, method);
+        }
+        if (!valid) {
+            return;
+        }
+
+        final String packageName = getPackageName(handlerClass);
+        final String crackerName = getCrackerName(handlerClass);
+        final String handlerName = handlerClass.getQualifiedName().toString();
+        try {
+            final PrintWriter out = new PrintWriter(processingEnv.getFiler()
+                    .createSourceFile(packageName.isEmpty() ? crackerName
+                            : packageName + "." + crackerName, handlerClass).openWriter());
+            try {
+                out.println("/* Generated Java Source File */");
+                if (!packageName.isEmpty()) {
+                    out.println("package " + packageName + ";");
+                }
+                out.println();
+                out.println("/**");
+                out.println(" * Dispatches messages to the handler methods of {@link " + handlerName
+                        + "}.");
+                out.println(" * Generated by " + getClass().getName() + ".");
+                out.println(" */");
+                out.println("public class " + crackerName + " {");
+                out.println();
+                out.println("    private final " + handlerName + " handler;");
+                out.println();
+                out.println("    public " + crackerName + "(" + handlerName + " handler) {");
+                out.println("        this.handler = handler;");
+                out.println("    }");
+                out.println();
+                out.println("    public void crack(quickfix.Message message, quickfix.SessionID sessionID)");
+                out.println("            throws quickfix.FieldNotFound, quickfix.UnsupportedMessageType,");
+                out.println("            quickfix.IncorrectTagValue {");
+                out.println("        switch (quickfix.MessageUtils.getMsgTypeKey(");
+                out.println("                message.getHeader().getString(quickfix.field.MsgType.FIELD))) {");
+                for (Map.Entry<Integer, List<ExecutableElement>> entry : handlers.entrySet()) {
+                    out.println("        case " + entry.getKey() + ": // " + msgTypes.get(entry.getKey()));
+                    for (ExecutableElement method : entry.getValue()) {
+                        final String messageClass = types.erasure(
+                                method.getParameters().get(0).asType()).toString();
+                        out.println("            if (message instanceof " + messageClass + ") {");
+                        out.println("                handler." + method.getSimpleName() + "(("
+                                + messageClass + ") message, sessionID);");
+                        out.println("                return;");
+                        out.println("            }");
+                    }
+                    out.println("            break;");
+                }
+                out.println("        default:");
+                out.println("            break;");
+                out.println("        }");
+                if (defaultHandler != null) {
+                    out.println("        handler." + defaultHandler.getSimpleName()
+                            + "(message, sessionID);");
+                } else {
+                    out.println("        throw new quickfix.UnsupportedMessageType();");
+                }
+                out.println("    }");
+                out.println("}");
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            error(handlerClass, "Cannot generate " + crackerName + ": " + e);
+        }
+    }
+
+    private boolean isValidHandler(ExecutableElement method) {
+        final Set<Modifier> modifiers = method.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC)) {
+            error(method, "Handler method must not be private or static");
+            return false;
+        }
+        final List<? extends VariableElement> parameters = method.getParameters();
+        if (parameters.size() != 2
+                || !isSubtype(parameters.get(0).asType(), MESSAGE_CLASS)
+                || !parameters.get(1).asType().toString().equals(SESSION_ID_CLASS)) {
+            error(method, "Handler method must take a message and a session ID");
+            return false;
+        }
+        for (TypeMirror thrownType : method.getThrownTypes()) {
+            if (!isSubtype(thrownType, RuntimeException.class.getName())
+                    && !isSubtype(thrownType, Error.class.getName())
+                    && !isSubtype(thrownType, FieldNotFound.class.getName())
+                    && !isSubtype(thrownType, UnsupportedMessageType.class.getName())
+                    && !isSubtype(thrownType, IncorrectTagValue.class.getName())) {
+                error(method, "Handler method must not throw " + thrownType);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isSubtype(TypeMirror type, String className) {
+        final TypeElement classElement = processingEnv.getElementUtils().getTypeElement(className);
+        return type.getKind() == TypeKind.DECLARED && classElement != null
+                && processingEnv.getTypeUtils().isSubtype(type, classElement.asType());
+    }
+
+    private String getMsgType(Element messageClass) {
+        Element element = messageClass;
+        while (element instanceof TypeElement) {
+            for (VariableElement field : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+                if (field.getSimpleName().contentEquals("MSGTYPE")
+                        && field.getConstantValue() instanceof String) {
+                    return (String) field.getConstantValue();
+                }
+            }
+            element = processingEnv.getTypeUtils().asElement(
+                    ((TypeElement) element).getSuperclass());
+        }
+        return null;
+    }
+
+    private static String getPackageName(TypeElement type) {
+        Element element = type;
+        while (!(element instanceof PackageElement)) {
+            element = element.getEnclosingElement();
+        }
+        return ((PackageElement) element).getQualifiedName().toString();
+    }
+
+    /**
+     * @return the name of the cracker, for a nested class prefixed with the
+     *         names of the enclosing classes
+     */
+    private static String getCrackerName(TypeElement type) {
+        final StringBuilder name = new StringBuilder(type.getSimpleName()).append("Cracker");
+        TypeElement element = type;
+        while (element.getNestingKind() == NestingKind.MEMBER) {
+            element = (TypeElement) element.getEnclosingElement();
+            name.insert(0, '_').insert(0, element.getSimpleName());
+        }
+        return name.toString();
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
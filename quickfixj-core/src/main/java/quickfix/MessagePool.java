@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import quickfix.field.MsgType;
+
+/**
+ * Recycles inbound application messages of a session. When a session has a
+ * pool, each application message is released to it after
+ * {@link Application#fromApp(Message, SessionID)} returns. The next message of
+ * the same type is then parsed into the released instance, reusing its field
+ * storage, its parsed fields and its repeating groups instead of allocating
+ * new ones.
+ * <p>
+ * <b>Only use a pool if the application does not keep a reference to an
+ * inbound message, or to any field, group or component taken from it, after
+ * fromApp returns.</b> Copy what is needed, e.g. with {@link Message#clone()}
+ * or the typed getters, which copy the values into the given field.
+ * <p>
+ * Released messages are kept per message type, up to the capacity of the pool.
+ * The pool assumes that the session's message factory always creates the same
+ * class for a message type.
+ */
+public class MessagePool {
+
+    private final int capacity;
+    private final Map<String, List<Message>> messages = new HashMap<String, List<Message>>();
+
+    /**
+     * @param capacity the maximum number of released messages kept per
+     *            message type
+     */
+    public MessagePool(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid message pool capacity: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Takes a released message out of the pool.
+     *
+     * @param msgType the message type
+     * @return an empty message, or null if no message of the type is pooled
+     */
+    public synchronized Message acquire(String msgType) {
+        final List<Message> pooled = messages.get(msgType);
+        if (pooled == null || pooled.isEmpty()) {
+            return null;
+        }
+        return pooled.remove(pooled.size() - 1);
+    }
+
+    /**
+     * Clears a message that is no longer used and keeps it for reuse.
+     *
+     * @param message the message
+     */
+    public void release(Message message) {
+        final String msgType;
+        try {
+            msgType = message.getHeader().getString(MsgType.FIELD);
+        } catch (final FieldNotFound e) {
+            return;
+        }
+        message.recycle();
+        synchronized (this) {
+            List<Message> pooled = messages.get(msgType);
+            if (pooled == null) {
+                pooled = new ArrayList<Message>(capacity);
+                messages.put(msgType, pooled);
+            }
+            if (pooled.size() < capacity) {
+                pooled.add(message);
+            }
+        }
+    }
+}
@@ -29,7 +29,6 @@ import org.quickfixj.QFJException;
 import quickfix.Message.Header;
 import quickfix.field.ApplVerID;
 import quickfix.field.BeginString;
-import quickfix.field.DefaultApplVerID;
 import quickfix.field.MsgType;
 import quickfix.field.SenderCompID;
 import quickfix.field.SenderLocationID;
@@ -52,12 +51,7 @@ public class MessageUtils {
     }
 
     public static SessionID getSessionID(String messageString) {
-        return new SessionID(getStringField(messageString, BeginString.FIELD), getStringField(
-                messageString, SenderCompID.FIELD),
-                getStringField(messageString, SenderSubID.FIELD), getStringField(messageString,
-                        SenderLocationID.FIELD), getStringField(messageString, TargetCompID.FIELD),
-                getStringField(messageString, TargetSubID.FIELD), getStringField(messageString,
-                        TargetLocationID.FIELD), null);
+        return new RawMessageHeader().scan(messageString).getSessionID();
     }
 
     public static SessionID getReverseSessionID(Message fixMessage) {
@@ -70,12 +64,7 @@ public class MessageUtils {
     }
 
     public static SessionID getReverseSessionID(String messageString) {
-        return new SessionID(getStringField(messageString, BeginString.FIELD), getStringField(
-                messageString, TargetCompID.FIELD),
-                getStringField(messageString, TargetSubID.FIELD), getStringField(messageString,
-                        TargetLocationID.FIELD), getStringField(messageString, SenderCompID.FIELD),
-                getStringField(messageString, SenderSubID.FIELD), getStringField(messageString,
-                        SenderLocationID.FIELD), null);
+        return new RawMessageHeader().scan(messageString).getReverseSessionID();
     }
 
     private static String getFieldOrDefault(FieldMap fields, int tag, String defaultValue) {
@@ -123,13 +112,30 @@ public class MessageUtils {
      * @throws InvalidMessage
      */
     public static Message parse(Session session, String messageString) throws InvalidMessage {
-        final String beginString = getStringField(messageString, BeginString.FIELD);
-        final String msgType = getMessageType(messageString);
+        return parse(session, messageString, new RawMessageHeader().scan(messageString));
+    }
+
+    /**
+     * Parses a message whose header fields have already been extracted.
+     *
+     * @param session the session that received the message
+     * @param messageString the raw message
+     * @param header the header fields of messageString
+     * @return the parsed message
+     * @throws InvalidMessage if the message cannot be parsed
+     */
+    public static Message parse(Session session, String messageString, RawMessageHeader header)
+            throws InvalidMessage {
+        final String beginString = header.getBeginString();
+        final String msgType = header.getMsgType();
+        if (msgType == null) {
+            throw new InvalidMessage("Missing or garbled message type in " + messageString);
+        }
 
         ApplVerID applVerID;
 
         if (FixVersions.BEGINSTRING_FIXT11.equals(beginString)) {
-            applVerID = getApplVerID(session, messageString);
+            applVerID = getApplVerID(session, header);
         } else {
             applVerID = toApplVerID(beginString);
         }
@@ -142,7 +148,14 @@ public class MessageUtils {
         final DataDictionary applicationDataDictionary = ddProvider == null ? null : ddProvider
                 .getApplicationDataDictionary(applVerID);
 
-        final quickfix.Message message = messageFactory.create(beginString, msgType);
+        quickfix.Message message = null;
+        final MessagePool messagePool = session.getMessagePool();
+        if (messagePool != null && session.getSessionID().getBeginString().equals(beginString)) {
+            message = messagePool.acquire(msgType);
+        }
+        if (message == null) {
+            message = messageFactory.create(beginString, msgType);
+        }
         final DataDictionary payloadDictionary = MessageUtils.isAdminMessage(msgType)
                 ? sessionDataDictionary
                 : applicationDataDictionary;
@@ -153,11 +166,11 @@ public class MessageUtils {
         return message;
     }
 
-    private static ApplVerID getApplVerID(Session session, String messageString)
+    private static ApplVerID getApplVerID(Session session, RawMessageHeader header)
             throws InvalidMessage {
         ApplVerID applVerID = null;
 
-        final String applVerIdString = getStringField(messageString, ApplVerID.FIELD);
+        final String applVerIdString = header.getApplVerID();
         if (applVerIdString != null) {
             applVerID = new ApplVerID(applVerIdString);
         }
@@ -166,9 +179,8 @@ public class MessageUtils {
             applVerID = session.getTargetDefaultApplicationVersionID();
         }
 
-        if (applVerID == null && isLogon(messageString)) {
-            final String defaultApplVerIdString = getStringField(messageString,
-                    DefaultApplVerID.FIELD);
+        if (applVerID == null && MsgType.LOGON.equals(header.getMsgType())) {
+            final String defaultApplVerIdString = header.getDefaultApplVerID();
             if (defaultApplVerIdString != null) {
                 applVerID = new ApplVerID(defaultApplVerIdString);
             }
@@ -185,6 +197,31 @@ public class MessageUtils {
         return msgType.length() == 1 && "0A12345".contains(msgType);
     }
 
+    /**
+     * Packs the characters of a message type into an int, so message types can
+     * be dispatched with a switch on constant expressions like
+     * <code>'D'</code> for "D" or <code>'A' &lt;&lt; 8 | 'E'</code> for "AE".
+     *
+     * @param msgType the message type
+     * @return the key of the message type, or -1 if it is empty, longer than
+     *         four characters or contains characters other than ASCII
+     */
+    public static int getMsgTypeKey(String msgType) {
+        final int length = msgType.length();
+        if (length == 0 || length > 4) {
+            return -1;
+        }
+        int key = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = msgType.charAt(i);
+            if (c > 0x7f) {
+                return -1;
+            }
+            key = key << 8 | c;
+        }
+        return key;
+    }
+
     public static boolean isHeartbeat(String message) {
         return isMessageType(message, MsgType.HEARTBEAT);
     }
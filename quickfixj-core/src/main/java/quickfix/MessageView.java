@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix;
+
+import java.util.Arrays;
+
+import quickfix.field.SessionRejectReason;
+import quickfix.field.converter.DecimalConverter;
+import quickfix.field.converter.DoubleConverter;
+import quickfix.field.converter.IntConverter;
+import quickfix.field.converter.LongConverter;
+import quickfix.field.converter.UtcTimestampConverter;
+
+/**
+ * A read-only flyweight over the fields of a raw message string. The fields
+ * are looked up in a {@link FieldIndex} and their values are parsed directly
+ * from the message string, so reading a field creates no objects, except for
+ * {@link #getString(int)}. This makes reading a few fields of a wide message
+ * much cheaper than parsing it into a {@link Message}.
+ * <p>
+ * The code generator creates a subclass with typed getters for each message
+ * type (for example <code>ExecutionReportView</code>) and for each of its
+ * repeating groups, when the <code>messageViews</code> option is enabled. A
+ * view is reused by wrapping the next message; group views are reused by
+ * passing them to the group getter. A view is not thread safe.
+ * <p>
+ * Fields are not validated against a data dictionary. The first occurrence
+ * of a field within the view is returned, so a message level getter may
+ * return a field of a repeating group if the message does not contain the
+ * field outside of the group.
+ */
+public abstract class MessageView {
+    private FieldIndex ownIndex;
+    private FieldIndex fieldIndex;
+    private int begin;
+    private int end;
+
+    /**
+     * Indexes a message string and makes it the content of this view.
+     *
+     * @param messageData the raw message
+     */
+    public void wrap(String messageData) {
+        if (ownIndex == null) {
+            ownIndex = new FieldIndex();
+        }
+        ownIndex.index(messageData);
+        wrap(ownIndex, 0, ownIndex.size());
+    }
+
+    /**
+     * Makes a range of indexed fields the content of this view.
+     *
+     * @param fieldIndex the index of the message
+     * @param begin the position of the first field of the view
+     * @param end the position after the last field of the view
+     */
+    public void wrap(FieldIndex fieldIndex, int begin, int end) {
+        this.fieldIndex = fieldIndex;
+        this.begin = begin;
+        this.end = end;
+    }
+
+    /**
+     * @return the index of the wrapped message
+     */
+    public FieldIndex getFieldIndex() {
+        return fieldIndex;
+    }
+
+    public boolean isSetField(int field) {
+        return fieldIndex.find(field, begin, end) != -1;
+    }
+
+    /**
+     * Gets the value of a field. Unlike the other getters, this creates a
+     * String.
+     */
+    public String getString(int field) throws FieldNotFound {
+        return getValue(getPosition(field));
+    }
+
+    public boolean getBoolean(int field) throws FieldNotFound {
+        final int position = getPosition(field);
+        final int start = fieldIndex.getValueStart(position);
+        if (fieldIndex.getValueEnd(position) - start == 1) {
+            final char c = fieldIndex.getMessageData().charAt(start);
+            if (c == 'Y') {
+                return true;
+            } else if (c == 'N') {
+                return false;
+            }
+        }
+        throw newIncorrectDataException(new FieldConvertError("invalid boolean value: "
+                + getValue(position)), field);
+    }
+
+    public char getChar(int field) throws FieldNotFound {
+        final int position = getPosition(field);
+        final int start = fieldIndex.getValueStart(position);
+        if (fieldIndex.getValueEnd(position) - start != 1) {
+            throw newIncorrectDataException(new FieldConvertError("invalid character value: "
+                    + getValue(position)), field);
+        }
+        return fieldIndex.getMessageData().charAt(start);
+    }
+
+    public int getInt(int field) throws FieldNotFound {
+        final int position = getPosition(field);
+        try {
+            return IntConverter.convert(fieldIndex.getMessageData(),
+                    fieldIndex.getValueStart(position), fieldIndex.getValueEnd(position));
+        } catch (final FieldConvertError e) {
+            throw newIncorrectDataException(e, field);
+        }
+    }
+
+    public long getLong(int field) throws FieldNotFound {
+        final int position = getPosition(field);
+        try {
+            return LongConverter.convert(fieldIndex.getMessageData(),
+                    fieldIndex.getValueStart(position), fieldIndex.getValueEnd(position));
+        } catch (final FieldConvertError e) {
+            throw newIncorrectDataException(e, field);
+        }
+    }
+
+    public double getDouble(int field) throws FieldNotFound {
+        final int position = getPosition(field);
+        try {
+            return DoubleConverter.convert(fieldIndex.getMessageData(),
+                    fieldIndex.getValueStart(position), fieldIndex.getValueEnd(position));
+        } catch (final FieldConvertError e) {
+            throw newIncorrectDataException(e, field);
+        }
+    }
+
+    /**
+     * Gets a decimal field as a fixed-point value.
+     *
+     * @param field the tag
+     * @param scale the number of decimal places of the result, 0 to 18
+     * @return the value multiplied by 10 to the power of scale
+     * @throws FieldNotFound if the field is not set
+     * @throws FieldException if the value is not a decimal, has more significant
+     *             decimal places than the scale or does not fit into a long
+     * @see FieldMap#getScaledDecimal(int, int)
+     */
+    public long getScaledDecimal(int field, int scale) throws FieldNotFound {
+        final int position = getPosition(field);
+        try {
+            return DecimalConverter.convertScaled(fieldIndex.getMessageData(),
+                    fieldIndex.getValueStart(position), fieldIndex.getValueEnd(position), scale);
+        } catch (final FieldConvertError e) {
+            throw newIncorrectDataException(e, field);
+        }
+    }
+
+    /**
+     * Gets a timestamp field as milliseconds since 1970-01-01 UTC.
+     */
+    public long getUtcTimeStampMillis(int field) throws FieldNotFound {
+        final int position = getPosition(field);
+        try {
+            return UtcTimestampConverter.convertToMillis(fieldIndex.getMessageData(),
+                    fieldIndex.getValueStart(position), fieldIndex.getValueEnd(position));
+        } catch (final FieldConvertError e) {
+            throw newIncorrectDataException(e, field);
+        }
+    }
+
+    /**
+     * Gets a timestamp field as nanoseconds since 1970-01-01 UTC.
+     */
+    public long getUtcTimeStampNanos(int field) throws FieldNotFound {
+        final int position = getPosition(field);
+        try {
+            return UtcTimestampConverter.convertToNanos(fieldIndex.getMessageData(),
+                    fieldIndex.getValueStart(position), fieldIndex.getValueEnd(position));
+        } catch (final FieldConvertError e) {
+            throw newIncorrectDataException(e, field);
+        }
+    }
+
+    /**
+     * Makes a group view the view of an instance of a repeating group of this
+     * view. The instance extends from its delimiter field up to the next
+     * delimiter field or the first field that is not a field of the group.
+     *
+     * @param num the number of the instance, starting at 1
+     * @param group the group view to wrap the instance
+     * @param groupTag the tag of the group count field
+     * @param delimiter the tag of the first field of the group
+     * @param groupTags the sorted tags of all fields of the group, including
+     *            those of nested groups
+     * @return the group view
+     * @throws FieldNotFound if the group or the instance is not found
+     * @see #groupTags(int...)
+     */
+    protected <T extends MessageView> T getGroup(int num, T group, int groupTag, int delimiter,
+            int[] groupTags) throws FieldNotFound {
+        final int countPosition = fieldIndex.find(groupTag, begin, end);
+        int groupBegin = -1;
+        if (countPosition != -1) {
+            int instance = 0;
+            int position = countPosition + 1;
+            for (; position < end; position++) {
+                final int tag = fieldIndex.getTag(position);
+                if (tag == delimiter) {
+                    if (groupBegin != -1) {
+                        break;
+                    }
+                    if (++instance == num) {
+                        groupBegin = position;
+                    }
+                } else if (Arrays.binarySearch(groupTags, tag) < 0) {
+                    break;
+                }
+            }
+            if (groupBegin != -1) {
+                group.wrap(fieldIndex, groupBegin, position);
+                return group;
+            }
+        }
+        throw new FieldNotFound(groupTag + ", index=" + num);
+    }
+
+    /**
+     * @return the tags sorted for {@link #getGroup(int, MessageView, int, int, int[])}
+     */
+    protected static int[] groupTags(int... tags) {
+        final int[] sortedTags = tags.clone();
+        Arrays.sort(sortedTags);
+        return sortedTags;
+    }
+
+    private int getPosition(int field) throws FieldNotFound {
+        final int position = fieldIndex.find(field, begin, end);
+        if (position == -1) {
+            throw new FieldNotFound(field);
+        }
+        return position;
+    }
+
+    private String getValue(int position) {
+        return fieldIndex.getMessageData().substring(fieldIndex.getValueStart(position),
+                fieldIndex.getValueEnd(position));
+    }
+
+    private FieldException newIncorrectDataException(FieldConvertError e, int tag) {
+        return new FieldException(SessionRejectReason.INCORRECT_DATA_FORMAT_FOR_VALUE,
+                e.getMessage(), tag);
+    }
+}
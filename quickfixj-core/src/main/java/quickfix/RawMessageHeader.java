@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import quickfix.field.ApplVerID;
+import quickfix.field.BeginString;
+import quickfix.field.DefaultApplVerID;
+import quickfix.field.MsgSeqNum;
+import quickfix.field.MsgType;
+import quickfix.field.SenderCompID;
+import quickfix.field.SenderLocationID;
+import quickfix.field.SenderSubID;
+import quickfix.field.TargetCompID;
+import quickfix.field.TargetLocationID;
+import quickfix.field.TargetSubID;
+
+/**
+ * The fields of a raw message string that are needed before the message is
+ * parsed: to find its session, to select the message factory and data
+ * dictionaries, and to report invalid messages. They are extracted in a single
+ * pass over the string. An instance can be reused by scanning the next message.
+ * <p>
+ * Like {@link MessageUtils#getStringField(String, int)}, the first occurrence
+ * of a field is used and a field without a terminating SOH is ignored.
+ */
+public final class RawMessageHeader {
+    private static final char FIELD_SEPARATOR = '\001';
+
+    private String beginString;
+    private String senderCompID;
+    private String senderSubID;
+    private String senderLocationID;
+    private String targetCompID;
+    private String targetSubID;
+    private String targetLocationID;
+    private String msgType;
+    private int msgSeqNum;
+    private String applVerID;
+    private String defaultApplVerID;
+
+    /**
+     * Extracts the header fields of a message string, replacing the fields of
+     * the previously scanned message.
+     *
+     * @param messageString the raw message
+     * @return this header
+     */
+    public RawMessageHeader scan(String messageString) {
+        clear();
+        final int length = messageString.length();
+        int position = 0;
+        while (position < length) {
+            int tag = 0;
+            int index = position;
+            char c = 0;
+            while (index < length && (c = messageString.charAt(index)) >= '0' && c <= '9') {
+                tag = tag * 10 + (c - '0');
+                index++;
+            }
+            final int valueEnd = messageString.indexOf(FIELD_SEPARATOR, index);
+            if (valueEnd == -1) {
+                break;
+            }
+            if (c == '=' && index > position) {
+                setField(tag, messageString, index + 1, valueEnd);
+            }
+            position = valueEnd + 1;
+        }
+        return this;
+    }
+
+    private void clear() {
+        beginString = null;
+        senderCompID = null;
+        senderSubID = null;
+        senderLocationID = null;
+        targetCompID = null;
+        targetSubID = null;
+        targetLocationID = null;
+        msgType = null;
+        msgSeqNum = 0;
+        applVerID = null;
+        defaultApplVerID = null;
+    }
+
+    private void setField(int tag, String messageString, int start, int end) {
+        switch (tag) {
+        case BeginString.FIELD:
+            if (beginString == null) {
+                beginString = messageString.substring(start, end);
+            }
+            break;
+        case SenderCompID.FIELD:
+            if (senderCompID == null) {
+                senderCompID = messageString.substring(start, end);
+            }
+            break;
+        case SenderSubID.FIELD:
+            if (senderSubID == null) {
+                senderSubID = messageString.substring(start, end);
+            }
+            break;
+        case SenderLocationID.FIELD:
+            if (senderLocationID == null) {
+                senderLocationID = messageString.substring(start, end);
+            }
+            break;
+        case TargetCompID.FIELD:
+            if (targetCompID == null) {
+                targetCompID = messageString.substring(start, end);
+            }
+            break;
+        case TargetSubID.FIELD:
+            if (targetSubID == null) {
+                targetSubID = messageString.substring(start, end);
+            }
+            break;
+        case TargetLocationID.FIELD:
+            if (targetLocationID == null) {
+                targetLocationID = messageString.substring(start, end);
+            }
+            break;
+        case MsgType.FIELD:
+            if (msgType == null) {
+                msgType = messageString.substring(start, end);
+            }
+            break;
+        case MsgSeqNum.FIELD:
+            if (msgSeqNum == 0) {
+                msgSeqNum = parseSeqNum(messageString, start, end);
+            }
+            break;
+        case ApplVerID.FIELD:
+            if (applVerID == null) {
+                applVerID = messageString.substring(start, end);
+            }
+            break;
+        case DefaultApplVerID.FIELD:
+            if (defaultApplVerID == null) {
+                defaultApplVerID = messageString.substring(start, end);
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    private static int parseSeqNum(String messageString, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            final char c = messageString.charAt(i);
+            if (c < '0' || c > '9' || value > (Integer.MAX_VALUE - 9) / 10) {
+                return 0;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    public String getBeginString() {
+        return beginString;
+    }
+
+    public String getSenderCompID() {
+        return senderCompID;
+    }
+
+    public String getSenderSubID() {
+        return senderSubID;
+    }
+
+    public String getSenderLocationID() {
+        return senderLocationID;
+    }
+
+    public String getTargetCompID() {
+        return targetCompID;
+    }
+
+    public String getTargetSubID() {
+        return targetSubID;
+    }
+
+    public String getTargetLocationID() {
+        return targetLocationID;
+    }
+
+    /**
+     * @return the message type, or null if the message has none
+     */
+    public String getMsgType() {
+        return msgType;
+    }
+
+    /**
+     * @return the message sequence number, or 0 if it is missing or not a number
+     */
+    public int getMsgSeqNum() {
+        return msgSeqNum;
+    }
+
+    public String getApplVerID() {
+        return applVerID;
+    }
+
+    public String getDefaultApplVerID() {
+        return defaultApplVerID;
+    }
+
+    /**
+     * @return the ID of the session that sent the message
+     */
+    public SessionID getSessionID() {
+        return new SessionID(beginString, senderCompID, senderSubID, senderLocationID,
+                targetCompID, targetSubID, targetLocationID, null);
+    }
+
+    /**
+     * @return the ID of the session that receives the message
+     */
+    public SessionID getReverseSessionID() {
+        return new SessionID(beginString, targetCompID, targetSubID, targetLocationID,
+                senderCompID, senderSubID, senderLocationID, null);
+    }
+}
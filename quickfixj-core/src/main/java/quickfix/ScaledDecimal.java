@@ -0,0 +1,260 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import quickfix.field.converter.DecimalConverter;
+
+/**
+ * An immutable fixed-point decimal: an unscaled long value and the number of
+ * decimal places (0 to 18). It is an exact alternative to double and a compact
+ * alternative to BigDecimal for prices, quantities and amounts.
+ * <p>
+ * Values are compared numerically, so 1.5 (15, scale 1) equals 1.50 (150,
+ * scale 2).
+ */
+public final class ScaledDecimal extends Number implements Comparable<ScaledDecimal> {
+
+    static final long serialVersionUID = 1L;
+
+    /**
+     * The largest supported number of decimal places.
+     */
+    public static final int MAX_SCALE = 18;
+
+    public static final ScaledDecimal ZERO = new ScaledDecimal(0, 0);
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final long unscaledValue;
+    private final int scale;
+
+    private ScaledDecimal(long unscaledValue, int scale) {
+        this.unscaledValue = unscaledValue;
+        this.scale = scale;
+    }
+
+    /**
+     * @param unscaledValue the value multiplied by 10 to the power of scale
+     * @param scale the number of decimal places, 0 to 18
+     * @return the decimal unscaledValue / 10^scale
+     */
+    public static ScaledDecimal valueOf(long unscaledValue, int scale) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Invalid decimal scale: " + scale);
+        }
+        return unscaledValue == 0 && scale == 0 ? ZERO : new ScaledDecimal(unscaledValue, scale);
+    }
+
+    /**
+     * @param value a long value
+     * @return the decimal with scale 0
+     */
+    public static ScaledDecimal valueOf(long value) {
+        return valueOf(value, 0);
+    }
+
+    /**
+     * Converts a BigDecimal exactly.
+     *
+     * @param value the decimal
+     * @return the decimal with the scale of the value, or with trailing zeros
+     *         removed if that scale is negative or above 18
+     * @throws ArithmeticException if the value has more than 18 significant
+     *             decimal places or does not fit into a long
+     */
+    public static ScaledDecimal valueOf(BigDecimal value) {
+        BigDecimal decimal = value;
+        if (decimal.scale() < 0) {
+            decimal = decimal.setScale(0);
+        } else if (decimal.scale() > MAX_SCALE) {
+            decimal = decimal.stripTrailingZeros();
+            if (decimal.scale() < 0) {
+                decimal = decimal.setScale(0);
+            } else if (decimal.scale() > MAX_SCALE) {
+                throw new ArithmeticException("Decimal exceeds scale " + MAX_SCALE + ": " + value);
+            }
+        }
+        final BigInteger unscaled = decimal.unscaledValue();
+        if (unscaled.bitLength() > 63) {
+            throw new ArithmeticException("Decimal out of range: " + value);
+        }
+        return valueOf(unscaled.longValue(), decimal.scale());
+    }
+
+    /**
+     * @return the value multiplied by 10 to the power of the scale
+     */
+    public long getUnscaledValue() {
+        return unscaledValue;
+    }
+
+    /**
+     * @return the number of decimal places
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * Converts the value to another scale without rounding.
+     *
+     * @param newScale the number of decimal places of the result, 0 to 18
+     * @return the value multiplied by 10 to the power of newScale
+     * @throws ArithmeticException if the value has more significant decimal
+     *             places than newScale or the result does not fit into a long
+     */
+    public long toScaled(int newScale) {
+        if (newScale < 0 || newScale > MAX_SCALE) {
+            throw new IllegalArgumentException("Invalid decimal scale: " + newScale);
+        }
+        if (newScale < scale) {
+            final long divisor = POWERS_OF_TEN[scale - newScale];
+            if (unscaledValue % divisor != 0) {
+                throw new ArithmeticException("Decimal exceeds scale " + newScale + ": " + this);
+            }
+            return unscaledValue / divisor;
+        }
+        final long result = multiplyByPowerOfTen(unscaledValue, newScale - scale);
+        // a multiple of ten is never Long.MIN_VALUE, so that signals an overflow
+        if (newScale > scale && result == Long.MIN_VALUE) {
+            throw new ArithmeticException("Decimal out of range for scale " + newScale + ": " + this);
+        }
+        return result;
+    }
+
+    /**
+     * @param newScale the number of decimal places of the result, 0 to 18
+     * @return this value with the new scale
+     * @throws ArithmeticException if the value cannot be represented exactly
+     * @see #toScaled(int)
+     */
+    public ScaledDecimal setScale(int newScale) {
+        return newScale == scale ? this : valueOf(toScaled(newScale), newScale);
+    }
+
+    /**
+     * @return this value with the smallest scale that represents it exactly
+     */
+    public ScaledDecimal stripTrailingZeros() {
+        long n = unscaledValue;
+        int s = scale;
+        while (s > 0 && n % 10 == 0) {
+            n /= 10;
+            s--;
+        }
+        return s == scale ? this : valueOf(n, s);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(unscaledValue, scale);
+    }
+
+    @Override
+    public int intValue() {
+        return (int) longValue();
+    }
+
+    /**
+     * @return the integral part of the value
+     */
+    @Override
+    public long longValue() {
+        return unscaledValue / POWERS_OF_TEN[scale];
+    }
+
+    @Override
+    public float floatValue() {
+        return (float) doubleValue();
+    }
+
+    /**
+     * @return the nearest double to the value
+     */
+    @Override
+    public double doubleValue() {
+        // both operands are exact doubles, so the quotient is correctly rounded
+        if (Math.abs(unscaledValue) < (1L << 53)) {
+            return (double) unscaledValue / POWERS_OF_TEN[scale];
+        }
+        return Double.parseDouble(toString());
+    }
+
+    public int compareTo(ScaledDecimal other) {
+        if (scale == other.scale) {
+            return compare(unscaledValue, other.unscaledValue);
+        }
+        final int commonScale = Math.max(scale, other.scale);
+        final long left = multiplyByPowerOfTen(unscaledValue, commonScale - scale);
+        final long right = multiplyByPowerOfTen(other.unscaledValue, commonScale - other.scale);
+        if (left == Long.MIN_VALUE || right == Long.MIN_VALUE) {
+            return toBigDecimal().compareTo(other.toBigDecimal());
+        }
+        return compare(left, right);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof ScaledDecimal && compareTo((ScaledDecimal) obj) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        final ScaledDecimal stripped = stripTrailingZeros();
+        return 31 * (int) (stripped.unscaledValue ^ (stripped.unscaledValue >>> 32))
+                + stripped.scale;
+    }
+
+    /**
+     * @return the plain decimal representation without trailing zeros
+     */
+    @Override
+    public String toString() {
+        return DecimalConverter.convertScaled(unscaledValue, scale);
+    }
+
+    private static int compare(long x, long y) {
+        return x < y ? -1 : (x == y ? 0 : 1);
+    }
+
+    /**
+     * @return value * 10^exponent, or Long.MIN_VALUE if the result overflows
+     */
+    private static long multiplyByPowerOfTen(long value, int exponent) {
+        if (exponent == 0) {
+            return value;
+        }
+        final long factor = POWERS_OF_TEN[exponent];
+        final long limit = Long.MAX_VALUE / factor;
+        if (value > limit || value < -limit) {
+            return Long.MIN_VALUE;
+        }
+        return value * factor;
+    }
+}
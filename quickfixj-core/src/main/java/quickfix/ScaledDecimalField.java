@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+/**
+ * A fixed-point decimal message field.
+ */
+public class ScaledDecimalField extends Field<ScaledDecimal> {
+
+    public ScaledDecimalField(int field) {
+        super(field, ScaledDecimal.ZERO);
+    }
+
+    public ScaledDecimalField(int field, ScaledDecimal data) {
+        super(field, data);
+    }
+
+    public ScaledDecimalField(int field, long unscaledValue, int scale) {
+        super(field, ScaledDecimal.valueOf(unscaledValue, scale));
+    }
+
+    public void setValue(ScaledDecimal value) {
+        setObject(value);
+    }
+
+    public void setValue(long unscaledValue, int scale) {
+        setObject(ScaledDecimal.valueOf(unscaledValue, scale));
+    }
+
+    public ScaledDecimal getValue() {
+        return getObject();
+    }
+
+    public boolean valueEquals(ScaledDecimal value) {
+        return getValue().equals(value);
+    }
+}
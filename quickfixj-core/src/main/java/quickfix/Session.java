@@ -251,6 +251,14 @@ public class Session implements Closeable {
      */
     public static final String SETTING_MILLISECONDS_IN_TIMESTAMP = "MillisecondsInTimeStamp";
 
+    /**
+     * Session setting for the precision of the fractional seconds in message
+     * timestamps. Valid values are "SECONDS", "MILLIS", "MICROS" or "NANOS".
+     * Overrides MillisecondsInTimeStamp. Only valid for FIX version >= 4.2;
+     * micro and nanoseconds are defined from FIX 5.0 SP2.
+     */
+    public static final String SETTING_TIMESTAMP_PRECISION = "TimeStampPrecision";
+
     /**
      * Controls validation of user-defined fields.
      */
@@ -337,6 +345,20 @@ public class Session implements Closeable {
 
     public static final String SETTING_MAX_SCHEDULED_WRITE_REQUESTS = "MaxScheduledWriteRequests";
 
+    /**
+     * Session setting to parse received messages in the thread that processes them
+     * instead of the network I/O thread. Logon messages are always parsed when they
+     * are received. Valid values are "Y" or "N". Default is "N".
+     */
+    public static final String SETTING_PARSE_ON_DISPATCH = "ParseOnDispatch";
+
+    /**
+     * Session setting for the number of inbound application messages per
+     * message type that are recycled after fromApp returns, see
+     * {@link MessagePool}. The default of 0 disables recycling.
+     */
+    public static final String SETTING_MESSAGE_POOL_SIZE = "MessagePoolSize";
+
     private static final ConcurrentMap<SessionID, Session> sessions = new ConcurrentHashMap<SessionID, Session>();
 
     private final Application application;
@@ -383,6 +405,9 @@ public class Session implements Closeable {
     private boolean enableLastMsgSeqNumProcessed = false;
     
     private int maxScheduledWriteRequests = 0;
+    private boolean parseOnDispatch = false;
+    private UtcTimestampPrecision timestampPrecision;
+    private volatile MessagePool messagePool;
 
     private final AtomicBoolean isResetting = new AtomicBoolean();
 
@@ -401,6 +426,8 @@ public class Session implements Closeable {
     public static final int DEFAULT_RESEND_RANGE_CHUNK_SIZE = 0; // no resend range
     public static final double DEFAULT_TEST_REQUEST_DELAY_MULTIPLIER = 0.5;
     private static final String ENCOUNTERED_END_OF_STREAM = "Encountered END_OF_STREAM";
+    // number of stored messages read at once when resending
+    static final int RESEND_BATCH_SIZE = 1000;
 
     protected final static Logger log = LoggerFactory.getLogger(Session.class);
 
@@ -698,12 +725,17 @@ public class Session implements Closeable {
     }
 
     private void insertSendingTime(Message.Header header) {
-        header.setUtcTimeStamp(SendingTime.FIELD, SystemTime.getDate(), includeMillis());
+        header.setUtcTimeStampNanos(SendingTime.FIELD, SystemTime.currentTimeNanos(),
+                getSendingTimePrecision());
     }
 
-    private boolean includeMillis() {
-        return millisecondsInTimeStamp
-                && sessionID.getBeginString().compareTo(FixVersions.BEGINSTRING_FIX42) >= 0;
+    private UtcTimestampPrecision getSendingTimePrecision() {
+        if (sessionID.getBeginString().compareTo(FixVersions.BEGINSTRING_FIX42) < 0) {
+            return UtcTimestampPrecision.SECONDS;
+        } else if (timestampPrecision != null) {
+            return timestampPrecision;
+        }
+        return millisecondsInTimeStamp ? UtcTimestampPrecision.MILLIS : UtcTimestampPrecision.SECONDS;
     }
 
     /**
@@ -987,6 +1019,11 @@ public class Session implements Closeable {
                     return;
                 }
                 state.incrNextTargetMsgSeqNum();
+                // fromApp has returned
+                final MessagePool pool = messagePool;
+                if (pool != null) {
+                    pool.release(message);
+                }
             }
         } catch (final FieldException e) {
             getLog().onErrorEvent("Rejecting invalid message: " + e + ": " + message);
@@ -1110,6 +1147,16 @@ public class Session implements Closeable {
     public void next(Message message) throws FieldNotFound, RejectLogon, IncorrectDataFormat,
             IncorrectTagValue, UnsupportedMessageType, IOException, InvalidMessage {
 
+        if (message instanceof UnparsedMessage) {
+            final UnparsedMessage unparsedMessage = (UnparsedMessage) message;
+            try {
+                message = MessageUtils.parse(this, unparsedMessage.getMessageString(),
+                        unparsedMessage.getRawHeader());
+            } catch (final InvalidMessage e) {
+                getLog().onErrorEvent("Invalid message: " + e.getMessage());
+                return;
+            }
+        }
         next(message, false);
     }
 
@@ -1249,8 +1296,8 @@ public class Session implements Closeable {
         final Header header = sequenceReset.getHeader();
         header.setBoolean(PossDupFlag.FIELD, true);
         initializeHeader(header);
-        header.setUtcTimeStamp(OrigSendingTime.FIELD, header.getUtcTimeStamp(SendingTime.FIELD),
-                includeMillis());
+        header.setUtcTimeStampNanos(OrigSendingTime.FIELD,
+                header.getUtcTimeStampNanos(SendingTime.FIELD), getSendingTimePrecision());
         header.setInt(MsgSeqNum.FIELD, beginSeqNo);
         sequenceReset.setInt(NewSeqNo.FIELD, newSeqNo);
         sequenceReset.setBoolean(GapFillFlag.FIELD, true);
@@ -1282,8 +1329,8 @@ public class Session implements Closeable {
 
     private void initializeResendFields(Message message) throws FieldNotFound {
         final Message.Header header = message.getHeader();
-        final Date sendingTime = header.getUtcTimeStamp(SendingTime.FIELD);
-        header.setUtcTimeStamp(OrigSendingTime.FIELD, sendingTime, includeMillis());
+        final long sendingTime = header.getUtcTimeStampNanos(SendingTime.FIELD);
+        header.setUtcTimeStampNanos(OrigSendingTime.FIELD, sendingTime, getSendingTimePrecision());
         header.setBoolean(PossDupFlag.FIELD, true);
         insertSendingTime(header);
     }
@@ -2136,71 +2183,83 @@ public class Session implements Closeable {
     private void resendMessages(Message receivedMessage, int beginSeqNo, int endSeqNo)
             throws IOException, InvalidMessage, FieldNotFound {
 
+        // read the stored messages in batches so a large resend does not
+        // hold the whole range in memory
         final ArrayList<String> messages = new ArrayList<String>();
-        try {
-            state.get(beginSeqNo, endSeqNo, messages);
-        } catch (final IOException e) {
-            if (forceResendWhenCorruptedStore) {
-                log.error("Cannot read messages from stores, resend HeartBeats", e);
-                for (int i = beginSeqNo; i < endSeqNo; i++) {
-                    final Message heartbeat = messageFactory.create(sessionID.getBeginString(),
-                            MsgType.HEARTBEAT);
-                    initializeHeader(heartbeat.getHeader());
-                    heartbeat.getHeader().setInt(MsgSeqNum.FIELD, i);
-                    messages.add(heartbeat.toString());
-                }
-            } else {
-                throw e;
-            }
-        }
-
         int msgSeqNum = 0;
         int begin = 0;
         int current = beginSeqNo;
         boolean appMessageJustSent = false;
 
-        for (final String message : messages) {
-            appMessageJustSent = false;
-            final Message msg;
+        int batchBegin = beginSeqNo;
+        while (batchBegin <= endSeqNo) {
+            final int batchEnd = (int) Math.min((long) batchBegin + RESEND_BATCH_SIZE - 1, endSeqNo);
+            messages.clear();
             try {
-                // QFJ-626
-                msg = parseMessage(message);
-                msgSeqNum = msg.getHeader().getInt(MsgSeqNum.FIELD);
-            } catch (final Exception e) {
-                getLog().onErrorEvent(
-                        "Error handling ResendRequest: failed to parse message (" + e.getMessage()
-                        + "): " + message);
-                // Note: a SequenceReset message will be generated to fill the gap
-                continue;
-            }
-
-            if ((current != msgSeqNum) && begin == 0) {
-                begin = current;
+                state.get(batchBegin, batchEnd, messages);
+            } catch (final IOException e) {
+                if (forceResendWhenCorruptedStore) {
+                    log.error("Cannot read messages from stores, resend HeartBeats", e);
+                    for (int i = batchBegin; i <= batchEnd && i < endSeqNo; i++) {
+                        final Message heartbeat = messageFactory.create(sessionID.getBeginString(),
+                                MsgType.HEARTBEAT);
+                        initializeHeader(heartbeat.getHeader());
+                        heartbeat.getHeader().setInt(MsgSeqNum.FIELD, i);
+                        messages.add(heartbeat.toString());
+                    }
+                } else {
+                    throw e;
+                }
             }
 
-            final String msgType = msg.getHeader().getString(MsgType.FIELD);
+            for (final String message : messages) {
+                appMessageJustSent = false;
+                final Message msg;
+                try {
+                    // QFJ-626
+                    msg = parseMessage(message);
+                    msgSeqNum = msg.getHeader().getInt(MsgSeqNum.FIELD);
+                } catch (final Exception e) {
+                    getLog().onErrorEvent(
+                            "Error handling ResendRequest: failed to parse message (" + e.getMessage()
+                            + "): " + message);
+                    // Note: a SequenceReset message will be generated to fill the gap
+                    continue;
+                }
 
-            if (MessageUtils.isAdminMessage(msgType) && !forceResendWhenCorruptedStore) {
-                if (begin == 0) {
-                    begin = msgSeqNum;
+                if ((current != msgSeqNum) && begin == 0) {
+                    begin = current;
                 }
-            } else {
-                initializeResendFields(msg);
-                if (resendApproved(msg)) {
-                    if (begin != 0) {
-                        generateSequenceReset(receivedMessage, begin, msgSeqNum);
-                    }
-                    getLog().onEvent("Resending Message: " + msgSeqNum);
-                    send(msg.toString());
-                    begin = 0;
-                    appMessageJustSent = true;
-                } else {
+
+                final String msgType = msg.getHeader().getString(MsgType.FIELD);
+
+                if (MessageUtils.isAdminMessage(msgType) && !forceResendWhenCorruptedStore) {
                     if (begin == 0) {
                         begin = msgSeqNum;
                     }
+                } else {
+                    initializeResendFields(msg);
+                    if (resendApproved(msg)) {
+                        if (begin != 0) {
+                            generateSequenceReset(receivedMessage, begin, msgSeqNum);
+                        }
+                        getLog().onEvent("Resending Message: " + msgSeqNum);
+                        send(msg.toString());
+                        begin = 0;
+                        appMessageJustSent = true;
+                    } else {
+                        if (begin == 0) {
+                            begin = msgSeqNum;
+                        }
+                    }
                 }
+                current = msgSeqNum + 1;
+            }
+
+            if (batchEnd == endSeqNo) {
+                break;
             }
-            current = msgSeqNum + 1;
+            batchBegin = batchEnd + 1;
         }
 
         int newBegin = beginSeqNo;
@@ -2797,6 +2856,47 @@ public class Session implements Closeable {
     public void setMaxScheduledWriteRequests(int maxScheduledWriteRequests) {
         this.maxScheduledWriteRequests = maxScheduledWriteRequests;
     }
+
+    public boolean isParseOnDispatch() {
+        return parseOnDispatch;
+    }
+
+    public void setParseOnDispatch(boolean parseOnDispatch) {
+        this.parseOnDispatch = parseOnDispatch;
+    }
+
+    public MessagePool getMessagePool() {
+        return messagePool;
+    }
+
+    /**
+     * Sets the pool that inbound application messages are released to after
+     * fromApp returns and taken from when the next message is parsed.
+     *
+     * @param messagePool the pool, or null to disable recycling
+     */
+    public void setMessagePool(MessagePool messagePool) {
+        this.messagePool = messagePool;
+    }
+
+    /**
+     * @return the precision of outgoing timestamps, or null if it follows
+     *         the MillisecondsInTimeStamp setting
+     */
+    public UtcTimestampPrecision getTimestampPrecision() {
+        return timestampPrecision;
+    }
+
+    /**
+     * Sets the precision of the SendingTime and OrigSendingTime fields of
+     * outgoing messages for FIX 4.2 and later.
+     *
+     * @param timestampPrecision the precision, or null to follow the
+     *            MillisecondsInTimeStamp setting
+     */
+    public void setTimestampPrecision(UtcTimestampPrecision timestampPrecision) {
+        this.timestampPrecision = timestampPrecision;
+    }
     
 
     public void setIgnoreHeartBeatFailure(boolean ignoreHeartBeatFailure) {
@@ -19,11 +19,13 @@
 
 package quickfix;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
+import java.util.concurrent.ScheduledFuture;
 
 import org.quickfixj.CharsetSupport;
 import org.slf4j.Logger;
@@ -49,7 +51,40 @@ import com.sleepycat.je.OperationStatus;
  *
  * @see SleepycatStoreFactory
  */
-public class SleepycatStore implements MessageStore {
+public class SleepycatStore implements MessageStore, Closeable {
+
+    /**
+     * How the writes of a transactional store are made durable when they are
+     * committed.
+     */
+    enum DurabilityPolicy {
+        /** Write and sync the log to disk. */
+        SYNC,
+        /** Write the log to the file system without syncing it. */
+        WRITE_NO_SYNC,
+        /** Keep the log in memory until it is written by JE or a sync. */
+        NO_SYNC;
+
+        /**
+         * Converts a setting value (Sync, WriteNoSync or NoSync) to a durability
+         * policy.
+         *
+         * @param value the setting value, case-insensitive
+         * @return the durability policy
+         * @throws IllegalArgumentException if the value is unknown
+         */
+        static DurabilityPolicy fromSetting(String value) {
+            if ("Sync".equalsIgnoreCase(value)) {
+                return SYNC;
+            } else if ("WriteNoSync".equalsIgnoreCase(value)) {
+                return WRITE_NO_SYNC;
+            } else if ("NoSync".equalsIgnoreCase(value)) {
+                return NO_SYNC;
+            }
+            throw new IllegalArgumentException("Unknown durability policy: " + value);
+        }
+    }
+
     private final Logger log = LoggerFactory.getLogger(getClass());
     private final SessionID sessionID; // session key
     private SessionInfo info;
@@ -68,6 +103,13 @@ public class SleepycatStore implements MessageStore {
     private final DatabaseEntry sessionInfoBytes = new DatabaseEntry();
     private final String charsetEncoding = CharsetSupport.getCharset();
 
+    // null for a non-transactional store
+    private final DurabilityPolicy durability;
+    private final SleepycatSyncScheduler syncScheduler;
+    private final long syncInterval;
+    private ScheduledFuture<?> syncTask;
+    private volatile boolean unsynced;
+
     private static class SessionIDTupleBinding extends TupleBinding {
 
         /*
@@ -169,22 +211,45 @@ public class SleepycatStore implements MessageStore {
 
     public SleepycatStore(SessionID sessionID, String databaseDir, String sequenceDbName,
             String messageDbName) throws IOException {
+        this(sessionID, databaseDir, sequenceDbName, messageDbName, null, null, 0);
+    }
+
+    /**
+     * @param durability the durability of the auto-committed writes of a
+     *            transactional store, or null for a non-transactional store
+     * @param syncScheduler the scheduler that syncs the environment
+     *            periodically, or null to leave syncing to JE
+     * @param syncInterval the sync period in milliseconds
+     */
+    SleepycatStore(SessionID sessionID, String databaseDir, String sequenceDbName,
+            String messageDbName, DurabilityPolicy durability,
+            SleepycatSyncScheduler syncScheduler, long syncInterval) throws IOException {
         this.sessionID = sessionID;
         dbDir = databaseDir;
         seqDbName = sequenceDbName;
         msgDbName = messageDbName;
+        this.durability = durability;
+        this.syncScheduler = syncScheduler;
+        this.syncInterval = syncInterval;
         open();
     }
 
-    void open() throws IOException {
+    synchronized void open() throws IOException {
         try {
             // Open the environment. Create it if it does not already exist.
             EnvironmentConfig envConfig = new EnvironmentConfig();
             envConfig.setAllowCreate(true);
+            if (durability != null) {
+                // writes without a transaction are committed one by one
+                envConfig.setTransactional(true);
+                envConfig.setTxnNoSync(durability == DurabilityPolicy.NO_SYNC);
+                envConfig.setTxnWriteNoSync(durability == DurabilityPolicy.WRITE_NO_SYNC);
+            }
             environment = new Environment(new File(dbDir), envConfig);
 
             DatabaseConfig dbConfig = new DatabaseConfig();
             dbConfig.setAllowCreate(true);
+            dbConfig.setTransactional(durability != null);
 
             // Open the database. Create it if it does not already exist.
             messageDatabase = environment.openDatabase(null, msgDbName, dbConfig);
@@ -194,26 +259,66 @@ public class SleepycatStore implements MessageStore {
         } catch (DatabaseException dbe) {
             convertToIOExceptionAndRethrow(dbe);
         }
+
+        if (syncScheduler != null && syncTask == null) {
+            syncTask = syncScheduler.schedule(new Runnable() {
+                public void run() {
+                    try {
+                        sync();
+                    } catch (IOException e) {
+                        log.error("Failed to sync Sleepycat store of " + sessionID, e);
+                    }
+                }
+            }, syncInterval);
+        }
     }
 
-    void close() throws IOException {
+    /**
+     * Closes the databases and the environment and cancels the periodic sync.
+     */
+    public synchronized void close() throws IOException {
+        if (syncTask != null) {
+            syncScheduler.cancel(syncTask);
+            syncTask = null;
+        }
+        if (environment == null) {
+            return;
+        }
         try {
             messageDatabase.close();
             sequenceDatabase.close();
             environment.close();
+            environment = null;
         } catch (DatabaseException e) {
             convertToIOExceptionAndRethrow(e);
         }
     }
 
+    /**
+     * Flushes the writes since the last sync to disk.
+     */
+    synchronized void sync() throws IOException {
+        if (!unsynced || environment == null) {
+            return;
+        }
+        unsynced = false;
+        try {
+            environment.sync();
+        } catch (DatabaseException e) {
+            unsynced = true;
+            convertToIOExceptionAndRethrow(e);
+        }
+    }
+
     public synchronized void get(int startSequence, int endSequence, Collection<String> messages)
             throws IOException {
         Cursor cursor = null;
         try {
             DatabaseEntry sequenceKey = new DatabaseEntry();
             EntryBinding sequenceBinding = TupleBinding.getPrimitiveBinding(Integer.class);
-            // Must start at start-1 because db will look for next record larger
-            sequenceBinding.objectToEntry(startSequence - 1, sequenceKey);
+            // the range is read in one forward scan from the first record at
+            // or after the start sequence
+            sequenceBinding.objectToEntry(startSequence, sequenceKey);
 
             cursor = messageDatabase.openCursor(null, null);
             DatabaseEntry messageBytes = new DatabaseEntry();
@@ -223,18 +328,20 @@ public class SleepycatStore implements MessageStore {
             if (retVal == OperationStatus.NOTFOUND) {
                 log.debug(sequenceKey + "/" + messageBytes + " not matched in database "
                         + messageDatabase.getDatabaseName());
-            } else {
-                Integer sequenceNumber = (Integer) sequenceBinding.entryToObject(sequenceKey);
-                while (sequenceNumber <= endSequence) {
-                    messages.add(new String(messageBytes.getData(), charsetEncoding));
-                    if (log.isDebugEnabled()) {
-                        log.debug("Found record " + sequenceNumber + "=>"
-                                + new String(messageBytes.getData(), charsetEncoding) + " for search key/data: "
-                                + sequenceKey + "=>" + messageBytes);
-                    }
-                    cursor.getNext(sequenceKey, messageBytes, LockMode.DEFAULT);
-                    sequenceNumber = (Integer) sequenceBinding.entryToObject(sequenceKey);
+            }
+            while (retVal == OperationStatus.SUCCESS) {
+                int sequenceNumber = (Integer) sequenceBinding.entryToObject(sequenceKey);
+                if (sequenceNumber > endSequence) {
+                    break;
+                }
+                String message = new String(messageBytes.getData(), messageBytes.getOffset(),
+                        messageBytes.getSize(), charsetEncoding);
+                messages.add(message);
+                if (log.isDebugEnabled()) {
+                    log.debug("Found record " + sequenceNumber + "=>" + message
+                            + " for search key/data: " + sequenceKey + "=>" + messageBytes);
                 }
+                retVal = cursor.getNext(sequenceKey, messageBytes, LockMode.DEFAULT);
             }
         } catch (Exception e) {
             convertToIOExceptionAndRethrow(e);
@@ -280,7 +387,7 @@ public class SleepycatStore implements MessageStore {
         storeSessionInfo();
     }
 
-    public void reset() throws IOException {
+    public synchronized void reset() throws IOException {
         try {
             info = new SessionInfo();
             storeSessionInfo();
@@ -302,6 +409,7 @@ public class SleepycatStore implements MessageStore {
             sequenceBinding.objectToEntry(sequence, sequenceKey);
             DatabaseEntry messageBytes = new DatabaseEntry(message.getBytes(CharsetSupport.getCharset()));
             messageDatabase.put(null, sequenceKey, messageBytes);
+            unsynced = true;
         } catch (Exception e) {
             convertToIOExceptionAndRethrow(e);
         }
@@ -343,6 +451,7 @@ public class SleepycatStore implements MessageStore {
 
             try {
                 sequenceDatabase.put(null, sessionIDKey, sessionInfoBytes);
+                unsynced = true;
             } catch (DatabaseException e) {
                 convertToIOExceptionAndRethrow(e);
             }
@@ -41,7 +41,23 @@ public class SleepycatStoreFactory implements MessageStoreFactory {
      */
     public static final String SETTING_SLEEPYCAT_MESSAGE_DB_NAME = "SleepycatMessageDbName";
 
+    /**
+     * Durability of the writes: Sync, WriteNoSync or NoSync. If set, the
+     * environment is transactional and each write is committed with this
+     * policy. Without it the environment is not transactional, as before.
+     * Do not change it for an existing database directory. Optional.
+     */
+    public static final String SETTING_SLEEPYCAT_DURABILITY = "SleepycatDurability";
+
+    /**
+     * Period in milliseconds of syncing the environment to disk when it has been
+     * written to. Together with WriteNoSync or NoSync durability this commits the
+     * writes of all sessions in groups. Optional.
+     */
+    public static final String SETTING_SLEEPYCAT_SYNC_INTERVAL = "SleepycatSyncInterval";
+
     private SessionSettings settings = new SessionSettings();
+    private final SleepycatSyncScheduler syncScheduler = new SleepycatSyncScheduler();
 
     public SleepycatStoreFactory(SessionSettings settings) {
         this.settings = settings;
@@ -58,9 +74,31 @@ public class SleepycatStoreFactory implements MessageStoreFactory {
             if (settings.isSetting(sessionID, SETTING_SLEEPYCAT_MESSAGE_DB_NAME)) {
                 msgDbName = settings.getString(sessionID, SETTING_SLEEPYCAT_MESSAGE_DB_NAME);
             }
-            return new SleepycatStore(sessionID, dbDir, seqDbName, msgDbName);
+            SleepycatStore.DurabilityPolicy durability = null;
+            if (settings.isSetting(sessionID, SETTING_SLEEPYCAT_DURABILITY)) {
+                try {
+                    durability = SleepycatStore.DurabilityPolicy.fromSetting(settings.getString(
+                            sessionID, SETTING_SLEEPYCAT_DURABILITY));
+                } catch (IllegalArgumentException e) {
+                    throw new ConfigError(e.getMessage());
+                }
+            }
+            long syncInterval = 0;
+            if (settings.isSetting(sessionID, SETTING_SLEEPYCAT_SYNC_INTERVAL)) {
+                syncInterval = settings.getLong(sessionID, SETTING_SLEEPYCAT_SYNC_INTERVAL);
+                if (syncInterval < 1) {
+                    throw new ConfigError(SETTING_SLEEPYCAT_SYNC_INTERVAL + " must be positive: "
+                            + syncInterval);
+                }
+            }
+            return new SleepycatStore(sessionID, dbDir, seqDbName, msgDbName, durability,
+                    syncInterval > 0 ? syncScheduler : null, syncInterval);
         } catch (Exception e) {
             throw new RuntimeError(e);
         }
     }
+
+    SleepycatSyncScheduler getSyncScheduler() {
+        return syncScheduler;
+    }
 }
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the periodic syncs of the Sleepycat stores of a factory in one thread.
+ * The thread is started when the first store schedules its sync and shut down
+ * when the sync of the last open store is cancelled.
+ */
+class SleepycatSyncScheduler {
+    private ScheduledExecutorService executor;
+    private int tasks;
+
+    /**
+     * Schedules the periodic sync of an opened store.
+     *
+     * @param task the sync task
+     * @param interval the sync period in milliseconds
+     * @return the scheduled task, to be passed to {@link #cancel} when the store
+     *         is closed
+     */
+    synchronized ScheduledFuture<?> schedule(Runnable task, long interval) {
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "QFJ Sleepycat sync");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        final ScheduledFuture<?> future = executor.scheduleWithFixedDelay(task, interval,
+                interval, TimeUnit.MILLISECONDS);
+        tasks++;
+        return future;
+    }
+
+    /**
+     * Cancels the periodic sync of a closed store. The sync thread is shut down
+     * when no sync is scheduled anymore.
+     *
+     * @param future the task returned by {@link #schedule}
+     */
+    synchronized void cancel(ScheduledFuture<?> future) {
+        future.cancel(false);
+        if (--tasks == 0) {
+            // a sync that is running is completed, the thread ends after it
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    synchronized boolean isRunning() {
+        return executor != null;
+    }
+}
@@ -37,37 +37,37 @@ public class SocketAcceptor extends AbstractSocketAcceptor {
             int queueCapacity)
             throws ConfigError {
         super(application, messageStoreFactory, settings, logFactory, messageFactory);
-        eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(this, queueCapacity);
+        eventHandlingStrategy = createSingleThreadedEventHandlingStrategy(queueCapacity);
     }
 
     public SocketAcceptor(Application application, MessageStoreFactory messageStoreFactory,
             SessionSettings settings, LogFactory logFactory, MessageFactory messageFactory)
             throws ConfigError {
         super(application, messageStoreFactory, settings, logFactory, messageFactory);
-        eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(this, DEFAULT_QUEUE_CAPACITY);
+        eventHandlingStrategy = createSingleThreadedEventHandlingStrategy(DEFAULT_QUEUE_CAPACITY);
     }
 
     public SocketAcceptor(Application application, MessageStoreFactory messageStoreFactory,
             SessionSettings settings, MessageFactory messageFactory, int queueCapacity) throws ConfigError {
         super(application, messageStoreFactory, settings, messageFactory);
-        eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(this, queueCapacity);
+        eventHandlingStrategy = createSingleThreadedEventHandlingStrategy(queueCapacity);
     }
 
     public SocketAcceptor(Application application, MessageStoreFactory messageStoreFactory,
             SessionSettings settings, MessageFactory messageFactory) throws ConfigError {
         super(application, messageStoreFactory, settings, messageFactory);
-        eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(this, DEFAULT_QUEUE_CAPACITY);
+        eventHandlingStrategy = createSingleThreadedEventHandlingStrategy(DEFAULT_QUEUE_CAPACITY);
     }
 
     public SocketAcceptor(SessionFactory sessionFactory, SessionSettings settings,
             int queueCapacity) throws ConfigError {
         super(settings, sessionFactory);
-        eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(this, queueCapacity);
+        eventHandlingStrategy = createSingleThreadedEventHandlingStrategy(queueCapacity);
     }
 
     public SocketAcceptor(SessionFactory sessionFactory, SessionSettings settings) throws ConfigError {
         super(settings, sessionFactory);
-        eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(this, DEFAULT_QUEUE_CAPACITY);
+        eventHandlingStrategy = createSingleThreadedEventHandlingStrategy(DEFAULT_QUEUE_CAPACITY);
     }
 
     @Override
@@ -39,7 +39,7 @@ public class SocketInitiator extends AbstractSocketInitiator {
         if (settings == null) {
             throw new ConfigError("no settings");
         }
-        eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(this, queueCapacity);
+        eventHandlingStrategy = createSingleThreadedEventHandlingStrategy(queueCapacity);
     }
 
     public SocketInitiator(Application application, MessageStoreFactory messageStoreFactory,
@@ -49,7 +49,7 @@ public class SocketInitiator extends AbstractSocketInitiator {
         if (settings == null) {
             throw new ConfigError("no settings");
         }
-        eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(this, DEFAULT_QUEUE_CAPACITY);
+        eventHandlingStrategy = createSingleThreadedEventHandlingStrategy(DEFAULT_QUEUE_CAPACITY);
     }
 
     public SocketInitiator(Application application, MessageStoreFactory messageStoreFactory,
@@ -59,7 +59,7 @@ public class SocketInitiator extends AbstractSocketInitiator {
         if (settings == null) {
             throw new ConfigError("no settings");
         }
-        eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(this, DEFAULT_QUEUE_CAPACITY);
+        eventHandlingStrategy = createSingleThreadedEventHandlingStrategy(DEFAULT_QUEUE_CAPACITY);
     }
 
     public SocketInitiator(Application application, MessageStoreFactory messageStoreFactory,
@@ -70,13 +70,13 @@ public class SocketInitiator extends AbstractSocketInitiator {
         if (settings == null) {
             throw new ConfigError("no settings");
         }
-        eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(this, queueCapacity);
+        eventHandlingStrategy = createSingleThreadedEventHandlingStrategy(queueCapacity);
     }
 
     public SocketInitiator(SessionFactory sessionFactory, SessionSettings settings,
            int queueCapacity) throws ConfigError {
         super(settings, sessionFactory);
-        eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(this, queueCapacity);
+        eventHandlingStrategy = createSingleThreadedEventHandlingStrategy(queueCapacity);
     }
 
     @Override
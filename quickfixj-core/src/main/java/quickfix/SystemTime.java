@@ -37,10 +37,45 @@ public class SystemTime {
 
     private static volatile SystemTimeSource systemTimeSource = DEFAULT_TIME_SOURCE;
 
+    private static volatile NanoClockAnchor nanoClockAnchor = new NanoClockAnchor(
+            System.currentTimeMillis() * 1000000L, System.nanoTime());
+
     public static long currentTimeMillis() {
         return systemTimeSource.getTime();
     }
 
+    /**
+     * Returns the current time in nanoseconds since 1970-01-01 UTC, which can
+     * be represented until the year 2262.
+     * <p>
+     * The system clock only has millisecond resolution, so the sub-millisecond
+     * part is measured with {@link System#nanoTime()} from an anchor that is
+     * moved whenever the result would leave the millisecond reported by the
+     * time source. Other time sources return whole milliseconds.
+     *
+     * @return the current time in nanoseconds
+     */
+    public static long currentTimeNanos() {
+        final SystemTimeSource source = systemTimeSource;
+        final long millis = source.getTime();
+        if (source != DEFAULT_TIME_SOURCE) {
+            return millis * 1000000L;
+        }
+        final long nanoTime = System.nanoTime();
+        final NanoClockAnchor anchor = nanoClockAnchor;
+        final long nanos = anchor.epochNanos + (nanoTime - anchor.nanoTime);
+        final long millisStart = millis * 1000000L;
+        if (nanos < millisStart) {
+            nanoClockAnchor = new NanoClockAnchor(millisStart, nanoTime);
+            return millisStart;
+        } else if (nanos >= millisStart + 1000000L) {
+            final long millisEnd = millisStart + 999999L;
+            nanoClockAnchor = new NanoClockAnchor(millisEnd, nanoTime);
+            return millisEnd;
+        }
+        return nanos;
+    }
+
     public static Date getDate() {
         return new Date(currentTimeMillis());
     }
@@ -68,4 +103,13 @@ public class SystemTime {
         return c;
     }
 
+    private static final class NanoClockAnchor {
+        private final long epochNanos;
+        private final long nanoTime;
+
+        NanoClockAnchor(long epochNanos, long nanoTime) {
+            this.epochNanos = epochNanos;
+            this.nanoTime = nanoTime;
+        }
+    }
 }
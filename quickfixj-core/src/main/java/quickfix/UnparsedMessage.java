@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+/**
+ * A received message that has not been parsed yet. It is handed to the
+ * session's event handling strategy in place of the parsed message when the
+ * session parses messages on dispatch; {@link Session#next(Message)} parses it
+ * in the thread that processes the message.
+ *
+ * @see Session#SETTING_PARSE_ON_DISPATCH
+ */
+public class UnparsedMessage extends Message {
+    static final long serialVersionUID = -5093716830561387143L;
+
+    private final String messageString;
+    private final RawMessageHeader rawHeader;
+
+    /**
+     * @param messageString the raw message
+     * @param rawHeader the header fields extracted from the raw message
+     */
+    public UnparsedMessage(String messageString, RawMessageHeader rawHeader) {
+        this.messageString = messageString;
+        this.rawHeader = rawHeader;
+    }
+
+    public String getMessageString() {
+        return messageString;
+    }
+
+    public RawMessageHeader getRawHeader() {
+        return rawHeader;
+    }
+
+    @Override
+    public String toString() {
+        return messageString;
+    }
+}
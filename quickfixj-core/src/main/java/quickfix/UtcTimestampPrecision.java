@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+/**
+ * The precision of the fractional seconds of a UTCTimestamp value. Micro and
+ * nanoseconds are allowed from FIX 5.0 SP2.
+ */
+public enum UtcTimestampPrecision {
+    /** YYYYMMDD-HH:MM:SS */
+    SECONDS(0),
+    /** YYYYMMDD-HH:MM:SS.sss */
+    MILLIS(3),
+    /** YYYYMMDD-HH:MM:SS.ssssss */
+    MICROS(6),
+    /** YYYYMMDD-HH:MM:SS.sssssssss */
+    NANOS(9);
+
+    private final int fractionDigits;
+
+    private UtcTimestampPrecision(int fractionDigits) {
+        this.fractionDigits = fractionDigits;
+    }
+
+    /**
+     * @return the number of digits after the decimal point of the seconds
+     */
+    public int getFractionDigits() {
+        return fractionDigits;
+    }
+}
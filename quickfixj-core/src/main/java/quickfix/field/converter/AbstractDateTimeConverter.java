@@ -63,6 +63,66 @@ abstract class AbstractDateTimeConverter {
         return n;
     }
 
+    static final long MILLIS_PER_DAY = 86400000L;
+
+    /**
+     * Computes the day since 1970-01-01 of a date in the proleptic Gregorian
+     * calendar. Months and days outside their range roll over into the adjacent
+     * months and years, like a lenient calendar.
+     */
+    static long toEpochDay(int year, int month, int day) {
+        final int monthIndex = month - 1;
+        long y = year + floorDiv(monthIndex, 12);
+        final int m = monthIndex - (int) floorDiv(monthIndex, 12) * 12 + 1;
+        // days from civil, with the year starting in March
+        if (m <= 2) {
+            y--;
+        }
+        final long era = floorDiv(y, 400);
+        final long yearOfEra = y - era * 400;
+        final long dayOfYear = (153 * (m > 2 ? m - 3 : m + 9) + 2) / 5 + day - 1;
+        final long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Writes the date of a day since 1970-01-01 as YYYYMMDD.
+     */
+    static void formatEpochDay(long epochDay, char[] buffer, int offset) {
+        final long z = epochDay + 719468;
+        final long era = floorDiv(z, 146097);
+        final long dayOfEra = z - era * 146097;
+        final long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        final long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final long mp = (5 * dayOfYear + 2) / 153;
+        final int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        final int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        final long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        formatDigits(year, 4, buffer, offset);
+        formatDigits(month, 2, buffer, offset + 4);
+        formatDigits(day, 2, buffer, offset + 6);
+    }
+
+    static void formatDigits(long value, int digits, char[] buffer, int offset) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    static int parseDigits(String value, int start, int end) {
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            n = (n * 10) + (value.charAt(i) - '0');
+        }
+        return n;
+    }
+
+    static long floorDiv(long x, long y) {
+        final long q = x / y;
+        return (x % y != 0 && (x ^ y) < 0) ? q - 1 : q;
+    }
+
     protected DateFormat createDateFormat(String format) {
         SimpleDateFormat sdf = new SimpleDateFormat(format);
         sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
@@ -61,4 +61,118 @@ public class DecimalConverter {
             throw new FieldConvertError("invalid double value: " + value);
         }
     }
+
+    /**
+     * Convert a String value to a fixed-point decimal, the value multiplied by
+     * 10 to the power of scale. The value is parsed directly from its characters.
+     *
+     * @param value the String value to convert
+     * @param scale the number of decimal places, 0 to 18
+     * @return the scaled value
+     * @throws FieldConvertError if the String is not a valid decimal pattern, has
+     *             more significant decimal places than the scale or the scaled
+     *             value does not fit into a long
+     */
+    public static long convertScaled(String value, int scale) throws FieldConvertError {
+        return convertScaled(value, 0, value.length(), scale);
+    }
+
+    /**
+     * Convert the characters [start, end) of a String to a fixed-point decimal.
+     *
+     * @param value the String containing the value
+     * @param start the index of the first character of the value
+     * @param end the index after the last character of the value
+     * @param scale the number of decimal places, 0 to 18
+     * @return the scaled value
+     * @throws FieldConvertError if the characters are not a valid decimal pattern,
+     *             have more significant decimal places than the scale or the
+     *             scaled value does not fit into a long
+     * @see #convertScaled(String, int)
+     */
+    public static long convertScaled(String value, int start, int end, int scale)
+            throws FieldConvertError {
+        checkScale(scale);
+        if (!FormatValidator.isDecimal(value, start, end)) {
+            throw new FieldConvertError("invalid double value: " + value.substring(start, end));
+        }
+        int i = start;
+        final boolean negative = value.charAt(start) == '-';
+        if (negative) {
+            i++;
+        }
+        // accumulate negatively to cover Long.MIN_VALUE
+        final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long n = 0;
+        int decimalPlaces = -1;
+        for (; i < end; i++) {
+            final char c = value.charAt(i);
+            if (c == '.') {
+                decimalPlaces = 0;
+                continue;
+            }
+            final int digit = c - '0';
+            if (decimalPlaces >= 0 && ++decimalPlaces > scale) {
+                if (digit != 0) {
+                    throw new FieldConvertError("decimal value exceeds scale " + scale + ": "
+                            + value.substring(start, end));
+                }
+                continue;
+            }
+            if (n < (limit + digit) / 10) {
+                throw new FieldConvertError("decimal value out of range: "
+                        + value.substring(start, end));
+            }
+            n = n * 10 - digit;
+        }
+        for (int j = Math.max(decimalPlaces, 0); j < scale; j++) {
+            if (n < limit / 10) {
+                throw new FieldConvertError("decimal value out of range: "
+                        + value.substring(start, end));
+            }
+            n *= 10;
+        }
+        return negative ? n : -n;
+    }
+
+    /**
+     * Converts a fixed-point decimal to a String without trailing zeros.
+     *
+     * @param scaledValue the value multiplied by 10 to the power of scale
+     * @param scale the number of decimal places, 0 to 18
+     * @return the formatted String representing the decimal.
+     */
+    public static String convertScaled(long scaledValue, int scale) {
+        checkScale(scale);
+        // digits of the absolute value, taken from the negative value to cover Long.MIN_VALUE
+        final char[] buffer = new char[21];
+        int position = buffer.length;
+        long n = scaledValue < 0 ? scaledValue : -scaledValue;
+        int decimalPlaces = scale;
+        while (decimalPlaces > 0 && n % 10 == 0) {
+            n /= 10;
+            decimalPlaces--;
+        }
+        if (decimalPlaces > 0) {
+            for (int i = 0; i < decimalPlaces; i++) {
+                buffer[--position] = (char) ('0' - n % 10);
+                n /= 10;
+            }
+            buffer[--position] = '.';
+        }
+        do {
+            buffer[--position] = (char) ('0' - n % 10);
+            n /= 10;
+        } while (n != 0);
+        if (scaledValue < 0) {
+            buffer[--position] = '-';
+        }
+        return new String(buffer, position, buffer.length - position);
+    }
+
+    private static void checkScale(int scale) {
+        if (scale < 0 || scale > 18) {
+            throw new IllegalArgumentException("Invalid decimal scale: " + scale);
+        }
+    }
 }
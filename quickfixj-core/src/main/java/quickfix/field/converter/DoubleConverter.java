@@ -22,8 +22,6 @@ package quickfix.field.converter;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.Locale;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import quickfix.FieldConvertError;
 import quickfix.RuntimeError;
@@ -32,8 +30,12 @@ import quickfix.RuntimeError;
  * Converts between a double and a String.
  */
 public class DoubleConverter {
-    private static final Pattern DECIMAL_PATTERN = Pattern.compile("-?\\d*(\\.\\d*)?");
     private static final ThreadLocal<DecimalFormat[]> THREAD_DECIMAL_FORMATS = new ThreadLocal<DecimalFormat[]>();
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final double[] EXACT_POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
 
     /**
      * Converts a double to a string with no padding.
@@ -91,14 +93,68 @@ public class DoubleConverter {
      * @throws FieldConvertError if the String is not a valid double pattern.
      */
     public static double convert(String value) throws FieldConvertError {
-        try {
-            Matcher matcher = DECIMAL_PATTERN.matcher(value);
-            if (!matcher.matches()) {
-                throw new NumberFormatException();
-            }
-            return Double.parseDouble(value);
-        } catch (NumberFormatException e) {
+        if (!FormatValidator.isDecimal(value)) {
             throw new FieldConvertError("invalid double value: " + value);
         }
+        final double d = parseExactly(value, 0, value.length());
+        return Double.isNaN(d) ? Double.parseDouble(value) : d;
+    }
+
+    /**
+     * Converts the characters [start, end) of a String to a double. A String
+     * is only created for values with too many digits to be parsed exactly.
+     *
+     * @param value the String containing the value
+     * @param start the index of the first character of the value
+     * @param end the index after the last character of the value
+     * @return the parsed double
+     * @throws FieldConvertError if the characters are not a valid double pattern.
+     */
+    public static double convert(String value, int start, int end) throws FieldConvertError {
+        if (!FormatValidator.isDecimal(value, start, end)) {
+            throw new FieldConvertError("invalid double value: " + value.substring(start, end));
+        }
+        final double d = parseExactly(value, start, end);
+        return Double.isNaN(d) ? Double.parseDouble(value.substring(start, end)) : d;
+    }
+
+    /**
+     * Parses a decimal number whose significant digits and power of ten can both
+     * be represented exactly as a double. Dividing the two then yields the
+     * correctly rounded result, the same as Double.parseDouble().
+     *
+     * @return the parsed value, or NaN if the value has too many digits
+     */
+    private static double parseExactly(String value, int start, int end) {
+        int i = start;
+        final boolean negative = value.charAt(start) == '-';
+        if (negative) {
+            i++;
+        }
+        long significand = 0;
+        int significantDigits = 0;
+        int fractionDigits = 0;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            final char c = value.charAt(i);
+            if (c == '.') {
+                fraction = true;
+                continue;
+            }
+            if (significantDigits > 0 || c != '0') {
+                if (++significantDigits > MAX_EXACT_DIGITS) {
+                    return Double.NaN;
+                }
+                significand = significand * 10 + (c - '0');
+            }
+            if (fraction) {
+                fractionDigits++;
+            }
+        }
+        if (fractionDigits >= EXACT_POWERS_OF_TEN.length) {
+            return Double.NaN;
+        }
+        final double d = significand / EXACT_POWERS_OF_TEN[fractionDigits];
+        return negative ? -d : d;
     }
 }
@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix.field.converter;
+
+/**
+ * Checks whether field values are well formed for their FIX data type. The
+ * checks are purely syntactic and operate directly on the characters of the
+ * value, without converting it or allocating objects. Each check either takes
+ * the whole value or the range [start, end) of a larger character sequence.
+ */
+public final class FormatValidator {
+
+    private FormatValidator() {
+    }
+
+    /**
+     * Checks an integer: an optional minus sign followed by digits, within the
+     * range of an int.
+     *
+     * @param value the value
+     * @return true if the value is a valid integer
+     * @see IntConverter#convert(String)
+     */
+    public static boolean isInt(CharSequence value) {
+        return isInt(value, 0, value.length());
+    }
+
+    public static boolean isInt(CharSequence value, int start, int end) {
+        int i = start;
+        final boolean negative = i < end && value.charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == end) {
+            return false;
+        }
+        final long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long n = 0;
+        for (; i < end; i++) {
+            final char c = value.charAt(i);
+            if (!isDigit(c)) {
+                return false;
+            }
+            n = n * 10 + (c - '0');
+            if (n > limit) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks a decimal number as used by the Price, Qty, Amt, Float, PriceOffset
+     * and Percentage types: an optional minus sign, digits and an optional
+     * decimal point, with at least one digit.
+     *
+     * @param value the value
+     * @return true if the value is a valid decimal number
+     * @see DoubleConverter#convert(String)
+     */
+    public static boolean isDecimal(CharSequence value) {
+        return isDecimal(value, 0, value.length());
+    }
+
+    public static boolean isDecimal(CharSequence value, int start, int end) {
+        int i = start;
+        if (i < end && value.charAt(i) == '-') {
+            i++;
+        }
+        boolean hasDigits = false;
+        boolean hasDecimalPoint = false;
+        for (; i < end; i++) {
+            final char c = value.charAt(i);
+            if (isDigit(c)) {
+                hasDigits = true;
+            } else if (c == '.' && !hasDecimalPoint) {
+                hasDecimalPoint = true;
+            } else {
+                return false;
+            }
+        }
+        return hasDigits;
+    }
+
+    /**
+     * Checks a boolean, "Y" or "N".
+     *
+     * @param value the value
+     * @return true if the value is a valid boolean
+     */
+    public static boolean isBoolean(CharSequence value) {
+        return isBoolean(value, 0, value.length());
+    }
+
+    public static boolean isBoolean(CharSequence value, int start, int end) {
+        if (end - start != 1) {
+            return false;
+        }
+        final char c = value.charAt(start);
+        return c == 'Y' || c == 'N';
+    }
+
+    /**
+     * Checks a character, a value of exactly one character.
+     *
+     * @param value the value
+     * @return true if the value is a valid character
+     */
+    public static boolean isChar(CharSequence value) {
+        return isChar(value, 0, value.length());
+    }
+
+    public static boolean isChar(CharSequence value, int start, int end) {
+        return end - start == 1;
+    }
+
+    /**
+     * Checks a UTC timestamp, YYYYMMDD-HH:MM:SS or YYYYMMDD-HH:MM:SS.sss with 3,
+     * 6 or 9 fractional digits.
+     *
+     * @param value the value
+     * @return true if the value is a valid timestamp
+     */
+    public static boolean isUtcTimestamp(CharSequence value) {
+        return isUtcTimestamp(value, 0, value.length());
+    }
+
+    public static boolean isUtcTimestamp(CharSequence value, int start, int end) {
+        final int length = end - start;
+        if (length != 17 && length != 21 && length != 24 && length != 27) {
+            return false;
+        }
+        return isDigits(value, start, start + 8)
+                && value.charAt(start + 8) == '-'
+                && isHourMinuteSecond(value, start + 9)
+                && (length == 17 || value.charAt(start + 17) == '.'
+                        && isDigits(value, start + 18, end));
+    }
+
+    /**
+     * Checks a UTC time, HH:MM:SS or HH:MM:SS.sss.
+     *
+     * @param value the value
+     * @return true if the value is a valid time
+     */
+    public static boolean isUtcTimeOnly(CharSequence value) {
+        return isUtcTimeOnly(value, 0, value.length());
+    }
+
+    public static boolean isUtcTimeOnly(CharSequence value, int start, int end) {
+        return isTime(value, start, end);
+    }
+
+    /**
+     * Checks a UTC date, YYYYMMDD.
+     *
+     * @param value the value
+     * @return true if the value is a valid date
+     */
+    public static boolean isUtcDateOnly(CharSequence value) {
+        return isUtcDateOnly(value, 0, value.length());
+    }
+
+    public static boolean isUtcDateOnly(CharSequence value, int start, int end) {
+        return end - start == 8 && isDigits(value, start, end);
+    }
+
+    /**
+     * Checks a local market date, YYYYMMDD.
+     *
+     * @param value the value
+     * @return true if the value is a valid date
+     */
+    public static boolean isLocalMktDate(CharSequence value) {
+        return isLocalMktDate(value, 0, value.length());
+    }
+
+    public static boolean isLocalMktDate(CharSequence value, int start, int end) {
+        return isUtcDateOnly(value, start, end);
+    }
+
+    /**
+     * Checks a month-year, YYYYMM, YYYYMMDD or YYYYMMwW where W is the week of
+     * the month from 1 to 5.
+     *
+     * @param value the value
+     * @return true if the value is a valid month-year
+     */
+    public static boolean isMonthYear(CharSequence value) {
+        return isMonthYear(value, 0, value.length());
+    }
+
+    public static boolean isMonthYear(CharSequence value, int start, int end) {
+        final int length = end - start;
+        if (length != 6 && length != 8 || !isDigits(value, start, start + 6)) {
+            return false;
+        }
+        if (length == 6) {
+            return true;
+        }
+        final char c = value.charAt(start + 6);
+        if (c == 'w') {
+            final char week = value.charAt(start + 7);
+            return week >= '1' && week <= '5';
+        }
+        return isDigit(c) && isDigit(value.charAt(start + 7));
+    }
+
+    private static boolean isTime(CharSequence value, int start, int end) {
+        final int length = end - start;
+        if (length != 8 && length != 12) {
+            return false;
+        }
+        if (!isHourMinuteSecond(value, start)) {
+            return false;
+        }
+        return length == 8 || value.charAt(start + 8) == '.' && isDigits(value, start + 9, end);
+    }
+
+    private static boolean isHourMinuteSecond(CharSequence value, int start) {
+        return isDigits(value, start, start + 2) && value.charAt(start + 2) == ':'
+                && isDigits(value, start + 3, start + 5) && value.charAt(start + 5) == ':'
+                && isDigits(value, start + 6, start + 8);
+    }
+
+    private static boolean isDigits(CharSequence value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
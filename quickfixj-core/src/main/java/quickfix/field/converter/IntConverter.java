@@ -43,18 +43,21 @@ public final class IntConverter {
      * @param value the String to convert
      * @return the converted integer
      * @throws FieldConvertError raised if the String does not represent a valid integer
-     * @see java.lang.Integer#parseInt(String)
      */
     public static int convert(String value) throws FieldConvertError {
-        try {
-            for (int i = 0; i < value.length(); i++) {
-                if (!Character.isDigit(value.charAt(i)) && !(i == 0 && value.charAt(i) == '-')) {
-                    throw new FieldConvertError("invalid integral value: " + value);
-                }
-            }
-            return Integer.parseInt(value);
-        } catch (NumberFormatException e) {
-            throw new FieldConvertError("invalid integral value: " + value + ": " + e);
-        }
+        return convert(value, 0, value.length());
+    }
+
+    /**
+     * Convert the characters [start, end) of a String to an integer.
+     *
+     * @param value the String containing the value
+     * @param start the index of the first character of the value
+     * @param end the index after the last character of the value
+     * @return the converted integer
+     * @throws FieldConvertError raised if the characters do not represent a valid integer
+     */
+    public static int convert(String value, int start, int end) throws FieldConvertError {
+        return (int) LongConverter.parse(value, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE);
     }
 }
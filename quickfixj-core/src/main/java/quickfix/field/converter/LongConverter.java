@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix.field.converter;
+
+import quickfix.FieldConvertError;
+
+/**
+ * Convert between a long and a String
+ */
+public final class LongConverter {
+
+    /**
+     * Convert a long to a String
+     *
+     * @param l the long to convert
+     * @return the String representing the long
+     * @see java.lang.Long#toString(long)
+     */
+    public static String convert(long l) {
+        return Long.toString(l);
+    }
+
+    /**
+     * Convert a String to a long.
+     *
+     * @param value the String to convert
+     * @return the converted long
+     * @throws FieldConvertError raised if the String does not represent a valid long
+     */
+    public static long convert(String value) throws FieldConvertError {
+        return parse(value, 0, value.length(), Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Convert the characters [start, end) of a String to a long.
+     *
+     * @param value the String containing the value
+     * @param start the index of the first character of the value
+     * @param end the index after the last character of the value
+     * @return the converted long
+     * @throws FieldConvertError raised if the characters do not represent a valid long
+     */
+    public static long convert(String value, int start, int end) throws FieldConvertError {
+        return parse(value, start, end, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Parses an optional minus sign followed by digits directly from the
+     * characters of the value.
+     */
+    static long parse(String value, int start, int end, long min, long max)
+            throws FieldConvertError {
+        int i = start;
+        final boolean negative = i < end && value.charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == end) {
+            throw new FieldConvertError("invalid integral value: " + value.substring(start, end));
+        }
+        // accumulate negatively to cover Long.MIN_VALUE
+        final long limit = negative ? min : -max;
+        long n = 0;
+        for (; i < end; i++) {
+            final int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new FieldConvertError("invalid integral value: "
+                        + value.substring(start, end));
+            }
+            if (n < (limit + digit) / 10) {
+                throw new FieldConvertError("invalid integral value: "
+                        + value.substring(start, end) + ": out of range");
+            }
+            n = n * 10 - digit;
+        }
+        return negative ? n : -n;
+    }
+}
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix.field.converter;
+
+import quickfix.FieldConvertError;
+import quickfix.ScaledDecimal;
+
+/**
+ * Converts between a fixed-point {@link ScaledDecimal} and a String.
+ */
+public final class ScaledDecimalConverter {
+
+    /**
+     * Converts a fixed-point decimal to a String without trailing zeros.
+     *
+     * @param d the decimal to convert
+     * @return the formatted String representing the decimal.
+     */
+    public static String convert(ScaledDecimal d) {
+        return DecimalConverter.convertScaled(d.getUnscaledValue(), d.getScale());
+    }
+
+    /**
+     * Converts a String to a fixed-point decimal. The scale of the result is the
+     * number of decimal places without trailing zeros, so "1.50" is converted
+     * to 15 with scale 1. The value is parsed directly from its characters.
+     *
+     * @param value the String value to convert
+     * @return the parsed decimal
+     * @throws FieldConvertError if the String is not a valid decimal pattern, has
+     *             more than 18 significant decimal places or the unscaled value
+     *             does not fit into a long
+     */
+    public static ScaledDecimal convert(String value) throws FieldConvertError {
+        if (!FormatValidator.isDecimal(value)) {
+            throw new FieldConvertError("invalid double value: " + value);
+        }
+        final int point = value.indexOf('.');
+        int scale = 0;
+        if (point != -1) {
+            for (int i = value.length() - 1; i > point; i--) {
+                if (value.charAt(i) != '0') {
+                    scale = i - point;
+                    break;
+                }
+            }
+        }
+        if (scale > ScaledDecimal.MAX_SCALE) {
+            throw new FieldConvertError("decimal value exceeds scale " + ScaledDecimal.MAX_SCALE
+                    + ": " + value);
+        }
+        return ScaledDecimal.valueOf(DecimalConverter.convertScaled(value, scale), scale);
+    }
+}
@@ -19,24 +19,22 @@
 
 package quickfix.field.converter;
 
-import java.text.DateFormat;
-import java.util.Calendar;
 import java.util.Date;
-import java.util.GregorianCalendar;
-import java.util.concurrent.*;
 
 import quickfix.FieldConvertError;
-import quickfix.SystemTime;
+import quickfix.UtcTimestampPrecision;
 
 /**
  * Convert between a timestamp and a String. A timestamp includes both a date
- * and a time.
+ * and a time. Values can have 3, 6 or 9 fractional digits of the seconds.
  */
 public class UtcTimestampConverter extends AbstractDateTimeConverter {
-    private static final ThreadLocal<UtcTimestampConverter> utcTimestampConverter = new ThreadLocal<UtcTimestampConverter>();
-    private final DateFormat utcTimestampFormat = createDateFormat("yyyyMMdd-HH:mm:ss");
-    private final DateFormat utcTimestampFormatMillis = createDateFormat("yyyyMMdd-HH:mm:ss.SSS");
-    private final static ConcurrentHashMap<String, Long> dateCache = new ConcurrentHashMap<String, Long>();
+    private static final ThreadLocal<UtcTimestampFormatter> formatter = new ThreadLocal<UtcTimestampFormatter>() {
+        @Override
+        protected UtcTimestampFormatter initialValue() {
+            return new UtcTimestampFormatter();
+        }
+    };
 
     /**
      * Convert a timestamp (represented as a Date) to a String.
@@ -46,75 +44,125 @@ public class UtcTimestampConverter extends AbstractDateTimeConverter {
      * @return the formatted timestamp
      */
     public static String convert(Date d, boolean includeMilliseconds) {
-        return getFormatter(includeMilliseconds).format(d);
+        return convert(d.getTime(), includeMilliseconds);
     }
 
-    private static DateFormat getFormatter(boolean includeMillis) {
-        UtcTimestampConverter converter = utcTimestampConverter.get();
-        if (converter == null) {
-            converter = new UtcTimestampConverter();
-            utcTimestampConverter.set(converter);
-        }
-        return includeMillis ? converter.utcTimestampFormatMillis : converter.utcTimestampFormat;
+    /**
+     * Convert a timestamp string into a Date. Digits beyond milliseconds are
+     * truncated.
+     *
+     * @param value the timestamp String
+     * @return the parsed timestamp
+     * @exception FieldConvertError raised if timestamp is an incorrect format.
+     */
+    public static Date convert(String value) throws FieldConvertError {
+        return new Date(convertToMillis(value));
+    }
+
+    /**
+     * Convert a timestamp string into milliseconds since 1970-01-01 UTC, parsing
+     * it directly from its characters. Digits beyond milliseconds are truncated.
+     *
+     * @param value the timestamp String
+     * @return the parsed timestamp in milliseconds
+     * @exception FieldConvertError raised if timestamp is an incorrect format.
+     */
+    public static long convertToMillis(String value) throws FieldConvertError {
+        return convertToMillis(value, 0, value.length());
     }
 
-    //
-    // Performance optimization: the calendar for the start of the day is cached.
-    // The time is converted to millis and then added to the millis specified by
-    // the base calendar.
-    //
+    /**
+     * Convert the characters [start, end) of a String, a timestamp, into
+     * milliseconds since 1970-01-01 UTC. Digits beyond milliseconds are truncated.
+     *
+     * @param value the String containing the timestamp
+     * @param start the index of the first character of the timestamp
+     * @param end the index after the last character of the timestamp
+     * @return the parsed timestamp in milliseconds
+     * @exception FieldConvertError raised if timestamp is an incorrect format.
+     */
+    public static long convertToMillis(String value, int start, int end)
+            throws FieldConvertError {
+        verifyFormat(value, start, end);
+        return getEpochSecond(value, start) * 1000L + getNanoOfSecond(value, start, end) / 1000000;
+    }
 
     /**
-     * Convert a timestamp string into a Date.
+     * Convert a timestamp string into nanoseconds since 1970-01-01 UTC, parsing
+     * it directly from its characters.
      *
      * @param value the timestamp String
-     * @return the parsed timestamp
+     * @return the parsed timestamp in nanoseconds
      * @exception FieldConvertError raised if timestamp is an incorrect format.
      */
-    public static Date convert(String value) throws FieldConvertError {
-        verifyFormat(value);
-        long timeOffset = (parseLong(value.substring(9, 11)) * 3600000L)
-                + (parseLong(value.substring(12, 14)) * 60000L)
-                + (parseLong(value.substring(15, 17)) * 1000L);
-        if (value.length() == 21) {
-            timeOffset += parseLong(value.substring(18, 21));
-        }
-        return new Date(getMillisForDay(value) + timeOffset);
+    public static long convertToNanos(String value) throws FieldConvertError {
+        return convertToNanos(value, 0, value.length());
     }
 
-    private static Long getMillisForDay(String value) {
-        String dateString = value.substring(0, 8);
-        Long millis = dateCache.get(dateString);
-        if (millis == null) {
-            Calendar c = new GregorianCalendar(1970, 0, 1, 0, 0, 0);
-            c.setTimeZone(SystemTime.UTC_TIMEZONE);
-            int year = Integer.parseInt(value.substring(0, 4));
-            int month = Integer.parseInt(value.substring(4, 6));
-            int day = Integer.parseInt(value.substring(6, 8));
-            c.set(year, month - 1, day);
-            millis = c.getTimeInMillis();
-            dateCache.put(dateString, c.getTimeInMillis());
-        }
-        return millis;
+    /**
+     * Convert the characters [start, end) of a String, a timestamp, into
+     * nanoseconds since 1970-01-01 UTC.
+     *
+     * @param value the String containing the timestamp
+     * @param start the index of the first character of the timestamp
+     * @param end the index after the last character of the timestamp
+     * @return the parsed timestamp in nanoseconds
+     * @exception FieldConvertError raised if timestamp is an incorrect format.
+     */
+    public static long convertToNanos(String value, int start, int end)
+            throws FieldConvertError {
+        verifyFormat(value, start, end);
+        return getEpochSecond(value, start) * 1000000000L + getNanoOfSecond(value, start, end);
+    }
+
+    /**
+     * Convert milliseconds since 1970-01-01 UTC to a timestamp String, without
+     * creating a Date.
+     *
+     * @param millis the timestamp in milliseconds
+     * @param includeMilliseconds controls whether milliseconds are included in the result
+     * @return the formatted timestamp
+     */
+    public static String convert(long millis, boolean includeMilliseconds) {
+        return formatter.get().formatMillis(millis,
+                includeMilliseconds ? UtcTimestampPrecision.MILLIS : UtcTimestampPrecision.SECONDS);
     }
 
-    private static void verifyFormat(String value) throws FieldConvertError {
-        String type = "timestamp";
-        if (value.length() != 17 && value.length() != 21) {
-            throwFieldConvertError(value, type);
+    /**
+     * Convert nanoseconds since 1970-01-01 UTC to a timestamp String.
+     *
+     * @param nanos the timestamp in nanoseconds
+     * @param precision the precision of the fractional seconds in the result
+     * @return the formatted timestamp
+     */
+    public static String convertNanos(long nanos, UtcTimestampPrecision precision) {
+        return formatter.get().formatNanos(nanos, precision);
+    }
+
+    private static long getEpochSecond(String value, int start) {
+        final long epochDay = toEpochDay(parseDigits(value, start, start + 4),
+                parseDigits(value, start + 4, start + 6), parseDigits(value, start + 6, start + 8));
+        return epochDay * 86400L
+                + parseDigits(value, start + 9, start + 11) * 3600L
+                + parseDigits(value, start + 12, start + 14) * 60L
+                + parseDigits(value, start + 15, start + 17);
+    }
+
+    private static int getNanoOfSecond(String value, int start, int end) {
+        int nanos = 0;
+        int digits = 0;
+        for (int i = start + 18; i < end; i++, digits++) {
+            nanos = nanos * 10 + (value.charAt(i) - '0');
+        }
+        for (; digits < 9; digits++) {
+            nanos *= 10;
         }
-        assertDigitSequence(value, 0, 8, type);
-        assertSeparator(value, 8, '-', type);
-        assertDigitSequence(value, 9, 11, type);
-        assertSeparator(value, 11, ':', type);
-        assertDigitSequence(value, 12, 14, type);
-        assertSeparator(value, 14, ':', type);
-        assertDigitSequence(value, 15, 17, type);
-        if (value.length() == 21) {
-            assertSeparator(value, 17, '.', type);
-            assertDigitSequence(value, 18, 21, type);
-        } else if (value.length() != 17) {
-            throwFieldConvertError(value, type);
+        return nanos;
+    }
+
+    private static void verifyFormat(String value, int start, int end) throws FieldConvertError {
+        if (!FormatValidator.isUtcTimestamp(value, start, end)) {
+            throwFieldConvertError(value.substring(start, end), "timestamp");
         }
     }
 }
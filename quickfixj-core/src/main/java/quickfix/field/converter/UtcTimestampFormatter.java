@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix.field.converter;
+
+import quickfix.UtcTimestampPrecision;
+
+/**
+ * Formats UTC timestamps into a reusable buffer. The date is only rendered when
+ * the day changes and the hours, minutes and seconds only when the second
+ * changes, so consecutive timestamps just update their fractional digits.
+ * <p>
+ * Instances are not thread-safe; {@link UtcTimestampConverter} keeps one per
+ * thread.
+ */
+public final class UtcTimestampFormatter {
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private static final int[] FRACTION_DIVISORS = { 1000000000, 1000000, 1000, 1 };
+
+    // YYYYMMDD-HH:MM:SS.sssssssss
+    private final char[] buffer = new char[27];
+    private long renderedEpochDay = Long.MIN_VALUE;
+    private long renderedEpochSecond = Long.MIN_VALUE;
+
+    public UtcTimestampFormatter() {
+        buffer[8] = '-';
+        buffer[11] = ':';
+        buffer[14] = ':';
+        buffer[17] = '.';
+    }
+
+    /**
+     * Formats a timestamp given in milliseconds since 1970-01-01 UTC.
+     *
+     * @param millis the timestamp in milliseconds
+     * @param precision the precision of the fractional seconds
+     * @return the formatted timestamp
+     */
+    public String formatMillis(long millis, UtcTimestampPrecision precision) {
+        final long epochSecond = AbstractDateTimeConverter.floorDiv(millis, 1000);
+        final int length = render(epochSecond, (int) (millis - epochSecond * 1000) * 1000000,
+                precision);
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     * Formats a timestamp given in nanoseconds since 1970-01-01 UTC.
+     *
+     * @param nanos the timestamp in nanoseconds
+     * @param precision the precision of the fractional seconds
+     * @return the formatted timestamp
+     */
+    public String formatNanos(long nanos, UtcTimestampPrecision precision) {
+        final long epochSecond = AbstractDateTimeConverter.floorDiv(nanos, NANOS_PER_SECOND);
+        final int length = render(epochSecond, (int) (nanos - epochSecond * NANOS_PER_SECOND),
+                precision);
+        return new String(buffer, 0, length);
+    }
+
+    private int render(long epochSecond, int nanoOfSecond, UtcTimestampPrecision precision) {
+        if (epochSecond != renderedEpochSecond) {
+            final long epochDay = AbstractDateTimeConverter.floorDiv(epochSecond, 86400);
+            if (epochDay != renderedEpochDay) {
+                AbstractDateTimeConverter.formatEpochDay(epochDay, buffer, 0);
+                renderedEpochDay = epochDay;
+            }
+            final int secondOfDay = (int) (epochSecond - epochDay * 86400);
+            AbstractDateTimeConverter.formatDigits(secondOfDay / 3600, 2, buffer, 9);
+            AbstractDateTimeConverter.formatDigits(secondOfDay / 60 % 60, 2, buffer, 12);
+            AbstractDateTimeConverter.formatDigits(secondOfDay % 60, 2, buffer, 15);
+            renderedEpochSecond = epochSecond;
+        }
+        final int fractionDigits = precision.getFractionDigits();
+        if (fractionDigits == 0) {
+            return 17;
+        }
+        AbstractDateTimeConverter.formatDigits(
+                nanoOfSecond / FRACTION_DIVISORS[fractionDigits / 3], fractionDigits, buffer, 18);
+        return 18 + fractionDigits;
+    }
+}
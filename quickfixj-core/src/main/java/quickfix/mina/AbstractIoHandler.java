@@ -32,9 +32,10 @@ import org.slf4j.LoggerFactory;
 
 import quickfix.InvalidMessage;
 import quickfix.Message;
-import quickfix.MessageUtils;
+import quickfix.RawMessageHeader;
 import quickfix.Session;
 import quickfix.SessionID;
+import quickfix.UnparsedMessage;
 import quickfix.field.MsgType;
 
 /**
@@ -110,15 +111,25 @@ public abstract class AbstractIoHandler extends IoHandlerAdapter {
     @Override
     public void messageReceived(IoSession ioSession, Object message) throws Exception {
         String messageString = (String) message;
-        SessionID remoteSessionID = MessageUtils.getReverseSessionID(messageString);
-        Session quickFixSession = findQFSession(ioSession, remoteSessionID);
+        // the header fields are extracted once for session lookup and parsing
+        RawMessageHeader header = new RawMessageHeader().scan(messageString);
+        Session quickFixSession = findQFSession(ioSession);
+        if (quickFixSession == null) {
+            quickFixSession = findQFSession(ioSession, header.getReverseSessionID());
+        }
         if (quickFixSession != null) {
             quickFixSession.getLog().onIncoming(messageString);
+            if (quickFixSession.isParseOnDispatch() && findQFSession(ioSession) != null
+                    && !MsgType.LOGON.equals(header.getMsgType())) {
+                // parsed by Session.next() in the thread processing the message
+                eventHandlingStrategy.onMessage(quickFixSession, new UnparsedMessage(messageString, header));
+                return;
+            }
             try {
-                Message fixMessage = parse(quickFixSession, messageString);
+                Message fixMessage = parse(quickFixSession, messageString, header);
                 processMessage(ioSession, fixMessage);
             } catch (InvalidMessage e) {
-                if (MsgType.LOGON.equals(MessageUtils.getMessageType(messageString))) {
+                if (MsgType.LOGON.equals(header.getMsgType())) {
                     log.error("Invalid LOGON message, disconnecting: " + e.getMessage());
                     ioSession.close(true);
                 } else {
@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix.mina;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import quickfix.Message;
+import quickfix.Session;
+
+/**
+ * Processes messages for all sessions in a single thread, like
+ * {@link SingleThreadedEventHandlingStrategy}, but hands them over through a
+ * preallocated ring buffer instead of a LinkedBlockingQueue. Any number of
+ * threads may publish messages; no object is allocated per message.
+ * <p>
+ * How the message processor thread waits for messages is chosen with a
+ * {@link WaitStrategy}.
+ */
+public class RingBufferEventHandlingStrategy extends SingleThreadedEventHandlingStrategy {
+
+    /**
+     * Determines how the message processor thread waits when the ring buffer is empty.
+     */
+    public enum WaitStrategy {
+        /** Spin on the ring buffer. Lowest latency, but keeps one core busy. */
+        BUSY_SPIN,
+        /** Yield the processor between checks of the ring buffer. */
+        YIELD,
+        /** Park the thread until a publisher wakes it up. Lowest CPU usage. */
+        PARK;
+
+        /**
+         * Converts a setting value (BusySpin, Yield or Park) to a wait strategy.
+         *
+         * @param value the setting value, case-insensitive
+         * @return the wait strategy
+         * @throws IllegalArgumentException if the value is unknown
+         */
+        public static WaitStrategy fromSetting(String value) {
+            if ("BusySpin".equalsIgnoreCase(value)) {
+                return BUSY_SPIN;
+            } else if ("Yield".equalsIgnoreCase(value)) {
+                return YIELD;
+            } else if ("Park".equalsIgnoreCase(value)) {
+                return PARK;
+            }
+            throw new IllegalArgumentException("Unknown wait strategy: " + value);
+        }
+    }
+
+    private static final long WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(THREAD_WAIT_FOR_MESSAGE_MS);
+
+    private final WaitStrategy waitStrategy;
+    private final int mask;
+    private final Session[] sessions;
+    private final Message[] messages;
+    // sequence number last published into each slot, -1 if none yet
+    private final AtomicLongArray published;
+    // next sequence number to be claimed by a publisher
+    private final AtomicLong claimed = new AtomicLong();
+    // number of messages taken out of the ring buffer by the processor thread
+    private final AtomicLong consumed = new AtomicLong();
+    private volatile Thread consumerThread;
+    private volatile boolean consumerParked;
+
+    /**
+     * @param connector the connector whose sessions are processed
+     * @param queueCapacity the minimum capacity, rounded up to a power of two
+     * @param waitStrategy how the message processor thread waits for messages
+     */
+    public RingBufferEventHandlingStrategy(SessionConnector connector, int queueCapacity,
+            WaitStrategy waitStrategy) {
+        super(connector);
+        this.waitStrategy = waitStrategy;
+        final int capacity = capacityFor(queueCapacity);
+        mask = capacity - 1;
+        sessions = new Session[capacity];
+        messages = new Message[capacity];
+        published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    private static int capacityFor(int queueCapacity) {
+        if (queueCapacity < 1 || queueCapacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid ring buffer capacity: " + queueCapacity);
+        }
+        int capacity = 1;
+        while (capacity < queueCapacity) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    @Override
+    protected void enqueue(Session quickfixSession, Message message) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        // a claimed sequence must always be published or the processor thread
+        // stalls on it, so from here on interrupts are only recorded
+        final long sequence = claimed.getAndIncrement();
+        final long wrapPoint = sequence - sessions.length;
+        boolean interrupted = false;
+        while (wrapPoint >= consumed.get()) {
+            // ring buffer is full, wait for the processor thread to catch up
+            LockSupport.parkNanos(1000);
+            if (Thread.interrupted()) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        final int slot = (int) sequence & mask;
+        sessions[slot] = quickfixSession;
+        messages[slot] = message;
+        published.set(slot, sequence);
+        if (consumerParked) {
+            LockSupport.unpark(consumerThread);
+        }
+    }
+
+    @Override
+    protected void processNextMessage() throws InterruptedException {
+        final long sequence = consumed.get();
+        final int slot = (int) sequence & mask;
+        if (published.get(slot) != sequence && !waitFor(slot, sequence)) {
+            return;
+        }
+        process(slot, sequence);
+    }
+
+    @Override
+    protected void processPendingMessages() {
+        long sequence = consumed.get();
+        int slot = (int) sequence & mask;
+        while (published.get(slot) == sequence) {
+            process(slot, sequence);
+            sequence++;
+            slot = (int) sequence & mask;
+        }
+    }
+
+    private void process(int slot, long sequence) {
+        final Session quickfixSession = sessions[slot];
+        final Message message = messages[slot];
+        sessions[slot] = null;
+        messages[slot] = null;
+        consumed.lazySet(sequence + 1);
+        processMessage(quickfixSession, message);
+    }
+
+    private boolean waitFor(int slot, long sequence) throws InterruptedException {
+        final long deadline = System.nanoTime() + WAIT_NANOS;
+        long remaining = WAIT_NANOS;
+        while (remaining > 0) {
+            switch (waitStrategy) {
+            case BUSY_SPIN:
+                break;
+            case YIELD:
+                Thread.yield();
+                break;
+            default:
+                consumerThread = Thread.currentThread();
+                consumerParked = true;
+                if (published.get(slot) != sequence) {
+                    LockSupport.parkNanos(this, remaining);
+                }
+                consumerParked = false;
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            if (published.get(slot) == sequence) {
+                return true;
+            }
+            remaining = deadline - System.nanoTime();
+        }
+        return false;
+    }
+
+    @Override
+    public int getQueueSize() {
+        return (int) Math.min(sessions.length, claimed.get() - consumed.get());
+    }
+}
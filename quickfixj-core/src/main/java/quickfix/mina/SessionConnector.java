@@ -58,6 +58,28 @@ public abstract class SessionConnector implements Connector {
     public static final String SESSIONS_PROPERTY = "sessions";
     public final static String QF_SESSION = "QF_SESSION";
 
+    /**
+     * Connector setting selecting the queue used by single-threaded connectors to hand
+     * messages to the message processor thread: Blocking (default) or RingBuffer.
+     *
+     * @see RingBufferEventHandlingStrategy
+     */
+    public static final String SETTING_EVENT_QUEUE = "EventQueue";
+
+    /**
+     * Connector setting specifying how the message processor thread waits for
+     * messages when the RingBuffer event queue is used: BusySpin, Yield or Park (default).
+     */
+    public static final String SETTING_RING_BUFFER_WAIT_STRATEGY = "RingBufferWaitStrategy";
+
+    /**
+     * Connector setting specifying the number of threads threaded connectors use to
+     * process messages. If it is not set or 0, every session gets its own thread.
+     *
+     * @see ThreadPoolEventHandlingStrategy
+     */
+    public static final String SETTING_DISPATCHER_THREAD_POOL_SIZE = "DispatcherThreadPoolSize";
+
     protected final Logger log = LoggerFactory.getLogger(getClass());
 
     protected final PropertyChangeSupport propertyChangeSupport = new PropertyChangeSupport(this);
@@ -149,6 +171,62 @@ public abstract class SessionConnector implements Connector {
         }
     }
 
+    /**
+     * Creates the event handling strategy of a single-threaded connector, using the queue
+     * selected by the {@link #SETTING_EVENT_QUEUE} setting.
+     *
+     * @param queueCapacity the capacity of the event queue
+     * @return the event handling strategy
+     * @throws ConfigError if the event queue settings are invalid
+     */
+    protected SingleThreadedEventHandlingStrategy createSingleThreadedEventHandlingStrategy(
+            int queueCapacity) throws ConfigError {
+        try {
+            if (!settings.isSetting(SETTING_EVENT_QUEUE)
+                    || "Blocking".equalsIgnoreCase(settings.getString(SETTING_EVENT_QUEUE))) {
+                return new SingleThreadedEventHandlingStrategy(this, queueCapacity);
+            }
+            if (!"RingBuffer".equalsIgnoreCase(settings.getString(SETTING_EVENT_QUEUE))) {
+                throw new ConfigError("Invalid " + SETTING_EVENT_QUEUE + ": "
+                        + settings.getString(SETTING_EVENT_QUEUE));
+            }
+            RingBufferEventHandlingStrategy.WaitStrategy waitStrategy = RingBufferEventHandlingStrategy.WaitStrategy.PARK;
+            if (settings.isSetting(SETTING_RING_BUFFER_WAIT_STRATEGY)) {
+                waitStrategy = RingBufferEventHandlingStrategy.WaitStrategy.fromSetting(
+                        settings.getString(SETTING_RING_BUFFER_WAIT_STRATEGY));
+            }
+            return new RingBufferEventHandlingStrategy(this, queueCapacity, waitStrategy);
+        } catch (FieldConvertError e) {
+            throw new ConfigError(e);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigError(e);
+        }
+    }
+
+    /**
+     * Creates the event handling strategy of a threaded connector. Sessions share a pool
+     * of threads if {@link #SETTING_DISPATCHER_THREAD_POOL_SIZE} is set, otherwise each
+     * session gets its own thread.
+     *
+     * @param queueCapacity the capacity of the event queue of each session
+     * @return the event handling strategy
+     * @throws ConfigError if the thread pool size is invalid
+     */
+    protected ThreadedEventHandlingStrategy createThreadedEventHandlingStrategy(
+            int queueCapacity) throws ConfigError {
+        int poolSize = 0;
+        if (settings.isSetting(SETTING_DISPATCHER_THREAD_POOL_SIZE)) {
+            poolSize = getIntSetting(SETTING_DISPATCHER_THREAD_POOL_SIZE);
+            if (poolSize < 0) {
+                throw new ConfigError("Invalid " + SETTING_DISPATCHER_THREAD_POOL_SIZE + ": " + poolSize);
+            }
+        }
+        if (poolSize == 0) {
+            return new ThreadPerSessionEventHandlingStrategy(this, queueCapacity);
+        }
+        return new ThreadPoolEventHandlingStrategy(this, queueCapacity, poolSize);
+    }
+
     /**
      * Check if we have at least one session and that all the sessions are logged on
      *
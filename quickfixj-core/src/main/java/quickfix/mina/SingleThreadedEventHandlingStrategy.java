@@ -45,19 +45,36 @@ public class SingleThreadedEventHandlingStrategy implements EventHandlingStrateg
         eventQueue = new LinkedBlockingQueue<SessionMessageEvent>(queueCapacity);
     }
 
+    /**
+     * Constructor for subclasses which hand messages to the processor thread through
+     * their own queue. Such subclasses must override {@link #enqueue(Session, Message)},
+     * {@link #processNextMessage()}, {@link #processPendingMessages()} and {@link #getQueueSize()}.
+     */
+    protected SingleThreadedEventHandlingStrategy(SessionConnector connector) {
+        sessionConnector = connector;
+        eventQueue = null;
+    }
+
     @Override
     public void onMessage(Session quickfixSession, Message message) {
         if (message == END_OF_STREAM && isStopped) {
             return;
         }
         try {
-            eventQueue.put(new SessionMessageEvent(quickfixSession, message));
+            enqueue(quickfixSession, message);
         } catch (InterruptedException e) {
             isStopped = true;
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Hands a message over to the message processor thread, waiting for space if the queue is full.
+     */
+    protected void enqueue(Session quickfixSession, Message message) throws InterruptedException {
+        eventQueue.put(new SessionMessageEvent(quickfixSession, message));
+    }
+
     @Override
     public SessionConnector getSessionConnector() {
         return sessionConnector;
@@ -67,13 +84,7 @@ public class SingleThreadedEventHandlingStrategy implements EventHandlingStrateg
         while (true) {
             synchronized (this) {
                 if (isStopped) {
-                    if (!eventQueue.isEmpty()) {
-                        final LinkedBlockingQueue<SessionMessageEvent> tempQueue = new LinkedBlockingQueue<SessionMessageEvent>();
-                        eventQueue.drainTo(tempQueue);
-                        for (SessionMessageEvent event : tempQueue) {
-                            event.processMessage();
-                        }
-                    }
+                    processPendingMessages();
                     if (stopTime == 0) {
                         stopTime = SystemTime.currentTimeMillis();
                     }
@@ -86,18 +97,35 @@ public class SingleThreadedEventHandlingStrategy implements EventHandlingStrateg
                 }
             }
             try {
-                SessionMessageEvent event = getMessage();
-                if (event != null) {
-                    event.processMessage();
-                }
+                processNextMessage();
             } catch (InterruptedException e) {
                 // ignore
             }
         }
     }
 
-    private SessionMessageEvent getMessage() throws InterruptedException {
-        return eventQueue.poll(THREAD_WAIT_FOR_MESSAGE_MS, TimeUnit.MILLISECONDS);
+    /**
+     * Processes the next message, waiting up to {@link #THREAD_WAIT_FOR_MESSAGE_MS}
+     * for one to arrive.
+     */
+    protected void processNextMessage() throws InterruptedException {
+        SessionMessageEvent event = eventQueue.poll(THREAD_WAIT_FOR_MESSAGE_MS, TimeUnit.MILLISECONDS);
+        if (event != null) {
+            event.processMessage();
+        }
+    }
+
+    /**
+     * Processes all messages still queued, without waiting for new ones.
+     */
+    protected void processPendingMessages() {
+        if (!eventQueue.isEmpty()) {
+            final LinkedBlockingQueue<SessionMessageEvent> tempQueue = new LinkedBlockingQueue<SessionMessageEvent>();
+            eventQueue.drainTo(tempQueue);
+            for (SessionMessageEvent event : tempQueue) {
+                event.processMessage();
+            }
+        }
     }
 
     /**
@@ -140,11 +168,15 @@ public class SingleThreadedEventHandlingStrategy implements EventHandlingStrateg
         }
 
         public void processMessage() {
-            try {
-                quickfixSession.next(message);
-            } catch (Throwable e) {
-                LogUtil.logThrowable(quickfixSession.getSessionID(), e.getMessage(), e);
-            }
+            SingleThreadedEventHandlingStrategy.processMessage(quickfixSession, message);
+        }
+    }
+
+    static void processMessage(Session quickfixSession, Message message) {
+        try {
+            quickfixSession.next(message);
+        } catch (Throwable e) {
+            LogUtil.logThrowable(quickfixSession.getSessionID(), e.getMessage(), e);
         }
     }
 
@@ -36,7 +36,7 @@ import static quickfix.mina.EventHandlingStrategy.END_OF_STREAM;
 /**
  * Processes messages in a session-specific thread.
  */
-public class ThreadPerSessionEventHandlingStrategy implements EventHandlingStrategy {
+public class ThreadPerSessionEventHandlingStrategy implements ThreadedEventHandlingStrategy {
 
     private final ConcurrentMap<SessionID, MessageDispatchingThread> dispatchers = new ConcurrentHashMap<SessionID, MessageDispatchingThread>();
     private final SessionConnector sessionConnector;
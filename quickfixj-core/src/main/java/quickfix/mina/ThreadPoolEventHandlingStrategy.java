@@ -0,0 +1,282 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix.mina;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import quickfix.LogUtil;
+import quickfix.Message;
+import quickfix.Session;
+import quickfix.SessionID;
+
+/**
+ * Processes messages of each session in order, but multiplexes all sessions onto
+ * a fixed pool of threads instead of starting one thread per session. A session
+ * is only scheduled on the pool while it has queued messages, so idle sessions
+ * cost no thread at all.
+ * <p>
+ * The dispatcher of a session is dropped once it has processed the end of stream
+ * of a disconnect and has nothing left to do, so dynamic sessions do not
+ * accumulate. The pool is shut down by {@link #stopDispatcherThreads()} and
+ * created again for the next message.
+ */
+public class ThreadPoolEventHandlingStrategy implements ThreadedEventHandlingStrategy {
+
+    /**
+     * Maximum number of messages a session processes before giving its pool
+     * thread to the next session.
+     */
+    static final int MAX_MESSAGES_PER_RUN = 64;
+
+    static final String THREAD_NAME_PREFIX = "QFJ Dispatcher pool-";
+
+    private final ConcurrentMap<SessionID, SessionDispatcher> sessionDispatchers = new ConcurrentHashMap<SessionID, SessionDispatcher>();
+    private final SessionConnector sessionConnector;
+    private final int queueCapacity;
+    private final int poolSize;
+    private final AtomicInteger threadNumber = new AtomicInteger();
+    private ThreadPoolExecutor executor;
+
+    public ThreadPoolEventHandlingStrategy(SessionConnector connector, int queueCapacity, int poolSize) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("Invalid dispatcher thread pool size: " + poolSize);
+        }
+        sessionConnector = connector;
+        this.queueCapacity = queueCapacity;
+        this.poolSize = poolSize;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    @Override
+    public void onMessage(Session quickfixSession, Message message) {
+        while (true) {
+            SessionDispatcher dispatcher = sessionDispatchers.get(quickfixSession.getSessionID());
+            if (dispatcher == null) {
+                final SessionDispatcher temp = new SessionDispatcher(quickfixSession, queueCapacity);
+                dispatcher = sessionDispatchers.putIfAbsent(quickfixSession.getSessionID(), temp);
+                if (dispatcher == null) {
+                    dispatcher = temp;
+                }
+            }
+            if (message == null || dispatcher.enqueue(message)) {
+                return;
+            }
+            // the dispatcher has just been dropped, the session gets a new one
+        }
+    }
+
+    @Override
+    public SessionConnector getSessionConnector() {
+        return sessionConnector;
+    }
+
+    @Override
+    public void stopDispatcherThreads() {
+        for (final SessionDispatcher dispatcher : sessionDispatchers.values()) {
+            dispatcher.stopDispatcher();
+        }
+
+        // wait for the pending messages of all sessions to be processed
+        for (final SessionDispatcher dispatcher : sessionDispatchers.values()) {
+            while (!dispatcher.isIdle()) {
+                try {
+                    Thread.sleep(100);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        final ThreadPoolExecutor stoppedExecutor;
+        synchronized (this) {
+            stoppedExecutor = executor;
+            executor = null;
+        }
+        if (stoppedExecutor != null) {
+            stoppedExecutor.shutdown();
+            try {
+                stoppedExecutor.awaitTermination(THREAD_WAIT_FOR_MESSAGE_MS * 20,
+                        TimeUnit.MILLISECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private synchronized void execute(SessionDispatcher dispatcher) {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new DispatcherThreadFactory());
+            executor.allowCoreThreadTimeOut(true);
+        }
+        executor.execute(dispatcher);
+    }
+
+    SessionDispatcher getDispatcher(SessionID sessionID) {
+        return sessionDispatchers.get(sessionID);
+    }
+
+    @Override
+    public int getQueueSize() {
+        int ret = 0;
+        for (final SessionDispatcher dispatcher : sessionDispatchers.values()) {
+            ret += dispatcher.getQueueSize();
+        }
+        return ret;
+    }
+
+    @Override
+    public int getQueueSize(SessionID sessionID) {
+        SessionDispatcher dispatcher = sessionDispatchers.get(sessionID);
+        if (dispatcher != null) {
+            return dispatcher.getQueueSize();
+        }
+        return 0;
+    }
+
+    /**
+     * Queues the messages of one session. It is handed to the executor only when
+     * it has messages, and never runs on more than one thread at a time.
+     * <p>
+     * A dispatcher retires when it is idle after an end of stream. Retiring and
+     * enqueuing are mutually exclusive, so a message is either processed by the
+     * old dispatcher or goes to a new one, which only starts once the old one
+     * has stopped calling the session.
+     */
+    class SessionDispatcher implements Runnable {
+        private final Session quickfixSession;
+        private final BlockingQueue<Message> messages;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean stopping;
+        // guarded by this
+        private int enqueuing;
+        private boolean retired;
+
+        SessionDispatcher(Session session, int queueCapacity) {
+            quickfixSession = session;
+            messages = new LinkedBlockingQueue<Message>(queueCapacity);
+        }
+
+        /**
+         * @return false if the dispatcher has retired and the message was not queued
+         */
+        public boolean enqueue(Message message) {
+            if (message == END_OF_STREAM) {
+                if (stopping) {
+                    return true;
+                }
+            } else {
+                stopping = false;
+            }
+            synchronized (this) {
+                if (retired) {
+                    return false;
+                }
+                enqueuing++;
+            }
+            try {
+                messages.put(message);
+            } catch (final InterruptedException e) {
+                quickfixSession.getLog().onErrorEvent(e.toString());
+                return true;
+            } finally {
+                synchronized (this) {
+                    enqueuing--;
+                }
+            }
+            schedule();
+            return true;
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                execute(this);
+            }
+        }
+
+        public int getQueueSize() {
+            return messages.size();
+        }
+
+        @Override
+        public void run() {
+            boolean endOfStream = false;
+            for (int i = 0; i < MAX_MESSAGES_PER_RUN; i++) {
+                final Message message = messages.poll();
+                if (message == null) {
+                    break;
+                }
+                try {
+                    quickfixSession.next(message);
+                } catch (final Throwable e) {
+                    LogUtil.logThrowable(quickfixSession.getSessionID(),
+                            "Error during message processing", e);
+                }
+                endOfStream = message == END_OF_STREAM;
+            }
+            if (endOfStream && retire()) {
+                return;
+            }
+            scheduled.set(false);
+            if (!messages.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private synchronized boolean retire() {
+            if (enqueuing > 0 || !messages.isEmpty()) {
+                return false;
+            }
+            retired = true;
+            sessionDispatchers.remove(quickfixSession.getSessionID(), this);
+            scheduled.set(false);
+            return true;
+        }
+
+        boolean isIdle() {
+            return !scheduled.get() && messages.isEmpty();
+        }
+
+        public void stopDispatcher() {
+            enqueue(END_OF_STREAM);
+            stopping = true;
+        }
+    }
+
+    private class DispatcherThreadFactory implements ThreadFactory {
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
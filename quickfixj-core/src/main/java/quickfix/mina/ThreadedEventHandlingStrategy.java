@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix.mina;
+
+/**
+ * An event handling strategy that dispatches the messages of the sessions of a
+ * threaded connector on threads it owns, which are stopped with the connector.
+ *
+ * @see ThreadPerSessionEventHandlingStrategy
+ * @see ThreadPoolEventHandlingStrategy
+ */
+public interface ThreadedEventHandlingStrategy extends EventHandlingStrategy {
+
+    /**
+     * Processes the messages already queued for each session and stops the
+     * dispatching threads.
+     */
+    void stopDispatcherThreads();
+}
@@ -20,6 +20,7 @@
 package quickfix.mina.message;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -41,6 +42,7 @@ public class FIXMessageEncoder implements MessageEncoder<Object> {
 
     private static final Set<Class<?>> TYPES;
     private final String charsetEncoding;
+    private final Charset charset;
 
     static {
         Set<Class<?>> types = new HashSet<Class<?>>();
@@ -51,6 +53,7 @@ public class FIXMessageEncoder implements MessageEncoder<Object> {
 
     public FIXMessageEncoder() {
         charsetEncoding = CharsetSupport.getCharset();
+        charset = CharsetSupport.getCharsetInstance();
     }
 
     public static Set<Class<?>> getMessageTypes() {
@@ -69,16 +72,42 @@ public class FIXMessageEncoder implements MessageEncoder<Object> {
                     + message.getClass());
         }
 
-        byte[] bytes;
-        try {
-            bytes = fixMessageString.getBytes(charsetEncoding);
-        } catch (UnsupportedEncodingException e) {
-            throw new ProtocolCodecException(e);
+        IoBuffer buffer;
+        if (CharsetSupport.isStringEquivalent(charset)) {
+            buffer = encodeStringEquivalent(fixMessageString);
+        } else {
+            byte[] bytes;
+            try {
+                bytes = fixMessageString.getBytes(charsetEncoding);
+            } catch (UnsupportedEncodingException e) {
+                throw new ProtocolCodecException(e);
+            }
+            buffer = IoBuffer.allocate(bytes.length);
+            buffer.put(bytes);
         }
-
-        IoBuffer buffer = IoBuffer.allocate(bytes.length);
-        buffer.put(bytes);
         buffer.flip();
         out.write(buffer);
     }
+
+    /**
+     * Copies the message characters straight into the buffer. For ASCII and ISO-8859-1
+     * every character is its own byte, so there is no need for an intermediate byte array.
+     */
+    private static IoBuffer encodeStringEquivalent(String fixMessageString) {
+        final int length = fixMessageString.length();
+        final IoBuffer buffer = IoBuffer.allocate(length);
+        if (buffer.hasArray()) {
+            final byte[] bytes = buffer.array();
+            final int offset = buffer.arrayOffset();
+            for (int i = 0; i < length; i++) {
+                bytes[offset + i] = (byte) fixMessageString.charAt(i);
+            }
+            buffer.position(length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                buffer.put((byte) fixMessageString.charAt(i));
+            }
+        }
+        return buffer;
+    }
 }
@@ -23,6 +23,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
@@ -51,6 +52,7 @@ import quickfix.field.QuoteReqID;
 import quickfix.field.SenderCompID;
 import quickfix.field.SenderSubID;
 import quickfix.field.SendingTime;
+import quickfix.field.SessionRejectReason;
 import quickfix.field.Side;
 import quickfix.field.Symbol;
 import quickfix.field.TargetCompID;
@@ -314,6 +316,50 @@ public class DataDictionaryTest {
         assertTrue(dd.isFieldValue(65, "FOO"));
     }
 
+    @Test
+    public void testValidateMultipleValueStringField() throws Exception {
+        final DataDictionary dictionary = getDictionary();
+        final String prefix = "8=FIX.4.4\0019=0\00135=D\00134=2\00149=SENDER\00156=TARGET\001"
+                + "52=20110412-13:43:00\00111=123\00121=1\00138=42\00140=1\00154=1\00155=QFJ\001"
+                + "60=20110412-13:43:00\00118=";
+
+        dictionary.validate(new Message(prefix + "1 2 G\00110=000\001", dictionary, false));
+        dictionary.validate(new Message(prefix + "1 2 \00110=000\001", dictionary, false));
+
+        try {
+            dictionary.validate(new Message(prefix + "1 2 ZZ\00110=000\001", dictionary, false));
+            fail("no exception thrown");
+        } catch (IncorrectTagValue e) {
+            assertEquals(18, e.field);
+        }
+        try {
+            dictionary.validate(new Message(prefix + "1  2\00110=000\001", dictionary, false));
+            fail("no exception thrown");
+        } catch (IncorrectTagValue e) {
+            assertEquals(18, e.field);
+        }
+    }
+
+    @Test
+    public void testValidateLargeUserDefinedTag() throws Exception {
+        final DataDictionary dictionary = new DataDictionary(getDictionary());
+        final Message message = new Message(
+                "8=FIX.4.4\0019=0\00135=D\00134=2\00149=SENDER\00156=TARGET\001"
+                        + "52=20110412-13:43:00\00111=123\00121=1\00138=42\00140=1\00154=1\00155=QFJ\001"
+                        + "60=20110412-13:43:00\001100000=X\00110=000\001", dictionary, false);
+
+        try {
+            dictionary.validate(message);
+            fail("no exception thrown");
+        } catch (FieldException e) {
+            assertEquals(SessionRejectReason.INVALID_TAG_NUMBER, e.getSessionRejectReason());
+            assertEquals(100000, e.getField());
+        }
+
+        dictionary.setCheckUserDefinedFields(false);
+        dictionary.validate(message);
+    }
+
     @Test
     public void testMessageCategory() throws Exception {
         DataDictionary dd = getDictionary();
@@ -185,6 +185,19 @@ public class DefaultSessionFactoryTest {
         assertEquals(0.37, session.getTestRequestDelayMultiplier(), 0);
     }
 
+    @Test
+    public void testTimestampPrecision() throws Exception {
+        Session session = factory.create(sessionID, settings);
+        assertNull(session.getTimestampPrecision());
+
+        settings.setString(sessionID, Session.SETTING_TIMESTAMP_PRECISION, "Micros");
+        session = factory.create(sessionID, settings);
+        assertEquals(UtcTimestampPrecision.MICROS, session.getTimestampPrecision());
+
+        settings.setString(sessionID, Session.SETTING_TIMESTAMP_PRECISION, "PICOS");
+        createSessionAndAssertConfigError("no exception", "Invalid TimeStampPrecision: PICOS");
+    }
+
     private void createSessionAndAssertConfigError(String message, String pattern) {
         try {
             factory.create(sessionID, settings);
@@ -26,8 +26,12 @@ import java.util.TimeZone;
 
 import quickfix.field.converter.BooleanConverter;
 import quickfix.field.converter.CharConverter;
+import quickfix.field.converter.DecimalConverter;
 import quickfix.field.converter.DoubleConverter;
+import quickfix.field.converter.FormatValidator;
 import quickfix.field.converter.IntConverter;
+import quickfix.field.converter.LongConverter;
+import quickfix.field.converter.ScaledDecimalConverter;
 import quickfix.field.converter.UtcDateOnlyConverter;
 import quickfix.field.converter.UtcTimeOnlyConverter;
 import quickfix.field.converter.UtcTimestampConverter;
@@ -61,6 +65,109 @@ public class FieldConvertersTest extends TestCase {
         }
     }
 
+    public void testLongConversion() throws Exception {
+        assertEquals("-9223372036854775808", LongConverter.convert(Long.MIN_VALUE));
+        assertEquals(Long.MIN_VALUE, LongConverter.convert("-9223372036854775808"));
+        assertEquals(23, LongConverter.convert("00023"));
+        try {
+            LongConverter.convert("9223372036854775808");
+            fail();
+        } catch (FieldConvertError e) {
+            // expected
+        }
+        try {
+            IntConverter.convert("2147483648");
+            fail();
+        } catch (FieldConvertError e) {
+            // expected
+        }
+        try {
+            LongConverter.convert("-");
+            fail();
+        } catch (FieldConvertError e) {
+            // expected
+        }
+    }
+
+    public void testScaledDecimalConversion() throws Exception {
+        assertEquals(4532, DecimalConverter.convertScaled("45.32", 2));
+        assertEquals(453200, DecimalConverter.convertScaled("45.3200", 4));
+        assertEquals(4532, DecimalConverter.convertScaled("45.3200", 2));
+        assertEquals(-500, DecimalConverter.convertScaled("-.5", 3));
+        assertEquals(2300, DecimalConverter.convertScaled("23.", 2));
+        try {
+            DecimalConverter.convertScaled("45.325", 2);
+            fail();
+        } catch (FieldConvertError e) {
+            // expected
+        }
+        try {
+            DecimalConverter.convertScaled("92233720368547758.08", 3);
+            fail();
+        } catch (FieldConvertError e) {
+            // expected
+        }
+        assertEquals("45.32", DecimalConverter.convertScaled(453200, 4));
+        assertEquals("45", DecimalConverter.convertScaled(4500, 2));
+        assertEquals("-0.005", DecimalConverter.convertScaled(-5, 3));
+        assertEquals("0", DecimalConverter.convertScaled(0, 3));
+    }
+
+    public void testScaledDecimalConverter() throws Exception {
+        ScaledDecimal d = ScaledDecimalConverter.convert("45.3200");
+        assertEquals(4532, d.getUnscaledValue());
+        assertEquals(2, d.getScale());
+        d = ScaledDecimalConverter.convert("-000.05");
+        assertEquals(-5, d.getUnscaledValue());
+        assertEquals(2, d.getScale());
+        d = ScaledDecimalConverter.convert("1200.");
+        assertEquals(1200, d.getUnscaledValue());
+        assertEquals(0, d.getScale());
+        try {
+            ScaledDecimalConverter.convert("0.0000000000000000001");
+            fail();
+        } catch (FieldConvertError e) {
+            // expected
+        }
+        try {
+            ScaledDecimalConverter.convert("1,5");
+            fail();
+        } catch (FieldConvertError e) {
+            // expected
+        }
+        assertEquals("45.32", ScaledDecimalConverter.convert(ScaledDecimal.valueOf(453200, 4)));
+        assertEquals("-9223372036854775808",
+                ScaledDecimalConverter.convert(ScaledDecimal.valueOf(Long.MIN_VALUE)));
+    }
+
+    public void testScaledDecimal() throws Exception {
+        ScaledDecimal d = ScaledDecimal.valueOf(150, 2);
+        assertEquals(ScaledDecimal.valueOf(15, 1), d);
+        assertEquals(ScaledDecimal.valueOf(15, 1).hashCode(), d.hashCode());
+        assertEquals(0, d.compareTo(ScaledDecimal.valueOf(15, 1)));
+        assertTrue(d.compareTo(ScaledDecimal.valueOf(1501, 3)) < 0);
+        assertTrue(ScaledDecimal.valueOf(Long.MAX_VALUE).compareTo(ScaledDecimal.valueOf(1, 18)) > 0);
+        assertEquals(1.5, d.doubleValue(), 0);
+        assertEquals(1, d.longValue());
+        assertEquals(15000, d.toScaled(4));
+        assertEquals(15, d.toScaled(1));
+        assertEquals(ScaledDecimal.valueOf(15, 1), d.stripTrailingZeros());
+        assertEquals(new java.math.BigDecimal("1.50"), d.toBigDecimal());
+        assertEquals(d, ScaledDecimal.valueOf(new java.math.BigDecimal("1.5E0")));
+        try {
+            d.toScaled(0);
+            fail();
+        } catch (ArithmeticException e) {
+            // expected
+        }
+        try {
+            ScaledDecimal.valueOf(Long.MAX_VALUE).toScaled(1);
+            fail();
+        } catch (ArithmeticException e) {
+            // expected
+        }
+    }
+
     public void testDoubleConversion() throws Exception {
         assertEquals("45.32", DoubleConverter.convert(45.32));
         assertEquals("45", DoubleConverter.convert(45));
@@ -213,6 +320,39 @@ public class FieldConvertersTest extends TestCase {
         }
     }
 
+    public void testUtcTimeStampNanosConversion() throws Exception {
+        final long nanos = 956750706555123456L;
+        assertEquals("20000426-12:05:06",
+                UtcTimestampConverter.convertNanos(nanos, UtcTimestampPrecision.SECONDS));
+        assertEquals("20000426-12:05:06.555",
+                UtcTimestampConverter.convertNanos(nanos, UtcTimestampPrecision.MILLIS));
+        assertEquals("20000426-12:05:06.555123",
+                UtcTimestampConverter.convertNanos(nanos, UtcTimestampPrecision.MICROS));
+        assertEquals("20000426-12:05:06.555123456",
+                UtcTimestampConverter.convertNanos(nanos, UtcTimestampPrecision.NANOS));
+        // the cached date and time digits are rendered again when they change
+        assertEquals("20000427-00:00:00.000000001",
+                UtcTimestampConverter.convertNanos(956793600000000001L, UtcTimestampPrecision.NANOS));
+        assertEquals("20000426-12:05:06.555",
+                UtcTimestampConverter.convertNanos(nanos, UtcTimestampPrecision.MILLIS));
+
+        assertEquals(nanos, UtcTimestampConverter.convertToNanos("20000426-12:05:06.555123456"));
+        assertEquals(956750706555123000L,
+                UtcTimestampConverter.convertToNanos("20000426-12:05:06.555123"));
+        assertEquals(956750706555000000L,
+                UtcTimestampConverter.convertToNanos("20000426-12:05:06.555"));
+        assertEquals(956750706555L, UtcTimestampConverter.convertToMillis("20000426-12:05:06.555123456"));
+        for (String value : new String[] { "20000426-12:05:06.5551", "20000426-12:05:06.55512",
+                "20000426-12:05:06.5551234", "20000426-12:05:06.5551234567" }) {
+            try {
+                UtcTimestampConverter.convertToNanos(value);
+                fail(value);
+            } catch (FieldConvertError e) {
+                // expected
+            }
+        }
+    }
+
     public void testUtcTimeOnlyConversion() throws Exception {
         Calendar c = new GregorianCalendar(0, 0, 0, 12, 5, 6);
         c.setTimeZone(TimeZone.getTimeZone("UTC"));
@@ -298,4 +438,56 @@ public class FieldConvertersTest extends TestCase {
     //      try{ CheckSumConvertor::convert( 256 ); assert( false ); }
     //      catch ( FieldConvertError& ) {}}
     //    }
+
+    public void testFormatValidation() throws Exception {
+        assertTrue(FormatValidator.isInt("123"));
+        assertTrue(FormatValidator.isInt("-2147483648"));
+        assertFalse(FormatValidator.isInt("2147483648"));
+        assertFalse(FormatValidator.isInt("+200"));
+        assertFalse(FormatValidator.isInt("-"));
+        assertFalse(FormatValidator.isInt(""));
+
+        assertTrue(FormatValidator.isDecimal("45.32"));
+        assertTrue(FormatValidator.isDecimal("-.5"));
+        assertTrue(FormatValidator.isDecimal("23."));
+        assertFalse(FormatValidator.isDecimal("."));
+        assertFalse(FormatValidator.isDecimal("1.2.3"));
+        assertFalse(FormatValidator.isDecimal("1e5"));
+
+        assertTrue(FormatValidator.isBoolean("Y"));
+        assertFalse(FormatValidator.isBoolean("y"));
+        assertTrue(FormatValidator.isChar("a"));
+        assertFalse(FormatValidator.isChar("ab"));
+
+        assertTrue(FormatValidator.isUtcTimestamp("20000426-12:05:06"));
+        assertTrue(FormatValidator.isUtcTimestamp("20000426-12:05:06.555"));
+        assertTrue(FormatValidator.isUtcTimestamp("20000426-12:05:06.555123"));
+        assertTrue(FormatValidator.isUtcTimestamp("20000426-12:05:06.555123456"));
+        assertFalse(FormatValidator.isUtcTimestamp("20000426-12:05:06.5"));
+        assertFalse(FormatValidator.isUtcTimestamp("20000426-12:05:06.55"));
+        assertFalse(FormatValidator.isUtcTimestamp("20000426-12:05:06.5551"));
+        assertFalse(FormatValidator.isUtcTimestamp("20000426-12:05:06.55512"));
+        assertFalse(FormatValidator.isUtcTimestamp("20000426-12:05:06.5551234"));
+        assertFalse(FormatValidator.isUtcTimestamp("20000426-12:05:06.55512345"));
+        assertFalse(FormatValidator.isUtcTimestamp("20000426-12:05:06.5551234567"));
+        assertFalse(FormatValidator.isUtcTimestamp("20000426-12:05:06-555123"));
+        assertFalse(FormatValidator.isUtcTimestamp("20000426 12:05:06"));
+        assertTrue(FormatValidator.isUtcTimeOnly("12:05:06"));
+        assertTrue(FormatValidator.isUtcTimeOnly("12:05:06.555"));
+        assertFalse(FormatValidator.isUtcTimeOnly("1:05:06"));
+        assertTrue(FormatValidator.isUtcDateOnly("20000426"));
+        assertFalse(FormatValidator.isUtcDateOnly("2000/04/26"));
+        assertTrue(FormatValidator.isLocalMktDate("20000426"));
+        assertFalse(FormatValidator.isLocalMktDate("2000042"));
+
+        assertTrue(FormatValidator.isMonthYear("200004"));
+        assertTrue(FormatValidator.isMonthYear("20000426"));
+        assertTrue(FormatValidator.isMonthYear("200004w2"));
+        assertFalse(FormatValidator.isMonthYear("200004w6"));
+        assertFalse(FormatValidator.isMonthYear("2000-04"));
+
+        // ranges of a larger value
+        assertTrue(FormatValidator.isInt("44=123\001", 3, 6));
+        assertTrue(FormatValidator.isUtcTimestamp("52=20000426-12:05:06\001", 3, 20));
+    }
 }
@@ -87,4 +87,85 @@ public class FieldMapTest extends TestCase {
         testOrdering(new int[] { 1, 2, 3 }, new int[] { 3, 1 }, new int[] { 3, 1, 2 });
         testOrdering(new int[] { 3, 2, 1 }, new int[] { 3, 1 }, new int[] { 3, 1, 2 });
     }
+
+    public void testRemoveAndReplaceKeepOrdering() {
+        FieldMap map = new Message(new int[] { 5, 1 });
+        for (int tag = 100; tag > 0; tag--) {
+            map.setInt(tag, tag);
+        }
+        assertEquals(100, countFields(map));
+        for (int tag = 2; tag <= 100; tag += 2) {
+            map.removeField(tag);
+        }
+        map.setInt(7, 70);
+        assertFalse(map.isSetField(2));
+        assertTrue(map.isSetField(99));
+        assertEquals(50, countFields(map));
+
+        Iterator<Field<?>> it = map.iterator();
+        assertEquals(5, it.next().getTag());
+        assertEquals(1, it.next().getTag());
+        assertEquals(3, it.next().getTag());
+        Field<?> field = it.next();
+        assertEquals(7, field.getTag());
+        assertEquals("70", field.getObject());
+        int previous = 7;
+        while (it.hasNext()) {
+            int tag = it.next().getTag();
+            assertTrue(tag > previous);
+            previous = tag;
+        }
+    }
+
+    public void testIteratorRemove() throws Exception {
+        FieldMap map = new Message();
+        for (int tag = 1; tag <= 10; tag++) {
+            map.setInt(tag, tag);
+        }
+        for (Iterator<Field<?>> it = map.iterator(); it.hasNext();) {
+            if (it.next().getTag() % 3 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(7, countFields(map));
+        assertFalse(map.isSetField(6));
+        assertEquals(10, map.getInt(10));
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.isSetField(10));
+    }
+
+    public void testPrimitiveAccessors() throws Exception {
+        FieldMap map = new Message();
+        map.setLong(100, Long.MAX_VALUE);
+        assertEquals("9223372036854775807", map.getString(100));
+        assertEquals(Long.MAX_VALUE, map.getLong(100));
+
+        map.setString(44, "123.4567");
+        assertEquals(1234567L, map.getScaledDecimal(44, 4));
+        assertEquals(123456700L, map.getScaledDecimal(44, 6));
+        try {
+            map.getScaledDecimal(44, 2);
+            fail("no exception thrown");
+        } catch (FieldException e) {
+            assertEquals(44, e.getField());
+        }
+        map.setScaledDecimal(44, -1250, 4);
+        assertEquals("-0.125", map.getString(44));
+
+        map.setUtcTimeStamp(60, 1000000000123L, true);
+        assertEquals("20010909-01:46:40.123", map.getString(60));
+        assertEquals(1000000000123L, map.getUtcTimeStampMillis(60));
+        assertEquals(map.getUtcTimeStamp(60).getTime(), map.getUtcTimeStampMillis(60));
+        map.setUtcTimeStamp(60, 1000000000123L, false);
+        assertEquals("20010909-01:46:40", map.getString(60));
+    }
+
+    private int countFields(FieldMap map) {
+        int count = 0;
+        for (Iterator<Field<?>> it = map.iterator(); it.hasNext(); it.next()) {
+            count++;
+        }
+        return count;
+    }
 }
@@ -192,6 +192,26 @@ public class FieldTest {
         DecimalField field = new DecimalField(11, Double.POSITIVE_INFINITY);
     }
 
+    @Test
+    public void testScaledDecimalField() throws Exception {
+        ScaledDecimalField field = new ScaledDecimalField(11);
+        assertEquals(ScaledDecimal.ZERO, field.getValue());
+        field.setValue(1230, 2);
+        assertEquals(11, field.getTag());
+        assertEquals(ScaledDecimal.valueOf(123, 1), field.getValue());
+        assertEquals("11=12.3", field.toString());
+        field = new ScaledDecimalField(22, ScaledDecimal.valueOf(-345, 1));
+        assertEquals(22, field.getTag());
+        assertTrue(field.valueEquals(ScaledDecimal.valueOf(new BigDecimal("-34.50"))));
+
+        Message message = new Message();
+        message.setField(new ScaledDecimalField(44, 1005, 3));
+        assertEquals("1.005", message.getString(44));
+        ScaledDecimalField price = message.getField(new ScaledDecimalField(44));
+        assertEquals(1005, price.getValue().getUnscaledValue());
+        assertEquals(3, price.getValue().getScale());
+    }
+
     @Test
     public void testCharField() {
         CharField field = new CharField(11);
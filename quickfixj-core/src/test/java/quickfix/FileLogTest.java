@@ -183,6 +183,93 @@ public class FileLogTest {
                 .getEventFileName()));
     }
 
+    @Test
+    public void testAsyncLog() throws Exception {
+        long systemTime = System.currentTimeMillis();
+        SystemTime.setTimeSource(new MockSystemTimeSource(systemTime));
+        SessionID sessionID = new SessionID("FIX.4.2", "SENDER" + systemTime, "TARGET" + systemTime);
+
+        SessionSettings settings = new SessionSettings();
+        settings.setString(sessionID, FileLogFactory.SETTING_FILE_LOG_PATH, getTempDirectory());
+        settings.setBool(sessionID, FileLogFactory.SETTING_FILE_LOG_ASYNC, true);
+        settings.setLong(FileLogFactory.SETTING_FILE_LOG_ASYNC_BUFFER_SIZE, 4);
+        settings.setString(FileLogFactory.SETTING_FILE_LOG_ASYNC_OVERFLOW_POLICY, "Spill");
+        FileLogFactory factory = new FileLogFactory(settings);
+        FileLog log = (FileLog) factory.create(sessionID);
+        log.clear();
+
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            log.onIncoming("IN" + i);
+            log.onOutgoing("OUT" + i);
+            expected.append("IN").append(i).append('\n');
+            expected.append("OUT").append(i).append('\n');
+        }
+        log.onEvent("EVENTTEST");
+        log.close();
+
+        String formattedTime = UtcTimestampConverter.convert(new Date(systemTime), false);
+        assertEquals("wrong message", expected.toString(), readLog(log.getMessagesFileName()));
+        assertEquals("wrong message", formattedTime + ": EVENTTEST\n", readLog(log.getEventFileName()));
+    }
+
+    @Test
+    public void testAsyncLogDropsEntriesWhenFull() throws Exception {
+        long systemTime = System.currentTimeMillis();
+        SessionID sessionID = new SessionID("FIX.4.2", "SENDER" + systemTime, "TARGET" + systemTime);
+        AsyncFileLogWriter writer = new AsyncFileLogWriter(1, AsyncFileLogWriter.OverflowPolicy.DROP);
+        writer.register();
+        FileLog log = new FileLog(getTempDirectory(), sessionID, false, false, true, writer);
+        log.clear();
+
+        // the writer thread cannot write while the log is locked
+        synchronized (log) {
+            log.onIncoming("FIRST");
+            Thread.sleep(200);
+            log.onIncoming("SECOND");
+            log.onIncoming("THIRD");
+        }
+        log.close();
+
+        assertTrue(writer.getDroppedEntries() > 0);
+        assertTrue(readLog(log.getMessagesFileName()).startsWith("FIRST\n"));
+    }
+
+    @Test
+    public void testAsyncWriterStopsWhenLastLogIsClosed() throws Exception {
+        long systemTime = System.currentTimeMillis();
+        SessionID sessionID1 = new SessionID("FIX.4.2", "SENDER" + systemTime, "TARGET1");
+        SessionID sessionID2 = new SessionID("FIX.4.2", "SENDER" + systemTime, "TARGET2");
+        AsyncFileLogWriter writer = new AsyncFileLogWriter(16, AsyncFileLogWriter.OverflowPolicy.BLOCK);
+        writer.register();
+        FileLog log1 = new FileLog(getTempDirectory(), sessionID1, false, false, true, writer);
+        writer.register();
+        FileLog log2 = new FileLog(getTempDirectory(), sessionID2, false, false, true, writer);
+        log1.clear();
+        log2.clear();
+
+        log1.close();
+        log1.close();
+        assertTrue("writer stopped while a log is open", writer.register());
+        writer.release();
+
+        log2.onIncoming("BUFFERED");
+        log2.close();
+
+        assertFalse(writer.register());
+        assertEquals("BUFFERED\n", readLog(log2.getMessagesFileName()));
+    }
+
+    @Test(expected = RuntimeError.class)
+    public void testAsyncLogInvalidOverflowPolicy() throws Exception {
+        SessionID sessionID = new SessionID("FIX.4.2", "SENDER", "TARGET");
+        SessionSettings settings = new SessionSettings();
+        settings.setString(sessionID, FileLogFactory.SETTING_FILE_LOG_PATH, getTempDirectory());
+        settings.setBool(sessionID, FileLogFactory.SETTING_FILE_LOG_ASYNC, true);
+        settings.setString(FileLogFactory.SETTING_FILE_LOG_ASYNC_OVERFLOW_POLICY, "Ignore");
+        new FileLogFactory(settings).create(sessionID);
+    }
+
     private String readLog(String path) throws IOException {
         File file = new File(path);
         FileInputStream in = new FileInputStream(file);
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class FileStoreGroupCommitTest extends FileStoreTest {
+    private SessionSettings settings;
+
+    @Override
+    protected MessageStoreFactory getMessageStoreFactory() throws ConfigError, FieldConvertError {
+        settings = new SessionSettings(getConfigurationFileName());
+        // Initialize the session settings from the defaults
+        settings.setString(getSessionID(), FileStoreFactory.SETTING_FILE_STORE_PATH, settings
+                .getString(FileStoreFactory.SETTING_FILE_STORE_PATH));
+        settings.setBool(getSessionID(), FileStoreFactory.SETTING_FILE_STORE_SYNC, true);
+        settings.setBool(getSessionID(), FileStoreFactory.SETTING_FILE_STORE_GROUP_COMMIT, true);
+        settings.setLong(FileStoreFactory.SETTING_FILE_STORE_GROUP_COMMIT_DELAY, 1);
+        return new FileStoreFactory(settings);
+    }
+
+    public void testConcurrentSessions() throws Exception {
+        final int sessionCount = 8;
+        final int messageCount = 50;
+        final long now = System.currentTimeMillis();
+        final FileStoreFactory factory = new FileStoreFactory(settings);
+        final FileStore[] stores = new FileStore[sessionCount];
+        final AtomicReference<Exception> error = new AtomicReference<Exception>();
+        final Thread[] threads = new Thread[sessionCount];
+        try {
+            for (int i = 0; i < sessionCount; i++) {
+                final SessionID sessionID = new SessionID("FIX.4.2", "SENDER" + i + "-" + now,
+                        "TARGET-" + now);
+                settings.setString(sessionID, FileStoreFactory.SETTING_FILE_STORE_PATH,
+                        settings.getString(FileStoreFactory.SETTING_FILE_STORE_PATH));
+                final FileStore store = (FileStore) factory.create(sessionID);
+                stores[i] = store;
+                threads[i] = new Thread() {
+                    public void run() {
+                        try {
+                            for (int n = 1; n <= messageCount; n++) {
+                                store.set(n, "message" + n);
+                                store.incrNextSenderMsgSeqNum();
+                            }
+                        } catch (Exception e) {
+                            error.set(e);
+                        }
+                    }
+                };
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join(10000);
+            }
+            assertNull(error.get());
+
+            for (FileStore store : stores) {
+                store.refresh();
+                assertEquals(messageCount + 1, store.getNextSenderMsgSeqNum());
+                List<String> messages = new ArrayList<String>();
+                store.get(1, messageCount, messages);
+                assertEquals(messageCount, messages.size());
+                assertEquals("message" + messageCount, messages.get(messageCount - 1));
+            }
+        } finally {
+            for (FileStore store : stores) {
+                if (store != null) {
+                    store.deleteFiles();
+                }
+            }
+        }
+    }
+
+    public void testCommitterThreadStopsAfterLastStoreClosed() throws Exception {
+        final FileStoreGroupCommitter committer = new FileStoreGroupCommitter(1, 10);
+        final String path = settings.getString(FileStoreFactory.SETTING_FILE_STORE_PATH);
+        final long now = System.currentTimeMillis();
+        final FileStore store1 = new FileStore(path, new SessionID("FIX.4.2", "SENDER1-" + now,
+                "TARGET-" + now), true, 0, committer);
+        final FileStore store2 = new FileStore(path, new SessionID("FIX.4.2", "SENDER2-" + now,
+                "TARGET-" + now), true, 0, committer);
+        try {
+            store1.set(1, "MESSAGE1");
+            store2.set(1, "MESSAGE1");
+            assertTrue(committer.isCommitterThreadRunning());
+
+            store1.close();
+            store2.set(2, "MESSAGE2");
+            assertTrue(committer.isCommitterThreadRunning());
+
+            store2.close();
+            final long timeout = System.currentTimeMillis() + 5000;
+            while (committer.isCommitterThreadRunning() && System.currentTimeMillis() < timeout) {
+                Thread.sleep(10);
+            }
+            assertFalse(committer.isCommitterThreadRunning());
+
+            // a reopened store starts the thread again
+            store2.initialize(false);
+            store2.set(3, "MESSAGE3");
+            assertTrue(committer.isCommitterThreadRunning());
+        } finally {
+            store1.deleteFiles();
+            store2.deleteFiles();
+        }
+    }
+
+    public void testSenderSequenceNumberRecoveredFromStoredMessages() throws Exception {
+        FileStore store = (FileStore) getStore();
+        store.set(1, "MESSAGE1");
+        store.incrNextSenderMsgSeqNum();
+        store.set(2, "MESSAGE2");
+        store.close();
+
+        // simulate a crash before the sequence number update reached the disk
+        RandomAccessFile senderSeqNumFile = new RandomAccessFile(store.getSeqNumSenderFileName(), "rw");
+        try {
+            senderSeqNumFile.setLength(0);
+            senderSeqNumFile.writeUTF("2");
+        } finally {
+            senderSeqNumFile.close();
+        }
+
+        store.initialize(false);
+        assertEquals(3, store.getNextSenderMsgSeqNum());
+    }
+
+    public void testSenderSequenceNumberRecoveredFromUnreadableFile() throws Exception {
+        FileStore store = (FileStore) getStore();
+        store.set(1, "MESSAGE1");
+        store.incrNextSenderMsgSeqNum();
+        store.close();
+
+        // simulate a torn write of the sequence number file
+        RandomAccessFile senderSeqNumFile = new RandomAccessFile(store.getSeqNumSenderFileName(), "rw");
+        try {
+            senderSeqNumFile.setLength(1);
+        } finally {
+            senderSeqNumFile.close();
+        }
+
+        store.initialize(false);
+        assertEquals(2, store.getNextSenderMsgSeqNum());
+    }
+
+    public void testLoweredSenderSequenceNumberIsKept() throws Exception {
+        FileStore store = (FileStore) getStore();
+        for (int i = 1; i <= 5; i++) {
+            store.set(i, "MESSAGE" + i);
+            store.incrNextSenderMsgSeqNum();
+        }
+        store.setNextSenderMsgSeqNum(3);
+        store.close();
+
+        store.initialize(false);
+        assertEquals(3, store.getNextSenderMsgSeqNum());
+    }
+}
@@ -19,6 +19,7 @@
 
 package quickfix;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
@@ -72,6 +73,38 @@ public class FileStoreTest extends AbstractMessageStoreTest {
         assertEquals(321, store.getNextTargetMsgSeqNum());
     }
 
+    public void testGetFromSequenceIndex() throws Exception {
+        FileStore store = (FileStore) getStore();
+        for (int i = 1; i <= 20; i++) {
+            store.set(i, "MESSAGE" + i);
+        }
+        store.set(25, "MESSAGE25");
+        store.close();
+        store.initialize(false);
+
+        List<String> messages = new ArrayList<String>();
+        store.get(19, 30, messages);
+        assertEquals(3, messages.size());
+        assertEquals("MESSAGE19", messages.get(0));
+        assertEquals("MESSAGE20", messages.get(1));
+        assertEquals("MESSAGE25", messages.get(2));
+    }
+
+    public void testSequenceIndexRebuiltFromHeader() throws Exception {
+        FileStore store = (FileStore) getStore();
+        store.set(1, "MESSAGE1");
+        store.set(2, "MESSAGE2");
+        store.close();
+        assertTrue(new File(store.getIndexFileName()).delete());
+        store.initialize(false);
+
+        List<String> messages = new ArrayList<String>();
+        store.get(1, 2, messages);
+        assertEquals(2, messages.size());
+        assertEquals("MESSAGE1", messages.get(0));
+        assertEquals("MESSAGE2", messages.get(1));
+    }
+
     protected void closeMessageStore(MessageStore store) throws IOException {
         ((FileStore) store).close();
     }
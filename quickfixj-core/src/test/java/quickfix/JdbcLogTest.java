@@ -60,6 +60,57 @@ public class JdbcLogTest extends TestCase {
         assertEquals(0, getRowCount(connection, "event_log"));
     }
 
+    public void testBatchedLog() throws Exception {
+        setUpJdbcLog(false, null, 2);
+
+        log.onIncoming("INCOMING");
+        // the batch is not full and the flush interval is long
+        assertEquals(0, getRowCount(connection, "messages_log"));
+
+        log.onOutgoing("OUTGOING");
+        log.onEvent("EVENT");
+        long timeout = System.currentTimeMillis() + 5000;
+        while (getRowCount(connection, "messages_log") < 2 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, getRowCount(connection, "messages_log"));
+        assertLogData(connection, 0, sessionID, "INCOMING", log.getIncomingMessagesTableName());
+        assertLogData(connection, 0, sessionID, "OUTGOING", log.getOutgoingMessagesTableName());
+
+        log.close();
+        assertEquals(1, getRowCount(connection, "event_log"));
+        assertLogData(connection, 0, sessionID, "EVENT", "event_log");
+
+        // the batch writer is released on close, later entries are inserted directly
+        log.onEvent("EVENT2");
+        assertEquals(2, getRowCount(connection, "event_log"));
+        log.clear();
+        assertEquals(0, getRowCount(connection, "messages_log"));
+        assertEquals(0, getRowCount(connection, "event_log"));
+    }
+
+    public void testPinnedConnection() throws Exception {
+        connection = JdbcTestSupport.getConnection();
+        SessionSettings settings = new SessionSettings();
+        JdbcTestSupport.setHypersonicSettings(settings);
+        settings.setBool(JdbcSetting.SETTING_JDBC_PINNED_CONNECTION, true);
+        initializeTableDefinitions(connection);
+        logFactory = new JdbcLogFactory(settings);
+        long now = System.currentTimeMillis();
+        sessionID = new SessionID("FIX.4.2", "SENDER-" + now, "TARGET-" + now);
+        log = (JdbcLog) logFactory.create(sessionID);
+
+        log.onIncoming("INCOMING");
+        log.onOutgoing("OUTGOING");
+        log.onEvent("EVENT");
+        assertEquals(2, getRowCount(connection, "messages_log"));
+        assertEquals(1, getRowCount(connection, "event_log"));
+
+        log.clear();
+        assertEquals(0, getRowCount(connection, "messages_log"));
+        log.close();
+    }
+
     public void testLogWithHeartbeatFiltering() throws Exception {
         setUpJdbcLog(false, null);
 
@@ -113,11 +164,20 @@ public class JdbcLogTest extends TestCase {
     }
 
     private void setUpJdbcLog(boolean filterHeartbeats, DataSource dataSource) throws ClassNotFoundException, SQLException, ConfigError {
+        setUpJdbcLog(filterHeartbeats, dataSource, 0);
+    }
+
+    private void setUpJdbcLog(boolean filterHeartbeats, DataSource dataSource, int batchSize) throws ClassNotFoundException, SQLException, ConfigError {
         connection = JdbcTestSupport.getConnection();
         SessionSettings settings = new SessionSettings();
         if (filterHeartbeats) {
             settings.setBool(JdbcSetting.SETTING_JDBC_LOG_HEARTBEATS, false);
         }
+        if (batchSize > 0) {
+            settings.setBool(JdbcSetting.SETTING_JDBC_LOG_BATCH, true);
+            settings.setLong(JdbcSetting.SETTING_JDBC_LOG_BATCH_SIZE, batchSize);
+            settings.setLong(JdbcSetting.SETTING_JDBC_LOG_BATCH_INTERVAL, 60000);
+        }
         JdbcTestSupport.setHypersonicSettings(settings);
         initializeTableDefinitions(connection);
         logFactory = new JdbcLogFactory(settings);
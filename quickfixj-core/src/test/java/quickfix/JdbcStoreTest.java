@@ -20,8 +20,13 @@
 package quickfix;
 
 import static quickfix.JdbcSetting.SETTING_JDBC_DS_NAME;
+import static quickfix.JdbcSetting.SETTING_JDBC_PINNED_CONNECTION;
+import static quickfix.JdbcSetting.SETTING_JDBC_STORE_FETCH_SIZE;
+import static quickfix.JdbcSetting.SETTING_JDBC_STORE_FLUSH_INTERVAL;
+import static quickfix.JdbcSetting.SETTING_JDBC_STORE_JOURNAL_PATH;
 import static quickfix.JdbcSetting.SETTING_JDBC_STORE_MESSAGES_TABLE_NAME;
 import static quickfix.JdbcSetting.SETTING_JDBC_STORE_SESSIONS_TABLE_NAME;
+import static quickfix.JdbcSetting.SETTING_JDBC_STORE_WRITE_BEHIND;
 import static quickfix.JdbcTestSupport.HSQL_CONNECTION_URL;
 import static quickfix.JdbcTestSupport.HSQL_DRIVER;
 import static quickfix.JdbcTestSupport.HSQL_USER;
@@ -30,6 +35,7 @@ import static quickfix.JdbcTestSupport.dropTable;
 import static quickfix.JdbcTestSupport.loadSQL;
 import static quickfix.JdbcUtil.close;
 
+import java.io.File;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -121,6 +127,154 @@ public class JdbcStoreTest extends AbstractMessageStoreTest {
         assertEquals("wrong message", "message1", messages.get(1));
     }
 
+    public void testStreamingResendQuery() throws Exception {
+        SessionSettings settings = new SessionSettings();
+        settings.setString(SETTING_JDBC_DS_NAME, "TestDataSource");
+        settings.setLong(SETTING_JDBC_STORE_FETCH_SIZE, 2);
+        JdbcStore store = (JdbcStore) new JdbcStoreFactory(settings).create(getSessionID());
+        store.reset();
+        for (int i = 1; i <= 10; i++) {
+            assertTrue(store.set(i, "MESSAGE" + i));
+        }
+
+        List<String> messages = new ArrayList<String>();
+        store.get(3, 7, messages);
+        assertEquals(5, messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            assertEquals("MESSAGE" + (i + 3), messages.get(i));
+        }
+
+        // the read transaction is ended and auto-commit restored
+        assertTrue(store.set(11, "MESSAGE11"));
+        messages.clear();
+        getDatabaseStore().get(11, 11, messages);
+        assertEquals("MESSAGE11", messages.get(0));
+    }
+
+    public void testPinnedConnection() throws Exception {
+        SessionSettings settings = new SessionSettings();
+        settings.setString(SETTING_JDBC_DS_NAME, "TestDataSource");
+        settings.setBool(SETTING_JDBC_PINNED_CONNECTION, true);
+        JdbcStore store = (JdbcStore) new JdbcStoreFactory(settings).create(getSessionID());
+        try {
+            store.reset();
+            assertTrue(store.set(1, "MESSAGE1"));
+            assertTrue(store.set(1, "MESSAGE2"));
+            assertTrue(store.set(2, "MESSAGE3"));
+            store.incrNextSenderMsgSeqNum();
+            store.incrNextTargetMsgSeqNum();
+
+            List<String> messages = new ArrayList<String>();
+            store.get(1, 2, messages);
+            assertEquals(2, messages.size());
+            assertEquals("MESSAGE2", messages.get(0));
+
+            store.refresh();
+            assertEquals(2, store.getNextSenderMsgSeqNum());
+            assertEquals(2, store.getNextTargetMsgSeqNum());
+        } finally {
+            // returns the pinned connection to the pool
+            store.close();
+        }
+    }
+
+    public void testWriteBehind() throws Exception {
+        File journalPath = getJournalPath();
+        JdbcStore store = (JdbcStore) getWriteBehindStoreFactory(journalPath).create(getSessionID());
+        store.reset();
+
+        assertTrue(store.set(1, "MESSAGE1"));
+        assertTrue(store.set(2, "MESSAGE2"));
+        assertTrue(store.set(2, "MESSAGE2B"));
+        store.incrNextSenderMsgSeqNum();
+        store.incrNextSenderMsgSeqNum();
+        store.incrNextTargetMsgSeqNum();
+
+        // pending writes are not in the database yet
+        JdbcStore databaseStore = getDatabaseStore();
+        assertEquals(1, databaseStore.getNextSenderMsgSeqNum());
+        List<String> messages = new ArrayList<String>();
+        databaseStore.get(1, 2, messages);
+        assertEquals(0, messages.size());
+
+        // resend requests see the pending messages
+        store.get(1, 2, messages);
+        assertEquals(2, messages.size());
+        assertEquals("MESSAGE2B", messages.get(1));
+
+        store.incrNextTargetMsgSeqNum();
+        store.close();
+        databaseStore.refresh();
+        assertEquals(3, databaseStore.getNextSenderMsgSeqNum());
+        assertEquals(3, databaseStore.getNextTargetMsgSeqNum());
+        assertEquals(0, journalPath.list().length);
+    }
+
+    public void testWriteBehindJournalRecovery() throws Exception {
+        File journalPath = getJournalPath();
+        JdbcStore store = (JdbcStore) getWriteBehindStoreFactory(journalPath).create(getSessionID());
+        store.reset();
+        assertTrue(store.set(1, "MESSAGE1"));
+        store.incrNextSenderMsgSeqNum();
+        store.setNextTargetMsgSeqNum(5);
+
+        // the store is abandoned with pending writes, as after a crash
+        store = (JdbcStore) getWriteBehindStoreFactory(journalPath).create(getSessionID());
+        assertEquals(2, store.getNextSenderMsgSeqNum());
+        assertEquals(5, store.getNextTargetMsgSeqNum());
+
+        JdbcStore databaseStore = getDatabaseStore();
+        assertEquals(2, databaseStore.getNextSenderMsgSeqNum());
+        assertEquals(5, databaseStore.getNextTargetMsgSeqNum());
+        List<String> messages = new ArrayList<String>();
+        databaseStore.get(1, 1, messages);
+        assertEquals("MESSAGE1", messages.get(0));
+        store.close();
+    }
+
+    public void testWriteBehindStoreReopenedAfterClose() throws Exception {
+        File journalPath = getJournalPath();
+        JdbcStoreFactory factory = getWriteBehindStoreFactory(journalPath);
+        JdbcStore store = (JdbcStore) factory.create(getSessionID());
+        store.reset();
+        assertTrue(store.set(1, "MESSAGE1"));
+        store.close();
+        store.close();
+
+        // the flusher of the closed store has been stopped, a new one is started
+        store = (JdbcStore) factory.create(getSessionID());
+        assertTrue(store.set(2, "MESSAGE2"));
+        store.close();
+
+        List<String> messages = new ArrayList<String>();
+        getDatabaseStore().get(1, 2, messages);
+        assertEquals(2, messages.size());
+        assertEquals(0, journalPath.list().length);
+    }
+
+    private JdbcStore getDatabaseStore() {
+        JdbcStoreFactory factory = new JdbcStoreFactory(new SessionSettings());
+        factory.setDataSource(getDataSource());
+        return (JdbcStore) factory.create(getSessionID());
+    }
+
+    private JdbcStoreFactory getWriteBehindStoreFactory(File journalPath) {
+        SessionSettings settings = new SessionSettings();
+        settings.setString(SETTING_JDBC_DS_NAME, "TestDataSource");
+        settings.setBool(SETTING_JDBC_STORE_WRITE_BEHIND, true);
+        settings.setString(SETTING_JDBC_STORE_JOURNAL_PATH, journalPath.getAbsolutePath());
+        settings.setLong(SETTING_JDBC_STORE_FLUSH_INTERVAL, 60000);
+        return new JdbcStoreFactory(settings);
+    }
+
+    private File getJournalPath() throws IOException {
+        File path = File.createTempFile("journal", "");
+        path.delete();
+        path.mkdirs();
+        path.deleteOnExit();
+        return path;
+    }
+
     protected void initializeTableDefinitions(String sessionsTableName, String messagesTableName)
             throws ConfigError, SQLException, IOException {
         Connection connection = null;
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+public class MappedFileStoreTest extends AbstractMessageStoreTest {
+
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        MappedFileStore fileStore = (MappedFileStore) getStore();
+        try {
+            fileStore.deleteFiles();
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    protected MessageStoreFactory getMessageStoreFactory() throws ConfigError, FieldConvertError {
+        SessionSettings settings = new SessionSettings(getConfigurationFileName());
+        // Initialize the session settings from the defaults
+        settings.setString(getSessionID(), FileStoreFactory.SETTING_FILE_STORE_PATH, settings
+                .getString(FileStoreFactory.SETTING_FILE_STORE_PATH));
+        return new MappedFileStoreFactory(settings);
+    }
+
+    protected Class<?> getMessageStoreClass() {
+        return MappedFileStore.class;
+    }
+
+    protected void closeMessageStore(MessageStore store) throws IOException {
+        ((MappedFileStore) store).close();
+    }
+
+    public void testMessageIndexReset() throws Exception {
+        MappedFileStore store = (MappedFileStore) getStore();
+        store.set(1, "MESSAGE");
+        store.reset();
+
+        store.set(2, "MESSAGE");
+
+        List<String> messages = new ArrayList<String>();
+        store.get(1, 1, messages);
+
+        assertEquals(0, messages.size());
+    }
+
+    public void testCloseAndOpen() throws Exception {
+        MappedFileStore store = (MappedFileStore) getStore();
+        store.setNextSenderMsgSeqNum(123);
+        store.setNextTargetMsgSeqNum(321);
+        store.close();
+        store.refresh();
+
+        assertEquals(123, store.getNextSenderMsgSeqNum());
+        assertEquals(321, store.getNextTargetMsgSeqNum());
+    }
+
+    public void testInitialSessionCreationTime() throws Exception {
+        MappedFileStore store = (MappedFileStore) getStore();
+        Date creationTime1 = store.getCreationTime();
+        store.close();
+        Thread.sleep(100);
+        store.refresh();
+        Date creationTime2 = store.getCreationTime();
+        assertEquals("wrong time diff", 0, Math.abs(creationTime1.getTime() - creationTime2.getTime()));
+    }
+
+    public void testMessagesAcrossSegments() throws Exception {
+        MappedFileStore store = (MappedFileStore) getStore();
+        char[] data = new char[MappedFileStore.BODY_SEGMENT_SIZE - 10];
+        Arrays.fill(data, 'x');
+        String large = new String(data);
+        int farSequence = MappedFileStore.INDEX_SEGMENT_ENTRIES + 5;
+        store.set(1, large);
+        store.set(2, "spans two body segments");
+        store.set(farSequence, "in the second index segment");
+        store.close();
+        store.refresh();
+
+        List<String> messages = new ArrayList<String>();
+        store.get(1, farSequence, messages);
+        assertEquals(3, messages.size());
+        assertEquals(large, messages.get(0));
+        assertEquals("spans two body segments", messages.get(1));
+        assertEquals("in the second index segment", messages.get(2));
+    }
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Test;
+
+import quickfix.field.ClOrdID;
+import quickfix.field.HandlInst;
+import quickfix.field.OrdType;
+import quickfix.field.Side;
+import quickfix.field.Symbol;
+import quickfix.field.TransactTime;
+
+public class MessageCrackerProcessorTest {
+
+    private static final String HANDLER_SOURCE = "package crackertest;\n"
+            + "import quickfix.*;\n"
+            + "public class OrderHandler {\n"
+            + "    public final StringBuilder calls = new StringBuilder();\n"
+            + "    @MessageCracker.Handler\n"
+            + "    public void onOrder(quickfix.fix44.NewOrderSingle order, SessionID sessionID) {\n"
+            + "        calls.append(\"fix44 \");\n"
+            + "    }\n"
+            + "    @MessageCracker.Handler\n"
+            + "    void onOrder(quickfix.fix42.NewOrderSingle order, SessionID sessionID)\n"
+            + "            throws FieldNotFound {\n"
+            + "        calls.append(\"fix42 \");\n"
+            + "    }\n"
+            + "    @MessageCracker.Handler\n"
+            + "    public void onHeartbeat(quickfix.fix44.Heartbeat heartbeat, SessionID sessionID) {\n"
+            + "        calls.append(\"heartbeat \");\n"
+            + "    }\n"
+            + "}\n";
+
+    @Test
+    public void testGeneratedCrackerCallsHandlers() throws Exception {
+        Class<?> crackerClass = compile(HANDLER_SOURCE, "crackertest.OrderHandler",
+                "crackertest.OrderHandlerCracker");
+        Object handler = crackerClass.getClassLoader().loadClass("crackertest.OrderHandler")
+                .newInstance();
+        Object cracker = crackerClass.getConstructors()[0].newInstance(handler);
+        Method crack = crackerClass.getMethod("crack", Message.class, SessionID.class);
+        SessionID sessionID = new SessionID(FixVersions.BEGINSTRING_FIX44, "SENDER", "TARGET");
+
+        crack.invoke(cracker, new quickfix.fix44.NewOrderSingle(new ClOrdID("A"),
+                new Side(Side.BUY), new TransactTime(), new OrdType(OrdType.MARKET)), sessionID);
+        crack.invoke(cracker, new quickfix.fix42.NewOrderSingle(new ClOrdID("B"),
+                new HandlInst(HandlInst.MANUAL_ORDER), new Symbol("IBM"), new Side(Side.BUY),
+                new TransactTime(), new OrdType(OrdType.MARKET)), sessionID);
+        crack.invoke(cracker, new quickfix.fix44.Heartbeat(), sessionID);
+        try {
+            crack.invoke(cracker, new quickfix.fix44.TestRequest(), sessionID);
+            fail("expected UnsupportedMessageType");
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof UnsupportedMessageType);
+        }
+        assertEquals("fix44 fix42 heartbeat ", handler.getClass().getField("calls")
+                .get(handler).toString());
+    }
+
+    private static Class<?> compile(String source, String className, String crackerClassName)
+            throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        File directory = File.createTempFile("crackertest", "");
+        directory.delete();
+        File sourceFile = new File(directory, className.replace('.', '/') + ".java");
+        sourceFile.getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(sourceFile), "UTF-8");
+        try {
+            writer.write(source);
+        } finally {
+            writer.close();
+        }
+        String classPath = System.getProperty("java.class.path");
+        int result = compiler.run(null, null, null, Arrays.asList("-classpath", classPath,
+                "-processorpath", classPath, "-processor", MessageCrackerProcessor.class.getName(),
+                "-d", directory.getPath(), "-s", directory.getPath(), sourceFile.getPath())
+                .toArray(new String[0]));
+        assertEquals("compilation failed", 0, result);
+        ClassLoader classLoader = new URLClassLoader(new URL[] { directory.toURI().toURL() },
+                MessageCrackerProcessorTest.class.getClassLoader());
+        return classLoader.loadClass(crackerClassName);
+    }
+}
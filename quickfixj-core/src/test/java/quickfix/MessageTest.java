@@ -67,6 +67,7 @@ import quickfix.field.MsgDirection;
 import quickfix.field.MsgSeqNum;
 import quickfix.field.MsgType;
 import quickfix.field.NoOrders;
+import quickfix.field.NoRelatedSym;
 import quickfix.field.OrdStatus;
 import quickfix.field.OrdType;
 import quickfix.field.OrderID;
@@ -91,6 +92,7 @@ import quickfix.field.SignatureLength;
 import quickfix.field.Symbol;
 import quickfix.field.TargetCompID;
 import quickfix.field.TargetSubID;
+import quickfix.field.Text;
 import quickfix.field.TotNoOrders;
 import quickfix.field.TransactTime;
 import quickfix.field.UnderlyingCurrency;
@@ -296,6 +298,79 @@ public class MessageTest {
         assertEquals("wrong value", "CAD", valueMessageType.getString(UnderlyingCurrency.FIELD));
     }
 
+    @Test
+    public void testParsedFieldValuesAreExtractedLazily() throws Exception {
+        final String data = "8=FIX.4.2\0019=32\00135=0\00134=2\00149=TW\00156=ISLD\001"
+                + "52=20160101-12:00:00\00110=186\001";
+        final Message message = new Message(data, false);
+
+        final StringField senderCompID = message.getHeader().getField(SenderCompID.FIELD);
+        assertTrue(senderCompID instanceof LazyStringField);
+        assertTrue(((LazyStringField) senderCompID).isLazy());
+        assertTrue(senderCompID.valueEquals("TW"));
+        assertFalse(senderCompID.valueEquals("T"));
+        assertTrue(((LazyStringField) senderCompID).isLazy());
+
+        assertEquals(2, message.getHeader().getInt(MsgSeqNum.FIELD));
+        assertEquals("TW", message.getHeader().getString(SenderCompID.FIELD));
+        assertFalse(((LazyStringField) senderCompID).isLazy());
+        assertEquals("49=TW", senderCompID.toString());
+
+        message.getHeader().setString(SenderCompID.FIELD, "ISLD2");
+        assertEquals("ISLD2", message.getHeader().getString(SenderCompID.FIELD));
+        final Message reparsed = new Message(message.toString(), false);
+        assertEquals("ISLD2", reparsed.getHeader().getString(SenderCompID.FIELD));
+        assertEquals("ISLD", reparsed.getHeader().getString(TargetCompID.FIELD));
+    }
+
+    @Test
+    public void testToStringSetsBodyLengthAndCheckSum() throws Exception {
+        final Message message = new Message();
+        message.getHeader().setString(BeginString.FIELD, "FIX.4.4");
+        message.getHeader().setString(MsgType.FIELD, "D");
+        message.getHeader().setString(SenderCompID.FIELD, "A");
+        message.setString(ClOrdID.FIELD, "abc");
+        message.setInt(OrderQty.FIELD, 100);
+        message.getHeader().setInt(BodyLength.FIELD, 999);
+        message.getTrailer().setString(CheckSum.FIELD, "999");
+
+        final String expected = "8=FIX.4.4\0019=24\00135=D\00149=A\00111=abc\00138=100\00110=212\001";
+        assertEquals(expected, message.toString());
+        assertEquals(24, message.getHeader().getInt(BodyLength.FIELD));
+        assertEquals("212", message.getTrailer().getString(CheckSum.FIELD));
+        assertEquals(message.bodyLength(), message.getHeader().getInt(BodyLength.FIELD));
+        assertEquals(expected, message.toString());
+    }
+
+    @Test
+    public void testParseBadTag() throws Exception {
+        try {
+            new Message("8=FIX.4.2\0019=12\00135=0\0013a4=2\00110=111\001", false);
+            fail("exception should be thrown");
+        } catch (final InvalidMessage e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Bad tag format: For input string: \"3a4\""));
+        }
+    }
+
+    @Test
+    public void testParseSignedTag() throws Exception {
+        // a leading sign is accepted, as by Integer.parseInt
+        Message message = new Message("8=FIX.4.2\0019=12\00135=0\001+58=TEXT\00110=111\001", false);
+        assertEquals("TEXT", message.getString(58));
+        message = new Message("8=FIX.4.2\0019=12\00135=0\001-58=TEXT\00110=111\001", false);
+        assertEquals("TEXT", message.getString(-58));
+
+        for (String tag : new String[] { "+", "-", "+-5", "2147483648", "-2147483649" }) {
+            try {
+                new Message("8=FIX.4.2\0019=12\00135=0\001" + tag + "=2\00110=111\001", false);
+                fail("exception should be thrown for " + tag);
+            } catch (final InvalidMessage e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith(
+                        "Bad tag format: For input string: \"" + tag + "\""));
+            }
+        }
+    }
+
     @Test
     public void testParseEmptyString() throws Exception {
         final String data = "";
@@ -460,6 +535,42 @@ public class MessageTest {
         assertEquals("ABCD", m.getHeader().getString(SecureData.FIELD));
     }
 
+    @Test
+    public void testRecycledMessageIsParsedAgain() throws Exception {
+        final DataDictionary dictionary = DataDictionaryTest.getDictionary();
+        final Message message = new Message(createNews("First", "IBM", "MSFT", "ORCL").toString(),
+                dictionary);
+
+        message.recycle();
+        assertTrue(message.isEmpty());
+        assertFalse(message.hasGroup(NoRelatedSym.FIELD));
+
+        final String secondNews = createNews("Second", "AAPL", "GOOG").toString();
+        message.fromString(secondNews, dictionary, true);
+        assertEquals(new Message(secondNews, dictionary).toString(), message.toString());
+        assertEquals("Second", message.getString(Headline.FIELD));
+        assertEquals(2, message.getGroupCount(NoRelatedSym.FIELD));
+        assertEquals("GOOG", message.getGroups(NoRelatedSym.FIELD).get(1).getString(Symbol.FIELD));
+        assertTrue(message.hasValidStructure());
+    }
+
+    private News createNews(String headline, String... symbols) {
+        final News news = new News(new Headline(headline));
+        final News.LinesOfText linesOfText = new News.LinesOfText();
+        linesOfText.set(new Text(headline));
+        news.addGroup(linesOfText);
+        for (final String symbol : symbols) {
+            final News.NoRelatedSym relatedSym = new News.NoRelatedSym();
+            relatedSym.set(new Symbol(symbol));
+            news.addGroup(relatedSym);
+        }
+        news.getHeader().setString(SenderCompID.FIELD, "SENDER");
+        news.getHeader().setString(TargetCompID.FIELD, "TARGET");
+        news.getHeader().setInt(MsgSeqNum.FIELD, 1);
+        news.getHeader().setString(SendingTime.FIELD, "20240101-00:00:00");
+        return news;
+    }
+
     // QFJ-52
     @Test
     public void testInvalidFirstFieldInGroup() throws Exception {
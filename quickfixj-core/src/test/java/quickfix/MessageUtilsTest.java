@@ -47,6 +47,15 @@ public class MessageUtilsTest extends TestCase {
         assertNull(messageString, MessageUtils.getStringField(messageString, SenderCompID.FIELD));
     }
 
+    public void testGetMsgTypeKey() throws Exception {
+        assertEquals('D', MessageUtils.getMsgTypeKey("D"));
+        assertEquals('A' << 8 | 'E', MessageUtils.getMsgTypeKey("AE"));
+        assertEquals(('U' << 8 | '1') << 8 | '2', MessageUtils.getMsgTypeKey("U12"));
+        assertEquals(-1, MessageUtils.getMsgTypeKey(""));
+        assertEquals(-1, MessageUtils.getMsgTypeKey("ABCDE"));
+        assertEquals(-1, MessageUtils.getMsgTypeKey("\u00e9"));
+    }
+
     public void testSessionIdFromMessage() throws Exception {
         Message message = new Logon();
         message.getHeader().setString(SenderCompID.FIELD, "TW");
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix;
+
+import junit.framework.TestCase;
+
+import quickfix.field.SessionRejectReason;
+
+public class MessageViewTest extends TestCase {
+
+    private static final String EXECUTION_REPORT = "8=FIX.4.4\0019=100\00135=8\00134=2\001"
+            + "49=S\00152=20261017-10:11:12.123456\00156=T\00137=O1\00117=E1\001"
+            + "453=2\001448=P1\001447=D\001452=1\001802=2\001523=S1\001803=1\001523=S2\001803=2\001"
+            + "448=P2\001447=D\001452=3\001"
+            + "54=1\00155=IBM\00138=100\00144=12.345\00160=20261017-10:11:12.500\001"
+            + "1057=Y\00110=000\001";
+
+    /** Written like the views generated by the code generator. */
+    private static class ExecutionReportView extends MessageView {
+
+        public NoPartyIDs getNoPartyIDs(int num, NoPartyIDs group) throws FieldNotFound {
+            return getGroup(num, group, 453, NoPartyIDs.DELIMITER, NoPartyIDs.GROUP_TAGS);
+        }
+
+        public static class NoPartyIDs extends MessageView {
+
+            private static final int DELIMITER = 448;
+            private static final int[] GROUP_TAGS = groupTags(448, 447, 452, 802, 523, 803, 0);
+
+            public NoPartySubIDs getNoPartySubIDs(int num, NoPartySubIDs group)
+                    throws FieldNotFound {
+                return getGroup(num, group, 802, NoPartySubIDs.DELIMITER, NoPartySubIDs.GROUP_TAGS);
+            }
+
+            public static class NoPartySubIDs extends MessageView {
+
+                private static final int DELIMITER = 523;
+                private static final int[] GROUP_TAGS = groupTags(523, 803, 0);
+            }
+        }
+    }
+
+    public void testFieldGetters() throws Exception {
+        ExecutionReportView view = new ExecutionReportView();
+        view.wrap(EXECUTION_REPORT);
+        assertEquals("O1", view.getString(37));
+        assertEquals(2, view.getInt(34));
+        assertEquals(100L, view.getLong(38));
+        assertEquals('1', view.getChar(54));
+        assertEquals(12.345, view.getDouble(44), 0);
+        assertEquals(123450L, view.getScaledDecimal(44, 4));
+        assertTrue(view.getBoolean(1057));
+        assertEquals(1792231872500L, view.getUtcTimeStampMillis(60));
+        assertEquals(1792231872123456000L, view.getUtcTimeStampNanos(52));
+        assertTrue(view.isSetField(55));
+        assertFalse(view.isSetField(58));
+    }
+
+    public void testMissingAndInvalidFields() throws Exception {
+        ExecutionReportView view = new ExecutionReportView();
+        view.wrap(EXECUTION_REPORT);
+        try {
+            view.getString(58);
+            fail("expected FieldNotFound");
+        } catch (FieldNotFound e) {
+            assertEquals(58, e.field);
+        }
+        try {
+            view.getInt(55);
+            fail("expected FieldException");
+        } catch (FieldException e) {
+            assertEquals(55, e.getField());
+            assertEquals(SessionRejectReason.INCORRECT_DATA_FORMAT_FOR_VALUE,
+                    e.getSessionRejectReason());
+        }
+    }
+
+    public void testGroups() throws Exception {
+        ExecutionReportView view = new ExecutionReportView();
+        view.wrap(EXECUTION_REPORT);
+        assertEquals(2, view.getInt(453));
+
+        ExecutionReportView.NoPartyIDs party = new ExecutionReportView.NoPartyIDs();
+        ExecutionReportView.NoPartyIDs.NoPartySubIDs subID =
+                new ExecutionReportView.NoPartyIDs.NoPartySubIDs();
+        view.getNoPartyIDs(1, party);
+        assertEquals("P1", party.getString(448));
+        assertEquals(1, party.getInt(452));
+        assertEquals(2, party.getInt(802));
+        party.getNoPartySubIDs(2, subID);
+        assertEquals("S2", subID.getString(523));
+        assertEquals(2, subID.getInt(803));
+
+        view.getNoPartyIDs(2, party);
+        assertEquals("P2", party.getString(448));
+        assertEquals(3, party.getInt(452));
+        assertFalse(party.isSetField(802));
+        // fields after the group are not part of the last instance
+        assertFalse(party.isSetField(54));
+
+        try {
+            view.getNoPartyIDs(3, party);
+            fail("expected FieldNotFound");
+        } catch (FieldNotFound e) {
+            // expected
+        }
+    }
+
+    public void testWrapIsReusable() throws Exception {
+        ExecutionReportView view = new ExecutionReportView();
+        view.wrap(EXECUTION_REPORT);
+        view.wrap("8=FIX.4.4\0019=20\00135=8\00137=O2\00110=000\001");
+        assertEquals("O2", view.getString(37));
+        assertFalse(view.isSetField(453));
+    }
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import junit.framework.TestCase;
+
+public class RawMessageHeaderTest extends TestCase {
+
+    public void testScan() throws Exception {
+        String messageString = "8=FIXT.1.1\0019=100\00135=A\00134=12\00149=TW\00150=TWS\001"
+                + "142=TWL\00152=20060118-16:34:19\00156=ISLD\00157=ISLDS\001143=ISLDL\001"
+                + "1128=9\00198=0\001108=2\0011137=7\00110=223\001";
+        RawMessageHeader header = new RawMessageHeader().scan(messageString);
+        assertEquals("FIXT.1.1", header.getBeginString());
+        assertEquals("A", header.getMsgType());
+        assertEquals(12, header.getMsgSeqNum());
+        assertEquals("TW", header.getSenderCompID());
+        assertEquals("TWS", header.getSenderSubID());
+        assertEquals("TWL", header.getSenderLocationID());
+        assertEquals("ISLD", header.getTargetCompID());
+        assertEquals("ISLDS", header.getTargetSubID());
+        assertEquals("ISLDL", header.getTargetLocationID());
+        assertEquals("9", header.getApplVerID());
+        assertEquals("7", header.getDefaultApplVerID());
+
+        SessionID sessionID = header.getReverseSessionID();
+        assertEquals("ISLD", sessionID.getSenderCompID());
+        assertEquals("ISLDS", sessionID.getSenderSubID());
+        assertEquals("TW", sessionID.getTargetCompID());
+        assertEquals("TWL", sessionID.getTargetLocationID());
+        assertEquals(MessageUtils.getReverseSessionID(messageString), sessionID);
+    }
+
+    public void testScanIsReusable() throws Exception {
+        RawMessageHeader header = new RawMessageHeader();
+        header.scan("8=FIX.4.2\0019=12\00135=D\00134=5\00149=A\00150=B\00156=C\00110=000\001");
+        header.scan("8=FIX.4.4\0019=12\00135=0\00149=X\00156=Y\00110=000\001");
+        assertEquals("FIX.4.4", header.getBeginString());
+        assertEquals("0", header.getMsgType());
+        assertEquals(0, header.getMsgSeqNum());
+        assertEquals("X", header.getSenderCompID());
+        assertNull(header.getSenderSubID());
+    }
+
+    public void testMatchesGetStringField() throws Exception {
+        String[] messages = {
+                "8=FIX.4.0\0019=56\00134=1\00149=TW\00152=20060118-16:34:19\00156=ISLD\00110=223",
+                "8=FIX.4.0\0019=56\00135=1",
+                "58=a35=b\0018=FIX.4.2\00135=X\00135=Y\001",
+                "=\001\001x=1\00135=\00149=S\001",
+                "",
+        };
+        for (String message : messages) {
+            RawMessageHeader header = new RawMessageHeader().scan(message);
+            assertEquals(message, MessageUtils.getStringField(message, 8), header.getBeginString());
+            assertEquals(message, MessageUtils.getStringField(message, 35), header.getMsgType());
+            assertEquals(message, MessageUtils.getStringField(message, 49), header.getSenderCompID());
+            assertEquals(message, MessageUtils.getStringField(message, 56), header.getTargetCompID());
+        }
+    }
+}
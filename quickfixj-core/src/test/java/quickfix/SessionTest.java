@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyString;
@@ -25,7 +26,10 @@ import java.io.IOException;
 import java.lang.reflect.Field;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.TimeZone;
 
 import org.junit.Before;
@@ -1199,6 +1203,90 @@ public class SessionTest {
         session.close();
     }
 
+    @Test
+    public void testResendMessagesInBatches() throws Exception {
+        final UnitTestApplication application = new UnitTestApplication();
+        final Session session = setUpSession(application, false, new UnitTestResponder());
+        logonTo(session, 1);
+
+        final int messageCount = Session.RESEND_BATCH_SIZE + 5;
+        for (int i = 0; i < messageCount; i++) {
+            session.send(createAppMessage(i + 2));
+        }
+        application.toAppMessages.clear();
+
+        processMessage(session, createResendRequest(2, 1));
+
+        assertEquals(messageCount, application.toAppMessages.size());
+        for (int i = 0; i < messageCount; i++) {
+            assertEquals(i + 2, application.toAppMessages.get(i).getHeader().getInt(MsgSeqNum.FIELD));
+        }
+        assertTrue(session.isLoggedOn());
+
+        session.close();
+    }
+
+    @Test
+    public void testNextParsesUnparsedMessage() throws Exception {
+        final UnitTestApplication application = new UnitTestApplication();
+        final Session session = setUpSession(application, false, new UnitTestResponder());
+        logonTo(session, 1);
+
+        final String messageString = createAppMessage(2).toString();
+        session.next(new UnparsedMessage(messageString, new RawMessageHeader().scan(messageString)));
+
+        assertEquals(1, application.fromAppMessages.size());
+        final Message received = application.fromAppMessages.get(0);
+        assertTrue(received instanceof News);
+        assertEquals(2, received.getHeader().getInt(MsgSeqNum.FIELD));
+        assertEquals(3, getSessionState(session).getNextTargetMsgSeqNum());
+
+        // an invalid message is discarded without changing the session state
+        final String invalidMessageString = "8=FIX.4.4\0019=10\00149=TARGET\00156=SENDER\00110=000\001";
+        session.next(new UnparsedMessage(invalidMessageString,
+                new RawMessageHeader().scan(invalidMessageString)));
+        assertEquals(1, application.fromAppMessages.size());
+        assertEquals(3, getSessionState(session).getNextTargetMsgSeqNum());
+        assertTrue(session.isLoggedOn());
+
+        session.close();
+    }
+
+    @Test
+    public void testMessagePoolRecyclesMessageAfterFromApp() throws Exception {
+        final List<Message> receivedMessages = new ArrayList<Message>();
+        final List<Integer> receivedSeqNums = new ArrayList<Integer>();
+        final UnitTestApplication application = new UnitTestApplication() {
+            @Override
+            public void fromApp(Message message, SessionID sessionId) throws FieldNotFound,
+                    IncorrectDataFormat, IncorrectTagValue, UnsupportedMessageType {
+                super.fromApp(message, sessionId);
+                receivedMessages.add(message);
+                receivedSeqNums.add(message.getHeader().getInt(MsgSeqNum.FIELD));
+            }
+        };
+        final Session session = setUpSession(application, false, new UnitTestResponder());
+        final MessagePool messagePool = new MessagePool(1);
+        session.setMessagePool(messagePool);
+        logonTo(session, 1);
+
+        for (int seqNum = 2; seqNum <= 3; seqNum++) {
+            final String messageString = createAppMessage(seqNum).toString();
+            session.next(new UnparsedMessage(messageString,
+                    new RawMessageHeader().scan(messageString)));
+        }
+
+        assertEquals(Arrays.asList(2, 3), receivedSeqNums);
+        // the second message was parsed into the instance released after the first
+        assertSame(receivedMessages.get(0), receivedMessages.get(1));
+        assertTrue(receivedMessages.get(1) instanceof News);
+        assertSame(receivedMessages.get(1), messagePool.acquire(MsgType.NEWS));
+        assertTrue(receivedMessages.get(1).isEmpty());
+        assertEquals(4, getSessionState(session).getNextTargetMsgSeqNum());
+
+        session.close();
+    }
+
     // QFJ-658 and acceptance test 20_SimultaneousResendRequests.def
     @Test
     public void testSimultaneousResendRequests() throws Exception {
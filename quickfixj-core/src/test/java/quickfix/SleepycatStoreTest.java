@@ -21,6 +21,8 @@ package quickfix;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class SleepycatStoreTest extends AbstractMessageStoreTest {
     protected MessageStoreFactory getMessageStoreFactory() throws ConfigError, FieldConvertError {
@@ -63,4 +65,67 @@ public class SleepycatStoreTest extends AbstractMessageStoreTest {
         assertEquals(321, store.getNextTargetMsgSeqNum());
     }
 
+    public void testGetRangeBounds() throws Exception {
+        SleepycatStore store = (SleepycatStore) getStore();
+        store.reset();
+        store.set(1, "MESSAGE1");
+        store.set(2, "MESSAGE2");
+        store.set(3, "MESSAGE3");
+
+        List<String> messages = new ArrayList<String>();
+        store.get(2, 10, messages);
+        assertEquals(2, messages.size());
+        assertEquals("MESSAGE2", messages.get(0));
+        assertEquals("MESSAGE3", messages.get(1));
+
+        messages.clear();
+        store.get(4, 10, messages);
+        assertEquals(0, messages.size());
+    }
+
+    public void testDurabilityAndSyncInterval() throws Exception {
+        File dir = File.createTempFile("sleepycat", "");
+        dir.delete();
+        dir.mkdirs();
+        SessionSettings settings = new SessionSettings();
+        settings.setString(getSessionID(), SleepycatStoreFactory.SETTING_SLEEPYCAT_DATABASE_DIR,
+                dir.getPath());
+        settings.setString(SleepycatStoreFactory.SETTING_SLEEPYCAT_DURABILITY, "NoSync");
+        settings.setLong(SleepycatStoreFactory.SETTING_SLEEPYCAT_SYNC_INTERVAL, 10);
+        SleepycatStoreFactory factory = new SleepycatStoreFactory(settings);
+        SleepycatStore store = (SleepycatStore) factory.create(getSessionID());
+        try {
+            store.set(1, "MESSAGE1");
+            store.incrNextSenderMsgSeqNum();
+            store.sync();
+
+            List<String> messages = new ArrayList<String>();
+            store.get(1, 1, messages);
+            assertEquals("MESSAGE1", messages.get(0));
+        } finally {
+            store.close();
+        }
+        assertFalse(factory.getSyncScheduler().isRunning());
+        store.open();
+        assertTrue(factory.getSyncScheduler().isRunning());
+        assertEquals(2, store.getNextSenderMsgSeqNum());
+        store.close();
+        store.close();
+        assertFalse(factory.getSyncScheduler().isRunning());
+    }
+
+    public void testDurabilitySetting() throws Exception {
+        assertEquals(SleepycatStore.DurabilityPolicy.WRITE_NO_SYNC,
+                SleepycatStore.DurabilityPolicy.fromSetting("writenosync"));
+        SessionSettings settings = new SessionSettings();
+        settings.setString(SleepycatStoreFactory.SETTING_SLEEPYCAT_DATABASE_DIR, ".");
+        settings.setString(SleepycatStoreFactory.SETTING_SLEEPYCAT_DURABILITY, "Always");
+        try {
+            new SleepycatStoreFactory(settings).create(getSessionID());
+            fail("expected an error for an unknown durability policy");
+        } catch (RuntimeError e) {
+            assertTrue(e.getCause() instanceof ConfigError);
+        }
+    }
+
 }
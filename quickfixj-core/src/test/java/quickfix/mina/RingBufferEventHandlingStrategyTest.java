@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix.mina;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import quickfix.ConfigError;
+import quickfix.DefaultSessionFactory;
+import quickfix.MemoryStoreFactory;
+import quickfix.Message;
+import quickfix.RuntimeError;
+import quickfix.ScreenLogFactory;
+import quickfix.Session;
+import quickfix.SessionFactory;
+import quickfix.SessionSettings;
+import quickfix.UnitTestApplication;
+import quickfix.mina.RingBufferEventHandlingStrategy.WaitStrategy;
+
+public class RingBufferEventHandlingStrategyTest {
+
+    private final DefaultSessionFactory sessionFactory = new DefaultSessionFactory(new UnitTestApplication(),
+            new MemoryStoreFactory(), new ScreenLogFactory(true, true, true));
+
+    @Test
+    public void testMessagesAreProcessedInOrder() throws Exception {
+        for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+            RingBufferEventHandlingStrategy ehs = new RingBufferEventHandlingStrategy(null, 4, waitStrategy);
+            Session session = mock(Session.class);
+            Message[] messages = new Message[10];
+            for (int i = 0; i < messages.length; i++) {
+                messages[i] = new Message();
+            }
+
+            for (int i = 0; i < 4; i++) {
+                ehs.onMessage(session, messages[i]);
+            }
+            assertEquals(4, ehs.getQueueSize());
+            ehs.processNextMessage();
+            ehs.processNextMessage();
+            assertEquals(2, ehs.getQueueSize());
+            for (int i = 4; i < messages.length; i++) {
+                ehs.onMessage(session, messages[i]);
+                ehs.processNextMessage();
+            }
+            ehs.processPendingMessages();
+            assertEquals(0, ehs.getQueueSize());
+
+            InOrder inOrder = inOrder(session);
+            for (Message message : messages) {
+                inOrder.verify(session).next(message);
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testProcessNextMessageTimesOutWhenEmpty() throws Exception {
+        for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+            RingBufferEventHandlingStrategy ehs = new RingBufferEventHandlingStrategy(null, 16, waitStrategy);
+            ehs.processNextMessage();
+            assertEquals(0, ehs.getQueueSize());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testInterruptedPublisherStillPublishes() throws Exception {
+        final RingBufferEventHandlingStrategy ehs = new RingBufferEventHandlingStrategy(null, 1, WaitStrategy.PARK);
+        final Session session = mock(Session.class);
+        final Message first = new Message();
+        final Message second = new Message();
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        ehs.onMessage(session, first);
+
+        // the publisher claims a sequence and then waits for the full ring buffer
+        Thread publisher = new Thread() {
+            @Override
+            public void run() {
+                ehs.onMessage(session, second);
+                interrupted.set(Thread.currentThread().isInterrupted());
+            }
+        };
+        publisher.start();
+        while (ehs.getQueueSize() < 1 || publisher.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(10);
+        }
+        publisher.interrupt();
+        Thread.sleep(50);
+        ehs.processNextMessage();
+        publisher.join();
+
+        assertTrue(interrupted.get());
+        ehs.processNextMessage();
+        assertEquals(0, ehs.getQueueSize());
+        InOrder inOrder = inOrder(session);
+        inOrder.verify(session).next(first);
+        inOrder.verify(session).next(second);
+    }
+
+    @Test
+    public void testCapacityIsRoundedUpToPowerOfTwo() throws Exception {
+        RingBufferEventHandlingStrategy ehs = new RingBufferEventHandlingStrategy(null, 3, WaitStrategy.PARK);
+        Session session = mock(Session.class);
+        for (int i = 0; i < 4; i++) {
+            ehs.onMessage(session, new Message());
+        }
+        assertEquals(4, ehs.getQueueSize());
+    }
+
+    @Test
+    public void testStartStop() throws Exception {
+        RingBufferEventHandlingStrategy ehs = null;
+        try {
+            SessionConnector connector = new SessionConnectorUnderTest(new SessionSettings(), sessionFactory);
+            ehs = new RingBufferEventHandlingStrategy(connector, 1000, WaitStrategy.PARK);
+            ehs.blockInThread();
+            ehs.stopHandlingMessages();
+            Thread.sleep(500);
+            ehs.blockInThread();
+        } finally {
+            if (ehs != null) {
+                ehs.stopHandlingMessages(true);
+            }
+        }
+    }
+
+    @Test
+    public void testSelectedFromSettings() throws Exception {
+        SessionSettings settings = new SessionSettings();
+        SessionConnector connector = new SessionConnectorUnderTest(settings, sessionFactory);
+        assertEquals(SingleThreadedEventHandlingStrategy.class,
+                connector.createSingleThreadedEventHandlingStrategy(100).getClass());
+
+        settings.setString(SessionConnector.SETTING_EVENT_QUEUE, "RingBuffer");
+        SingleThreadedEventHandlingStrategy ehs = connector.createSingleThreadedEventHandlingStrategy(100);
+        assertTrue(ehs instanceof RingBufferEventHandlingStrategy);
+        assertEquals(WaitStrategy.PARK, ((RingBufferEventHandlingStrategy) ehs).getWaitStrategy());
+
+        settings.setString(SessionConnector.SETTING_RING_BUFFER_WAIT_STRATEGY, "BusySpin");
+        ehs = connector.createSingleThreadedEventHandlingStrategy(100);
+        assertEquals(WaitStrategy.BUSY_SPIN, ((RingBufferEventHandlingStrategy) ehs).getWaitStrategy());
+    }
+
+    @Test(expected = ConfigError.class)
+    public void testInvalidWaitStrategy() throws Exception {
+        SessionSettings settings = new SessionSettings();
+        settings.setString(SessionConnector.SETTING_EVENT_QUEUE, "RingBuffer");
+        settings.setString(SessionConnector.SETTING_RING_BUFFER_WAIT_STRATEGY, "Sleep");
+        new SessionConnectorUnderTest(settings, sessionFactory).createSingleThreadedEventHandlingStrategy(100);
+    }
+
+    private static class SessionConnectorUnderTest extends SessionConnector {
+
+        public SessionConnectorUnderTest(SessionSettings settings, SessionFactory sessionFactory) throws ConfigError {
+            super(settings, sessionFactory);
+        }
+
+        @Override
+        public void start() throws ConfigError, RuntimeError {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public void stop(boolean force) {
+        }
+
+        @Override
+        public void block() throws ConfigError, RuntimeError {
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix.mina;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.stub;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import quickfix.ConfigError;
+import quickfix.DefaultSessionFactory;
+import quickfix.MemoryStoreFactory;
+import quickfix.Message;
+import quickfix.RuntimeError;
+import quickfix.ScreenLogFactory;
+import quickfix.Session;
+import quickfix.SessionFactory;
+import quickfix.SessionID;
+import quickfix.SessionSettings;
+import quickfix.UnitTestApplication;
+import quickfix.field.MsgSeqNum;
+
+public class ThreadPoolEventHandlingStrategyTest {
+
+    @Test(timeout = 10000)
+    public void testMessagesOfEachSessionAreProcessedInOrder() throws Exception {
+        final int sessionCount = 50;
+        final int messageCount = 200;
+        final ThreadPoolEventHandlingStrategy ehs = new ThreadPoolEventHandlingStrategy(null, 1000, 4);
+        final CountDownLatch processed = new CountDownLatch(sessionCount * messageCount);
+        final Set<String> threadNames = Collections.synchronizedSet(new HashSet<String>());
+        final List<List<Integer>> received = new ArrayList<List<Integer>>();
+        final Session[] sessions = new Session[sessionCount];
+
+        for (int i = 0; i < sessionCount; i++) {
+            final List<Integer> sequence = Collections.synchronizedList(new ArrayList<Integer>());
+            received.add(sequence);
+            sessions[i] = mock(Session.class);
+            stub(sessions[i].getSessionID()).toReturn(new SessionID("FIX.4.4", "SENDER" + i, "TARGET"));
+            doAnswer(new Answer<Object>() {
+                @Override
+                public Object answer(InvocationOnMock invocation) throws Throwable {
+                    Message message = (Message) invocation.getArguments()[0];
+                    sequence.add(message.getHeader().getInt(MsgSeqNum.FIELD));
+                    threadNames.add(Thread.currentThread().getName());
+                    processed.countDown();
+                    return null;
+                }
+            }).when(sessions[i]).next(any(Message.class));
+        }
+
+        for (int n = 1; n <= messageCount; n++) {
+            for (Session session : sessions) {
+                Message message = new Message();
+                message.getHeader().setInt(MsgSeqNum.FIELD, n);
+                ehs.onMessage(session, message);
+            }
+        }
+
+        assertTrue(processed.await(5, TimeUnit.SECONDS));
+        for (List<Integer> sequence : received) {
+            assertEquals(messageCount, sequence.size());
+            for (int n = 0; n < messageCount; n++) {
+                assertEquals(n + 1, sequence.get(n).intValue());
+            }
+        }
+        assertTrue("too many threads: " + threadNames, threadNames.size() <= 4);
+        assertEquals(0, ehs.getQueueSize());
+        ehs.stopDispatcherThreads();
+    }
+
+    @Test(timeout = 10000)
+    public void testStopDispatcherThreads() throws Exception {
+        final ThreadPoolEventHandlingStrategy ehs = new ThreadPoolEventHandlingStrategy(null, 1000, 2);
+        final Session session = mock(Session.class);
+        final SessionID sessionID = new SessionID("FIX.4.4", "SENDER", "TARGET");
+        stub(session.getSessionID()).toReturn(sessionID);
+
+        ehs.onMessage(session, new Message());
+        ehs.stopDispatcherThreads();
+        assertEquals(0, ehs.getQueueSize(sessionID));
+        assertNull(ehs.getDispatcher(sessionID));
+        assertFalse(isPoolThreadAlive());
+
+        // the session gets a new dispatcher and pool after a restart
+        ehs.onMessage(session, new Message());
+        assertNotNull(ehs.getDispatcher(sessionID));
+        ehs.stopDispatcherThreads();
+        assertEquals(0, ehs.getQueueSize(sessionID));
+        assertNull(ehs.getDispatcher(sessionID));
+        assertFalse(isPoolThreadAlive());
+    }
+
+    @Test(timeout = 10000)
+    public void testDispatcherIsDroppedAfterDisconnect() throws Exception {
+        final ThreadPoolEventHandlingStrategy ehs = new ThreadPoolEventHandlingStrategy(null, 1000, 2);
+        final Session session = mock(Session.class);
+        final SessionID sessionID = new SessionID("FIX.4.4", "SENDER", "TARGET");
+        stub(session.getSessionID()).toReturn(sessionID);
+
+        ehs.onMessage(session, new Message());
+        ehs.onMessage(session, EventHandlingStrategy.END_OF_STREAM);
+        while (ehs.getDispatcher(sessionID) != null) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, ehs.getQueueSize());
+        ehs.stopDispatcherThreads();
+    }
+
+    private static boolean isPoolThreadAlive() throws InterruptedException {
+        // a terminated pool's threads may take a moment to exit
+        final long timeout = System.currentTimeMillis() + 1000;
+        do {
+            boolean alive = false;
+            final Thread[] threads = new Thread[1024];
+            final int count = Thread.enumerate(threads);
+            for (int i = 0; i < count; i++) {
+                if (threads[i].getName().startsWith(ThreadPoolEventHandlingStrategy.THREAD_NAME_PREFIX)) {
+                    alive = true;
+                }
+            }
+            if (!alive) {
+                return false;
+            }
+            Thread.sleep(10);
+        } while (System.currentTimeMillis() < timeout);
+        return true;
+    }
+
+    @Test(timeout = 10000)
+    public void testReconnectDoesNotProcessSessionConcurrently() throws Exception {
+        final int messageCount = 1000;
+        final ThreadPoolEventHandlingStrategy ehs = new ThreadPoolEventHandlingStrategy(null, 10000, 4);
+        final Session session = mock(Session.class);
+        stub(session.getSessionID()).toReturn(new SessionID("FIX.4.4", "SENDER", "TARGET"));
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicBoolean overlapped = new AtomicBoolean();
+        final CountDownLatch processed = new CountDownLatch(messageCount + 1);
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                if (active.incrementAndGet() > 1) {
+                    overlapped.set(true);
+                }
+                Thread.yield();
+                active.decrementAndGet();
+                processed.countDown();
+                return null;
+            }
+        }).when(session).next(any(Message.class));
+
+        for (int n = 0; n < messageCount / 2; n++) {
+            ehs.onMessage(session, new Message());
+        }
+        // disconnect followed by a reconnect while messages are still queued
+        ehs.onMessage(session, EventHandlingStrategy.END_OF_STREAM);
+        for (int n = 0; n < messageCount / 2; n++) {
+            ehs.onMessage(session, new Message());
+        }
+
+        assertTrue(processed.await(5, TimeUnit.SECONDS));
+        assertFalse(overlapped.get());
+        assertEquals(0, ehs.getQueueSize());
+        ehs.stopDispatcherThreads();
+    }
+
+    @Test
+    public void testSelectedFromSettings() throws Exception {
+        SessionSettings settings = new SessionSettings();
+        SessionConnector connector = new SessionConnectorUnderTest(settings);
+        assertEquals(ThreadPerSessionEventHandlingStrategy.class,
+                connector.createThreadedEventHandlingStrategy(100).getClass());
+
+        settings.setLong(SessionConnector.SETTING_DISPATCHER_THREAD_POOL_SIZE, 8);
+        ThreadedEventHandlingStrategy ehs = connector.createThreadedEventHandlingStrategy(100);
+        assertTrue(ehs instanceof ThreadPoolEventHandlingStrategy);
+        assertEquals(8, ((ThreadPoolEventHandlingStrategy) ehs).getPoolSize());
+    }
+
+    @Test(expected = ConfigError.class)
+    public void testInvalidPoolSize() throws Exception {
+        SessionSettings settings = new SessionSettings();
+        settings.setLong(SessionConnector.SETTING_DISPATCHER_THREAD_POOL_SIZE, -1);
+        new SessionConnectorUnderTest(settings).createThreadedEventHandlingStrategy(100);
+    }
+
+    private static class SessionConnectorUnderTest extends SessionConnector {
+
+        private static final SessionFactory SESSION_FACTORY = new DefaultSessionFactory(
+                new UnitTestApplication(), new MemoryStoreFactory(), new ScreenLogFactory(true, true, true));
+
+        public SessionConnectorUnderTest(SessionSettings settings) throws ConfigError {
+            super(settings, SESSION_FACTORY);
+        }
+
+        @Override
+        public void start() throws ConfigError, RuntimeError {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public void stop(boolean force) {
+        }
+
+        @Override
+        public void block() throws ConfigError, RuntimeError {
+        }
+    }
+}
@@ -20,6 +20,7 @@
 package quickfix.mina.message;
 
 import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
 
 import junit.framework.ComparisonFailure;
 import junit.framework.TestCase;
@@ -113,6 +114,16 @@ public class FIXMessageEncoderTest extends TestCase {
         assertEquals(4, protocolEncoderOutputForTest.buffer.limit());
     }
 
+    public void testEncodingStringWesternEuropean() throws Exception {
+        String data = "58=\u00E4bcf\u00F6d\u00E7\u00E9\001";
+        FIXMessageEncoder encoder = new FIXMessageEncoder();
+        ProtocolEncoderOutputForTest protocolEncoderOutputForTest = new ProtocolEncoderOutputForTest();
+        encoder.encode(null, data, protocolEncoderOutputForTest);
+        byte[] bytes = new byte[protocolEncoderOutputForTest.buffer.remaining()];
+        protocolEncoderOutputForTest.buffer.get(bytes);
+        assertTrue(Arrays.equals(data.getBytes("ISO-8859-1"), bytes));
+    }
+
     public void testEncodingStringChinese() throws Exception {
         CharsetSupport.setCharset("UTF-8");
         FIXMessageEncoder encoder = new FIXMessageEncoder();